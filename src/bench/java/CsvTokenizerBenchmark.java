@@ -0,0 +1,97 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Compares bytes allocated per record by the old line.split(",") + trim()
+ * parsing against CsvTokenizer, using a synthetic students.txt.
+ *
+ * Usage: java CsvTokenizerBenchmark [rows] [rounds]
+ */
+public class CsvTokenizerBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        String data = buildStudents(rows);
+
+        com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().threadId();
+
+        // Warm up both paths so JIT compilation does not skew the first round
+        for (int i = 0; i < 3; i++) {
+            splitScan(data);
+            tokenizerScan(data);
+        }
+
+        long splitBytes = 0, tokenizerBytes = 0, splitNanos = 0, tokenizerNanos = 0;
+        long checksum = 0;
+        for (int round = 0; round < rounds; round++) {
+            long before = threads.getThreadAllocatedBytes(thread);
+            long start = System.nanoTime();
+            checksum += splitScan(data);
+            splitNanos += System.nanoTime() - start;
+            splitBytes += threads.getThreadAllocatedBytes(thread) - before;
+
+            before = threads.getThreadAllocatedBytes(thread);
+            start = System.nanoTime();
+            checksum += tokenizerScan(data);
+            tokenizerNanos += System.nanoTime() - start;
+            tokenizerBytes += threads.getThreadAllocatedBytes(thread) - before;
+        }
+
+        long records = (long) rows * rounds;
+        System.out.println("Records per round : " + rows + " x " + rounds + " rounds");
+        System.out.printf("split + trim      : %6.0f bytes/row  %6.0f ns/row%n",
+                          (double) splitBytes / records, (double) splitNanos / records);
+        System.out.printf("CsvTokenizer      : %6.0f bytes/row  %6.0f ns/row%n",
+                          (double) tokenizerBytes / records, (double) tokenizerNanos / records);
+        System.out.printf("Allocation saved  : %.1f%%%n", 100.0 * (splitBytes - tokenizerBytes) / splitBytes);
+        System.out.println("(checksum " + checksum + ")");
+    }
+
+    // Typical lookup: find students enrolled in one class and sum their subject counts
+    private static long splitScan(String data) throws IOException {
+        long matches = 0;
+        try (BufferedReader reader = new BufferedReader(new StringReader(data))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(",");
+                if (parts.length >= 10 && parts[1].trim().length() > 0) {
+                    for (String classId : parts[9].split(";")) {
+                        if (classId.trim().equals("CL007")) {
+                            matches += parts[0].trim().length();
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+        return matches;
+    }
+
+    private static long tokenizerScan(String data) throws IOException {
+        long matches = 0;
+        try (BufferedReader reader = new BufferedReader(new StringReader(data))) {
+            CsvTokenizer csv = new CsvTokenizer(reader);
+            while (csv.next()) {
+                if (csv.fieldCount() >= 10 && !csv.isEmpty(1) && csv.listContains(9, ';', "CL007")) {
+                    matches += csv.field(0).length();
+                }
+            }
+        }
+        return matches;
+    }
+
+    private static String buildStudents(int rows) {
+        StringBuilder sb = new StringBuilder(rows * 110);
+        for (int i = 1; i <= rows; i++) {
+            sb.append(String.format("STU%03d,05382919%02d,password123,Student %d,student%d@gmail.com,019-222-%03d,"
+                                    + "Kuala Lumpur,Form %d,January,CL%03d;CL008;CL015\r\n",
+                                    i, i % 100, i, i, i % 1000, 1 + i % 5, 1 + i % 30));
+        }
+        return sb.toString();
+    }
+}
\ No newline at end of file
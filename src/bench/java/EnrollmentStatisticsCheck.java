@@ -0,0 +1,127 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * Checks that the parallel enrollment statistics pass gives the same result as
+ * the sequential one, then times both.
+ *
+ * Students and classes are generated in memory from a fixed seed: 0-5 classes
+ * per student (some IDs in other case or with spaces, some repeated, some for
+ * classes that do not exist), a few students without a level or enrollment
+ * month. The parallel result must match the sequential one exactly: student
+ * count, every subject-count bucket, every key of every dimension, and the
+ * revenue to a cent. Exits with status 1 on any difference.
+ *
+ * Usage: java EnrollmentStatisticsCheck [students]
+ */
+public class EnrollmentStatisticsCheck {
+    private static final String[] SUBJECTS = { "Mathematics", "English", "Malay", "Science", "History", "Geography" };
+    private static final String[] MONTHS = { "January", "February", "March", "April", "May", "June",
+                                             "July", "August", "September", "October", "November", "December" };
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+
+        List<ClassInfo> classes = new ArrayList<>();
+        int id = 0;
+        for (String subject : SUBJECTS) {
+            for (int form = 1; form <= 5; form++) {
+                id++;
+                classes.add(new ClassInfo(String.format("CL%03d", id), String.format("TC%03d", 1 + id % 12),
+                                          subject + " Form " + form, subject + ", form " + form,
+                                          "2025-07-05; 2025-07-12", 40 + 10 * form + id % 7 * 0.05));
+            }
+        }
+
+        Random random = new Random(11);
+        List<Student> students = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            List<String> enrolled = new ArrayList<>();
+            int count = random.nextInt(6);
+            for (int c = 0; c < count; c++) {
+                int classNumber = 1 + random.nextInt(id + 3); // a few past the end do not exist
+                String classId = String.format("CL%03d", classNumber);
+                if (i % 17 == 0) classId = " " + classId.toLowerCase() + " ";
+                enrolled.add(classId);
+            }
+            if (i % 101 == 0 && !enrolled.isEmpty()) enrolled.add(enrolled.get(0)); // listed twice
+            String level = i % 53 == 0 ? "" : "Form " + (1 + i % 5);
+            String month = i % 61 == 0 ? null : MONTHS[i % 12];
+            students.add(new Student(String.format("STU%06d", i), "IC" + i, "stu" + i, "x", "Student " + i,
+                                     "s" + i + "@example.com", "012-0000000", "Address " + i, level, month,
+                                     enrolled, 0));
+        }
+
+        List<EnrollmentStatisticsEngine.Dimension> dimensions = EnrollmentStatisticsEngine.defaultDimensions();
+        EnrollmentStatisticsEngine sequentialEngine = new EnrollmentStatisticsEngine(dimensions, Integer.MAX_VALUE);
+        EnrollmentStatisticsEngine parallelEngine = new EnrollmentStatisticsEngine(dimensions, 0);
+
+        DataManager.EnrollmentStatistics sequential = sequentialEngine.compute(students, classes);
+        DataManager.EnrollmentStatistics parallel = parallelEngine.compute(students, classes);
+        System.out.printf("%,d students, %,d classes, expected revenue RM%.2f%n",
+                          sequential.getTotalStudents(), classes.size(), sequential.getTotalRevenue());
+
+        int differences = compare(sequential, parallel);
+        System.out.println(differences == 0 ? "parallel result matches" : differences + " values differ");
+
+        System.out.printf("%nmode        best ms%n");
+        System.out.printf("sequential  %7.1f%n", best(sequentialEngine, students, classes) / 1e6);
+        System.out.printf("parallel    %7.1f%n", best(parallelEngine, students, classes) / 1e6);
+
+        if (differences > 0) {
+            System.out.println("FAILED: parallel statistics differ from the sequential ones");
+            System.exit(1);
+        }
+    }
+
+    private static int compare(DataManager.EnrollmentStatistics expected, DataManager.EnrollmentStatistics actual) {
+        int differences = 0;
+        if (expected.getTotalStudents() != actual.getTotalStudents()) {
+            System.out.printf("  students: expected %d, got %d%n", expected.getTotalStudents(), actual.getTotalStudents());
+            differences++;
+        }
+        if (Math.abs(expected.getTotalRevenue() - actual.getTotalRevenue()) >= 0.005) {
+            System.out.printf("  revenue: expected RM%.2f, got RM%.2f%n", expected.getTotalRevenue(),
+                              actual.getTotalRevenue());
+            differences++;
+        }
+        differences += compare("subject count", expected.getStudentsBySubjectCount(),
+                               actual.getStudentsBySubjectCount());
+        if (!expected.getDimensionNames().equals(actual.getDimensionNames())) {
+            System.out.println("  dimensions differ: " + expected.getDimensionNames() + " vs " + actual.getDimensionNames());
+            differences++;
+        }
+        for (String dimension : expected.getDimensionNames()) {
+            differences += compare(dimension, expected.getCounts(dimension), actual.getCounts(dimension));
+        }
+        return differences;
+    }
+
+    private static <K> int compare(String name, Map<K, Integer> expected, Map<K, Integer> actual) {
+        int differences = 0;
+        if (!expected.keySet().equals(actual.keySet())) {
+            System.out.println("  " + name + ": key sets differ, " + expected.size() + " vs " + actual.size());
+            differences++;
+        }
+        for (Map.Entry<K, Integer> entry : expected.entrySet()) {
+            Integer got = actual.get(entry.getKey());
+            if (!Objects.equals(entry.getValue(), got) && differences++ < 5) {
+                System.out.printf("  %s %s: expected %d, got %s%n", name, entry.getKey(), entry.getValue(), got);
+            }
+        }
+        return differences;
+    }
+
+    private static long best(EnrollmentStatisticsEngine engine, List<Student> students, List<ClassInfo> classes) {
+        long best = Long.MAX_VALUE;
+        for (int run = 0; run < 10; run++) {
+            long start = System.nanoTime();
+            engine.compute(students, classes);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,168 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Checks that the parallel income rebuild gives the same report as a sequential
+ * pass, then times it on 1, 2, 4, ... threads up to the core count.
+ *
+ * Writes a multi-year class.txt and payments.txt (fixed seed; some CRLF, blank,
+ * quoted and short lines) in a scratch directory. For several chunk sizes, down
+ * to chunks smaller than one line, the parallel result must match the
+ * sequential one key for key (income to a cent, counts exactly), and the
+ * payment IDs must come back in file order with none lost or repeated.
+ * Exits with status 1 on any difference.
+ *
+ * Usage: java IncomeReportCheck [payments]
+ */
+public class IncomeReportCheck {
+    private static final String[] SUBJECTS = { "Mathematics", "English", "Malay", "Science", "History", "Geography" };
+    private static final int FIRST_YEAR = 2020;
+    private static final int YEARS = 6;
+
+    public static void main(String[] args) throws IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+
+        File dir = Files.createTempDirectory("atc-income-check").toFile();
+        System.setProperty("user.dir", dir.getAbsolutePath());
+        int classCount = writeClasses(new File(dir, "class.txt"));
+        writePayments(new File(dir, "payments.txt"), rows, classCount);
+
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        List<ClassInfo> classes = new FileHandler().loadClassesFromDisk();
+        System.setOut(console);
+
+        int failures = 0;
+        long start = System.nanoTime();
+        IncomeRollups sequential = IncomeRollups.fromLedger("payments.txt", classes, false);
+        long sequentialNanos = System.nanoTime() - start;
+        List<String> expectedIds = ParallelLedgerScan.aggregateSequential("payments.txt", new PaymentIds());
+        console.printf("%,d payments, %,d classes, %,d report keys%n",
+                       expectedIds.size(), classes.size(), sequential.all().size());
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(cores);
+        for (int chunk : new int[] { 64, 4096, 1 << 20 }) {
+            IncomeRollups parallel = IncomeRollups.fromLedger("payments.txt", classes, pool, chunk);
+            List<String> ids = ParallelLedgerScan.aggregate("payments.txt", new PaymentIds(), pool, chunk);
+            int differences = compare(sequential.all(), parallel.all(), console);
+            boolean sameOrder = ids.equals(expectedIds);
+            console.printf("chunk %,9d bytes: %s%s%n", chunk,
+                           differences == 0 ? "report matches" : differences + " report keys differ",
+                           sameOrder ? ", payments in file order" : ", PAYMENT ORDER DIFFERS");
+            if (differences > 0 || !sameOrder) failures++;
+        }
+        pool.shutdown();
+
+        console.printf("%nthreads  rebuild ms  speed-up%n");
+        console.printf("%7s  %10.1f  %8s%n", "seq", sequentialNanos / 1e6, "1.00");
+        for (int threads = 1; threads <= cores; threads *= 2) {
+            ForkJoinPool sized = new ForkJoinPool(threads);
+            long best = Long.MAX_VALUE;
+            for (int run = 0; run < 5; run++) {
+                start = System.nanoTime();
+                IncomeRollups.fromLedger("payments.txt", classes, sized, 1 << 20);
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            sized.shutdown();
+            console.printf("%7d  %10.1f  %8.2f%n", threads, best / 1e6, (double) sequentialNanos / best);
+        }
+
+        for (File file : dir.listFiles()) file.delete();
+        dir.delete();
+        if (failures > 0) {
+            console.println("FAILED: parallel report differs from the sequential one");
+            System.exit(1);
+        }
+    }
+
+    private static int compare(SortedMap<String, IncomeRollups.Totals> expected,
+                               SortedMap<String, IncomeRollups.Totals> actual, PrintStream out) {
+        int differences = 0;
+        if (!expected.keySet().equals(actual.keySet())) {
+            out.println("  key sets differ: " + expected.size() + " vs " + actual.size());
+            differences++;
+        }
+        for (Map.Entry<String, IncomeRollups.Totals> entry : expected.entrySet()) {
+            IncomeRollups.Totals a = actual.get(entry.getKey());
+            IncomeRollups.Totals e = entry.getValue();
+            if (a == null || a.getPayments() != e.getPayments() || a.getClasses() != e.getClasses()
+                    || Math.abs(a.getIncome() - e.getIncome()) >= 0.005) {
+                if (differences++ < 5) {
+                    out.printf("  %s: expected %d payments RM%.2f, got %s%n", entry.getKey(), e.getPayments(),
+                               e.getIncome(), a == null ? "nothing"
+                                   : String.format("%d payments RM%.2f", a.getPayments(), a.getIncome()));
+                }
+            }
+        }
+        return differences;
+    }
+
+    // Payment IDs in the order the chunks produced them
+    private static final class PaymentIds implements ParallelLedgerScan.Aggregation<List<String>> {
+        @Override
+        public List<String> create() {
+            return new ArrayList<>();
+        }
+
+        @Override
+        public void accumulate(List<String> ids, MappedLedgerReader.Record record) {
+            ids.add(record.field(0));
+        }
+
+        @Override
+        public List<String> merge(List<String> left, List<String> right) {
+            left.addAll(right);
+            return left;
+        }
+    }
+
+    // One class per subject, level and year, scheduled in three months of its year
+    private static int writeClasses(File file) throws IOException {
+        int id = 0;
+        try (PrintWriter writer = new PrintWriter(file)) {
+            for (int year = FIRST_YEAR; year < FIRST_YEAR + YEARS; year++) {
+                for (String subject : SUBJECTS) {
+                    for (int form = 1; form <= 5; form++) {
+                        id++;
+                        int month = 1 + id % 10;
+                        writer.printf("CL%04d,TC%03d,%s Form %d,\"%s, form %d\",%d-%02d-05; %d-%02d-12; %d-%02d-03,%d.0%n",
+                                      id, 1 + id % 20, subject, form, subject, form,
+                                      year, month, year, month, year, month + 2, 40 + 10 * form);
+                    }
+                }
+            }
+        }
+        return id;
+    }
+
+    private static void writePayments(File file, int rows, int classCount) throws IOException {
+        Random random = new Random(42);
+        try (PrintWriter writer = new PrintWriter(file)) {
+            for (int i = 1; i <= rows; i++) {
+                StringBuilder classes = new StringBuilder();
+                int listed = 1 + random.nextInt(3);
+                for (int c = 0; c < listed; c++) {
+                    if (c > 0) classes.append(';');
+                    classes.append(String.format("CL%04d", 1 + random.nextInt(classCount)));
+                }
+                String name = i % 97 == 0 ? "\"Tan, Wei\"" : "Student " + i % 5000;
+                writer.printf("PAY%07d,RCP%03d,STU%05d,%s,%s,%d.%02d,2025-07-24 09:26:14,Cash,PAID%s",
+                              i, 1 + i % 10, 1 + i % 50_000, name, classes,
+                              50 + random.nextInt(300), random.nextInt(100), i % 13 == 0 ? "\r\n" : "\n");
+                if (i % 1000 == 0) writer.print("\n");                 // blank line
+                if (i % 5003 == 0) writer.print("PAYX,short,line\n"); // skipped by the loaders
+            }
+        }
+    }
+}
\ No newline at end of file
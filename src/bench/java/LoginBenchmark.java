@@ -0,0 +1,184 @@
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Measures UserHandler.authenticate as the role files grow. For each size it
+ * writes students.txt with that many students (plus 1% legacy IDs without a
+ * known prefix) and the staff files with 1% as many users each, then times
+ * successful logins on every path:
+ *
+ *   AD / RC / TC / STU  prefix routed to one role
+ *   fallback            no known prefix, any role file may match
+ *
+ * Every path runs twice: with the DEBUG lines written to a log file (as they
+ * are to the console in the app) and with System.out discarded.
+ *
+ * All rows share one verifier at the configured atc.password.iterations, so
+ * after the first login the verification cache answers and the numbers show
+ * the lookup itself; PasswordHashBenchmark covers the KDF cost. User picks use
+ * a fixed seed so runs are repeatable. Runs in a scratch directory so the real
+ * data files are never touched.
+ *
+ * Usage: java LoginBenchmark [--logins N] [--out results.csv] [sizes...]
+ */
+public class LoginBenchmark {
+    private static final String PASSWORD = "Bench-Password-1";
+    private static final String[] PATHS = { "AD", "RC", "TC", "STU", "fallback" };
+
+    public static void main(String[] args) throws IOException {
+        int logins = 20_000;
+        File out = null;
+        int[] sizes = { 1_000, 10_000, 100_000, 1_000_000 };
+        int sizeCount = 0;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--logins")) {
+                logins = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--out")) {
+                out = new File(args[++i]);
+            } else {
+                if (sizeCount == 0) sizes = new int[args.length];
+                sizes[sizeCount++] = Integer.parseInt(args[i]);
+            }
+        }
+        if (sizeCount > 0) sizes = Arrays.copyOf(sizes, sizeCount);
+
+        PrintStream console = System.out;
+        PrintStream quiet = new PrintStream(OutputStream.nullOutputStream());
+        String verifier = PasswordHasher.hash(PASSWORD);
+
+        StringBuilder csv = new StringBuilder("users,path,debug,logins,p50_us,p99_us,logins_per_s\n");
+        console.println("Password cost: " + PasswordHasher.ITERATIONS + " iterations (cached after first login)");
+        console.println("     users  path      debug     p50 us     p99 us     logins/s");
+
+        for (int size : sizes) {
+            File dir = Files.createTempDirectory("atc-login-bench").toFile();
+            System.setProperty("user.dir", dir.getAbsolutePath());
+            String[][] ids = writeRoleFiles(dir, size, verifier);
+
+            // First lookup builds the credential index
+            long start = System.nanoTime();
+            CredentialIndex.getInstance().lookup("AD001");
+            console.printf("%,10d  index build %,d ms%n", size, (System.nanoTime() - start) / 1_000_000);
+
+            File debugLog = new File(dir, "debug.log");
+            try (PrintStream debug = new PrintStream(new FileOutputStream(debugLog), true)) {
+                for (int p = 0; p < PATHS.length; p++) {
+                    for (boolean withDebug : new boolean[] { true, false }) {
+                        System.setOut(withDebug ? debug : quiet);
+                        long[] nanos = run(ids[p], logins, size * 31L + p);
+                        System.setOut(console);
+
+                        long total = 0;
+                        for (long n : nanos) total += n;
+                        Arrays.sort(nanos);
+                        double p50 = nanos[nanos.length / 2] / 1e3;
+                        double p99 = nanos[(int) Math.min(nanos.length - 1, nanos.length * 0.99)] / 1e3;
+                        double perSecond = nanos.length / (total / 1e9);
+                        console.printf("%,10d  %-8s  %-5s  %9.2f  %9.2f  %,11.0f%n",
+                                       size, PATHS[p], withDebug ? "on" : "off", p50, p99, perSecond);
+                        csv.append(size).append(',').append(PATHS[p]).append(',').append(withDebug ? "on" : "off")
+                           .append(',').append(nanos.length).append(',').append(String.format("%.2f", p50))
+                           .append(',').append(String.format("%.2f", p99))
+                           .append(',').append(String.format("%.0f", perSecond)).append('\n');
+                    }
+                }
+            }
+
+            CredentialIndex.getInstance().invalidate(); // let the old index be collected before the next size
+            for (File file : dir.listFiles()) file.delete();
+            dir.delete();
+        }
+
+        if (out != null) {
+            File parent = out.getAbsoluteFile().getParentFile();
+            if (parent != null) parent.mkdirs();
+            Files.writeString(out.toPath(), csv);
+            console.println("Results written to " + out.getPath());
+        }
+    }
+
+    // Times successful logins for random users of one path, after a short warm-up
+    private static long[] run(String[] ids, int logins, long seed) {
+        UserHandler handler = new UserHandler();
+        Random random = new Random(seed);
+        for (int i = 0; i < Math.min(logins, 2_000); i++) {
+            login(handler, ids[random.nextInt(ids.length)]);
+        }
+
+        long[] nanos = new long[logins];
+        for (int i = 0; i < logins; i++) {
+            String id = ids[random.nextInt(ids.length)];
+            long start = System.nanoTime();
+            login(handler, id);
+            nanos[i] = System.nanoTime() - start;
+        }
+        return nanos;
+    }
+
+    private static void login(UserHandler handler, String id) {
+        if (!handler.authenticate(id, PASSWORD).isSuccess()) {
+            throw new IllegalStateException("Login failed for " + id);
+        }
+    }
+
+    /**
+     * @return user IDs per entry of PATHS
+     */
+    private static String[][] writeRoleFiles(File dir, int students, String verifier) throws FileNotFoundException {
+        int staff = Math.max(10, students / 100);
+        String[][] ids = new String[PATHS.length][];
+
+        ids[0] = new String[staff];
+        try (PrintWriter writer = new PrintWriter(new File(dir, "admin.txt"))) {
+            for (int i = 0; i < staff; i++) {
+                ids[0][i] = String.format("AD%03d", i + 1);
+                writer.printf("%s,admin%d,%s,Admin %d,admin%d@atc.edu.my,01234%05d%n",
+                              ids[0][i], i, verifier, i, i, i);
+            }
+        }
+
+        ids[1] = new String[staff];
+        try (PrintWriter writer = new PrintWriter(new File(dir, "receptionist.txt"))) {
+            for (int i = 0; i < staff; i++) {
+                ids[1][i] = String.format("RC%03d", i + 1);
+                writer.printf("%s,recept%d,%s,Receptionist %d,recept%d@atc.edu.my,01234%05d%n",
+                              ids[1][i], i, verifier, i, i, i);
+            }
+        }
+
+        ids[2] = new String[staff];
+        try (PrintWriter writer = new PrintWriter(new File(dir, "tutor.txt"))) {
+            for (int i = 0; i < staff; i++) {
+                ids[2][i] = String.format("TC%03d", i + 1);
+                writer.printf("%s,Tutor%d,%s,tutor%d@gmail.com,01-01-1990,01160%05d%n",
+                              ids[2][i], i, verifier, i, i);
+            }
+        }
+
+        int legacy = Math.max(10, students / 100);
+        ids[3] = new String[students];
+        ids[4] = new String[legacy];
+        try (PrintWriter writer = new PrintWriter(new File(dir, "students.txt"))) {
+            for (int i = 0; i < students + legacy; i++) {
+                String id;
+                if (i < students) {
+                    id = ids[3][i] = String.format("STU%03d", i + 1);
+                } else {
+                    id = ids[4][i - students] = String.format("L%06d", i - students + 1);
+                }
+                writer.printf("%s,05382919%02d,%s,Student %d,student%d@gmail.com,019-222-%03d,"
+                              + "Kuala Lumpur,Form %d,January,CL%03d;CL008%n",
+                              id, i % 100, verifier, i, i, i % 1000, 1 + i % 5, 1 + i % 30);
+            }
+        }
+        return ids;
+    }
+}
\ No newline at end of file
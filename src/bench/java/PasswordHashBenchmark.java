@@ -0,0 +1,59 @@
+/**
+ * Measures password verifications per second at several PBKDF2 cost settings,
+ * plus the cached re-authentication path, to help choose atc.password.iterations.
+ *
+ * Usage: java PasswordHashBenchmark [seconds per setting] [iterations...]
+ */
+public class PasswordHashBenchmark {
+
+    public static void main(String[] args) {
+        double seconds = args.length > 0 ? Double.parseDouble(args[0]) : 2.0;
+        int[] costs = { 10_000, 50_000, 100_000, 210_000, 310_000, 600_000 };
+        if (args.length > 1) {
+            costs = new int[args.length - 1];
+            for (int i = 1; i < args.length; i++) {
+                costs[i - 1] = Integer.parseInt(args[i]);
+            }
+        }
+
+        String password = "Front-desk-2025";
+        System.out.println("Configured cost : " + PasswordHasher.ITERATIONS + " iterations");
+        System.out.println("  iterations    logins/s    ms/login");
+
+        // Warm up the JIT so the first setting is not penalised
+        String warm = PasswordHasher.hash(password, 10_000);
+        long warmUntil = System.nanoTime() + 2_000_000_000L;
+        while (System.nanoTime() < warmUntil) {
+            PasswordHasher.verifyWithoutCache(password, warm);
+        }
+
+        for (int cost : costs) {
+            String stored = PasswordHasher.hash(password, cost);
+
+            long deadline = System.nanoTime() + (long) (seconds * 1e9);
+            long start = System.nanoTime();
+            int logins = 0;
+            while (System.nanoTime() < deadline) {
+                if (!PasswordHasher.verifyWithoutCache(password, stored)) {
+                    throw new IllegalStateException("Verification failed at cost " + cost);
+                }
+                logins++;
+            }
+            double elapsed = (System.nanoTime() - start) / 1e9;
+            System.out.printf("  %,10d  %10.1f  %10.1f%n", cost, logins / elapsed, 1000 * elapsed / logins);
+        }
+
+        // Re-authentication within the cache window never reaches the KDF
+        String stored = PasswordHasher.hash(password);
+        PasswordHasher.matches(password, stored);
+        int rounds = 200_000;
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            if (!PasswordHasher.matches(password, stored)) {
+                throw new IllegalStateException("Cached verification failed");
+            }
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Cached re-auth  : %,.0f logins/s (%.2f us/login)%n", rounds / elapsed, 1e6 * elapsed / rounds);
+    }
+}
\ No newline at end of file
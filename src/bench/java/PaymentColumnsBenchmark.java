@@ -0,0 +1,104 @@
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Times admin-report queries over PaymentColumns against the same filters
+ * over a List<Payment>, and reports rows scanned per second:
+ *
+ *   month      payments in one month, summed
+ *   month+cash one month, one payment method
+ *   class      payments listing one class, counted
+ *   by-month   every payment summed per month
+ *
+ * Rows are generated in memory from a fixed seed (three years of dates in
+ * ledger order, 1-3 classes each), so no files are written.
+ *
+ * Usage: java PaymentColumnsBenchmark [rows...]
+ */
+public class PaymentColumnsBenchmark {
+    private static final String[] METHODS = { "Cash", "Online Banking", "Card" };
+
+    public static void main(String[] args) {
+        int[] sizes = { 1_000_000, 5_000_000 };
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) sizes[i] = Integer.parseInt(args[i]);
+        }
+
+        System.out.println("      rows  query       columns ms  Mrows/s   objects ms  Mrows/s");
+        for (int size : sizes) {
+            PaymentColumns columns = new PaymentColumns();
+            DataRepository.RowIndex<Payment> index = columns.index();
+            List<Payment> objects = new ArrayList<>(size);
+            Random random = new Random(7);
+            LocalDate first = LocalDate.of(2023, 1, 1);
+            for (int i = 0; i < size; i++) {
+                String[] classes = new String[1 + random.nextInt(3)];
+                for (int c = 0; c < classes.length; c++) classes[c] = String.format("CL%03d", 1 + random.nextInt(300));
+                String date = first.plusDays((long) i * 1095 / size) + " 09:26:14";
+                Payment payment = new Payment(String.format("PAY%08d", i), String.format("RCP%08d", i),
+                                              String.format("STU%05d", random.nextInt(20_000)), "Student",
+                                              classes, 50 + random.nextInt(300), date,
+                                              METHODS[random.nextInt(METHODS.length)]);
+                index.add(payment.getPaymentId(), payment);
+                objects.add(payment);
+            }
+
+            YearMonth month = YearMonth.of(2024, 6);
+            String monthPrefix = month.toString();
+            run(size, "month", () -> columns.aggregate(PaymentColumns.query().in(month)).getTotal(), () -> {
+                double total = 0;
+                for (Payment p : objects) if (p.getPaymentDate().startsWith(monthPrefix)) total += p.getAmount();
+                return total;
+            });
+            run(size, "month+cash", () -> columns.aggregate(PaymentColumns.query().in(month).method("Cash")).getTotal(), () -> {
+                double total = 0;
+                for (Payment p : objects) {
+                    if (p.getPaymentDate().startsWith(monthPrefix) && p.getPaymentMethod().equals("Cash")) total += p.getAmount();
+                }
+                return total;
+            });
+            run(size, "class", () -> columns.aggregate(PaymentColumns.query().forClass("CL042")).getCount(), () -> {
+                int count = 0;
+                for (Payment p : objects) {
+                    for (String classId : p.getClassIds()) {
+                        if (classId.equals("CL042")) {
+                            count++;
+                            break;
+                        }
+                    }
+                }
+                return count;
+            });
+            run(size, "by-month", () -> columns.totalsByMonth(PaymentColumns.query()).size(), () -> {
+                java.util.Map<String, Double> totals = new java.util.TreeMap<>();
+                for (Payment p : objects) totals.merge(p.getPaymentDate().substring(0, 7), p.getAmount(), Double::sum);
+                return totals.size();
+            });
+        }
+    }
+
+    private static void run(int rows, String name, java.util.function.DoubleSupplier columns,
+                            java.util.function.DoubleSupplier objects) {
+        double a = 0;
+        double b = 0;
+        long bestColumns = Long.MAX_VALUE;
+        long bestObjects = Long.MAX_VALUE;
+        for (int i = 0; i < 7; i++) {
+            long start = System.nanoTime();
+            a = columns.getAsDouble();
+            bestColumns = Math.min(bestColumns, System.nanoTime() - start);
+            start = System.nanoTime();
+            b = objects.getAsDouble();
+            bestObjects = Math.min(bestObjects, System.nanoTime() - start);
+        }
+        if (Math.abs(a - b) > 0.005) {
+            throw new IllegalStateException(name + ": columns gave " + a + ", objects gave " + b);
+        }
+        System.out.printf("%,10d  %-10s  %10.2f  %7.1f   %10.2f  %7.1f%n", rows, name,
+                          bestColumns / 1e6, rows / (bestColumns / 1e3), bestObjects / 1e6, rows / (bestObjects / 1e3));
+    }
+}
\ No newline at end of file
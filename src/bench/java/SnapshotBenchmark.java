@@ -0,0 +1,73 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * Times a cold load of students.txt from text against the binary snapshot.
+ * Runs in a scratch directory so the real data files are never touched.
+ *
+ * Usage: java SnapshotBenchmark [students]
+ */
+public class SnapshotBenchmark {
+
+    public static void main(String[] args) throws IOException {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+
+        File dir = Files.createTempDirectory("atc-snapshot-bench").toFile();
+        System.setProperty("user.dir", dir.getAbsolutePath());
+        System.setProperty("atc.snapshot", "true");
+
+        File students = new File(dir, "students.txt");
+        try (PrintWriter writer = new PrintWriter(students)) {
+            for (int i = 1; i <= rows; i++) {
+                writer.printf("STU%03d,05382919%02d,password123,Student %d,student%d@gmail.com,019-222-%03d,"
+                              + "Kuala Lumpur,Form %d,January,CL%03d;CL008;CL015%n",
+                              i, i % 100, i, i, i % 1000, 1 + i % 5, 1 + i % 30);
+            }
+        }
+
+        FileHandler fileHandler = new FileHandler();
+        PrintStream console = System.out;
+        PrintStream quiet = new PrintStream(OutputStream.nullOutputStream());
+
+        // Text parse (also writes students.txt.snap)
+        System.setOut(quiet);
+        long start = System.nanoTime();
+        List<Student> fromText = fileHandler.loadStudentsFromDisk();
+        long textNanos = System.nanoTime() - start;
+        System.setOut(console);
+
+        File snap = BinarySnapshot.snapshotFile(students);
+        console.printf("Text parse     : %,d students in %,d ms%n", fromText.size(), textNanos / 1_000_000);
+        console.printf("Snapshot size  : %,d bytes (text %,d bytes)%n", snap.length(), students.length());
+
+        for (int round = 1; round <= 3; round++) {
+            start = System.nanoTime();
+            List<Student> fromSnapshot = fileHandler.loadStudentsFromDisk();
+            long snapNanos = System.nanoTime() - start;
+            console.printf("Snapshot load %d: %,d students in %,d ms%n",
+                           round, fromSnapshot.size(), snapNanos / 1_000_000);
+            if (round == 1) verify(fromText, fromSnapshot);
+        }
+
+        snap.delete();
+        students.delete();
+        dir.delete();
+    }
+
+    private static void verify(List<Student> expected, List<Student> actual) {
+        if (expected.size() != actual.size()) {
+            throw new IllegalStateException("Row count differs: " + expected.size() + " vs " + actual.size());
+        }
+        for (int i = 0; i < expected.size(); i++) {
+            if (!expected.get(i).toFileString().equals(actual.get(i).toFileString())) {
+                throw new IllegalStateException("Row " + i + " differs: " + actual.get(i).toFileString());
+            }
+        }
+        System.out.println("Snapshot rows match the text parse");
+    }
+}
\ No newline at end of file
@@ -1,6 +1,5 @@
 // Enhanced AddClassDialog.java with improved schedule input
 import java.awt.*;
-import java.io.*;
 import java.time.LocalDate;
 import java.time.YearMonth;
 import java.time.format.TextStyle;
@@ -659,13 +658,11 @@ class AddClassDialog extends JDialog {
             return;
         }
         
-        String newRecord = classId + "," + tutorId + "," + courseName + "," +
-                          description + "," + schedule + "," + chargePerClass;
+        ClassInfo newClass = new ClassInfo(classId, tutorId, courseName,
+                          description, schedule, chargePerClass);
         
-        // Save to file
-        try (FileWriter writer = new FileWriter("class.txt", true)) {
-            writer.write(newRecord + "\n");
-            
+        // Save to file (also updates the repository's tutor index)
+        if (DataRepository.getInstance().addClass(newClass)) {
             JOptionPane.showMessageDialog(this, 
                 "✅ Class added successfully!\n\n" +
                 "Class ID: " + classId + "\n" +
@@ -676,26 +673,14 @@ class AddClassDialog extends JDialog {
             
             parentFrame.refreshData();
             dispose();
-        } catch (IOException ex) {
-            JOptionPane.showMessageDialog(this, "Failed to save class: " + ex.getMessage(), 
+        } else {
+            JOptionPane.showMessageDialog(this, "Failed to save class. The class ID may already be in use.", 
                 "Error", JOptionPane.ERROR_MESSAGE);
         }
     }
     
     private String generateNextClassId() {
-        int maxId = 0;
-        try (BufferedReader reader = new BufferedReader(new FileReader("class.txt"))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.startsWith("CL")) {
-                    try {
-                        int id = Integer.parseInt(line.substring(2, 5));
-                        if (id > maxId) maxId = id;
-                    } catch (NumberFormatException | StringIndexOutOfBoundsException ignored) {}
-                }
-            }
-        } catch (IOException ignored) {}
-        return String.format("CL%03d", maxId + 1);
+        return IdSequence.getInstance().next("CL");
     }
     
     private void setupWindow() {
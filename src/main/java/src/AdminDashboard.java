@@ -10,7 +10,11 @@ import javax.swing.border.EmptyBorder;
  * Fixed quick actions navigation and added comprehensive user management
  */
 public class AdminDashboard extends JFrame {
+    // Income report texts by parameters, shared by every admin window
+    private static final ReportCache<String> INCOME_REPORTS = new ReportCache<>("Income reports");
+    
     private User currentAdmin;
+    private final UserSession session;
     private DataManager dataManager;
     private JTabbedPane tabbedPane;
     
@@ -25,6 +29,7 @@ public class AdminDashboard extends JFrame {
     
     public AdminDashboard(User admin) {
         this.currentAdmin = admin;
+        this.session = UserSession.of(admin, "ADMIN");
         this.dataManager = new DataManager();
         
         initializeComponents();
@@ -129,30 +134,32 @@ public class AdminDashboard extends JFrame {
         activityArea.setBackground(SECONDARY_COLOR);
         activityArea.setBorder(new EmptyBorder(10, 10, 10, 10));
         
-        // Load recent activity
+        // Load recent activity off the EDT; the login log is read from disk
+        activityArea.setText("Recent System Activity:\n\nLoading" + BackgroundLoader.PLACEHOLDER + "\n");
+        BackgroundLoader.load(activityArea, this::loadRecentActivity, activityArea::setText);
+        
+        JScrollPane activityScroll = new JScrollPane(activityArea);
+        activityScroll.setBorder(null);
+        activityScroll.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
+        activityScroll.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
+        
+        panel.add(activityScroll, BorderLayout.CENTER);
+        
+        return panel;
+    }
+    
+    // Runs on a worker thread: reads only, no Swing
+    private String loadRecentActivity() {
         StringBuilder activity = new StringBuilder();
         activity.append("Recent System Activity:\n\n");
         
         try {
-            // Get recent logins
-            java.io.File loginFile = new java.io.File("login_history.txt");
-            if (loginFile.exists()) {
-                java.util.List<String> lines = new java.util.ArrayList<>();
-                try (java.io.BufferedReader reader = new java.io.BufferedReader(new java.io.FileReader(loginFile))) {
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        lines.add(line);
-                    }
-                }
-                
-                // Show last 5 logins
-                int start = Math.max(0, lines.size() - 5);
-                for (int i = start; i < lines.size(); i++) {
-                    String[] parts = lines.get(i).split(",");
-                    if (parts.length >= 3) {
-                        activity.append("• ").append(parts[0]).append(" (").append(parts[1]).append(")\n");
-                        activity.append("  ").append(parts[2]).append("\n\n");
-                    }
+            // Get recent logins (read backwards from the end of the log)
+            java.util.List<String[]> recent = LoginHistory.getInstance().tail(5);
+            if (!recent.isEmpty()) {
+                for (String[] parts : recent) {
+                    activity.append("• ").append(parts[0]).append(" (").append(parts[1]).append(")\n");
+                    activity.append("  ").append(parts[2]).append("\n\n");
                 }
             } else {
                 activity.append("No recent activity logged.\n");
@@ -168,16 +175,7 @@ public class AdminDashboard extends JFrame {
             activity.append("Error loading activity data.\n");
         }
         
-        activityArea.setText(activity.toString());
-        
-        JScrollPane activityScroll = new JScrollPane(activityArea);
-        activityScroll.setBorder(null);
-        activityScroll.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_AS_NEEDED);
-        activityScroll.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
-        
-        panel.add(activityScroll, BorderLayout.CENTER);
-        
-        return panel;
+        return activity.toString();
     }
     
     // NEW: Register Users Panel
@@ -523,97 +521,50 @@ public class AdminDashboard extends JFrame {
     // Income report generation method
     private void generateIncomeReport(String year, String month, String level, String subject, JTextArea resultsArea) {
         try {
-            String monthNum = String.format("%02d", java.util.Arrays.asList(
-                "January", "February", "March", "April", "May", "June",
-                "July", "August", "September", "October", "November", "December"
-            ).indexOf(month) + 1);
-            
-            Set<String> matchingClassIDs = new HashSet<>();
-            
-            // Find matching classes
-            try (BufferedReader reader = new BufferedReader(new FileReader("class.txt"))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    String[] elements = line.split(",");
-                    if (elements.length >= 6) {
-                        String classID = elements[0].trim();
-                        String className = elements[2].trim();
-                        String dates = elements[4].trim();
-                        
-                        if (className.contains(subject) && className.contains(level)) {
-                            String[] classDates = dates.split(";");
-                            for (String dateStr : classDates) {
-                                dateStr = dateStr.trim();
-                                if (dateStr.startsWith(year + "-" + monthNum)) {
-                                    matchingClassIDs.add(classID);
-                                    break;
-                                }
-                            }
-                        }
-                    }
-                }
-            }
-            
-            double totalIncome = 0.0;
-            int paymentCount = 0;
-            
-            // Calculate income from payments
-            try (BufferedReader reader = new BufferedReader(new FileReader("payments.txt"))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    String[] elements = line.split(",");
-                    if (elements.length >= 6) {
-                        String classList = elements[4].trim();
-                        String amountStr = elements[5].trim();
-                        try {
-                            double totalPayment = Double.parseDouble(amountStr);
-                            String[] paidClasses = classList.split(";");
-                            int totalClasses = paidClasses.length;
-                            
-                            int matched = 0;
-                            for (String classID : paidClasses) {
-                                if (matchingClassIDs.contains(classID.trim())) {
-                                    matched++;
-                                }
-                            }
-                            
-                            if (matched > 0) {
-                                double valuePerClass = totalPayment / totalClasses;
-                                totalIncome += valuePerClass * matched;
-                                paymentCount++;
-                            }
-                        } catch (NumberFormatException ignored) {}
-                    }
-                }
-            }
-            
-            // Format results
-            StringBuilder report = new StringBuilder();
-            report.append("=== MONTHLY INCOME REPORT ===\n\n");
-            report.append("Report Parameters:\n");
-            report.append("Year: ").append(year).append("\n");
-            report.append("Month: ").append(month).append("\n");
-            report.append("Level: ").append(level).append("\n");
-            report.append("Subject: ").append(subject).append("\n\n");
-            
-            report.append("Results:\n");
-            report.append("Matching Classes: ").append(matchingClassIDs.size()).append("\n");
-            report.append("Payment Records: ").append(paymentCount).append("\n");
-            report.append("Total Income: RM").append(String.format("%.2f", totalIncome)).append("\n\n");
-            
-            if (totalIncome > 0) {
-                report.append("✅ Income data found for selected parameters");
-            } else {
-                report.append("❌ No income recorded for this selection");
-            }
-            
-            resultsArea.setText(report.toString());
+            // Same parameters and unchanged payments.txt / class.txt: the earlier text is reused
+            resultsArea.setText(INCOME_REPORTS.get(() -> buildIncomeReport(year, month, level, subject),
+                                                   year, month, level, subject));
             
-        } catch (IOException e) {
-            resultsArea.setText("Error generating report: " + e.getMessage());
+        } catch (NumberFormatException e) {
+            resultsArea.setText("Error generating report: invalid year " + year);
         }
     }
     
+    private String buildIncomeReport(String year, String month, String level, String subject) {
+        int monthNum = java.util.Arrays.asList(
+            "January", "February", "March", "April", "May", "June",
+            "July", "August", "September", "October", "November", "December"
+        ).indexOf(month) + 1;
+        
+        // Rolled up as payments are recorded; no ledger scan per report
+        IncomeRollups.Totals totals = DataRepository.getInstance()
+            .getIncome(Integer.parseInt(year.trim()), monthNum, level, subject);
+        double totalIncome = totals.getIncome();
+        int paymentCount = totals.getPayments();
+        
+        // Format results
+        StringBuilder report = new StringBuilder();
+        report.append("=== MONTHLY INCOME REPORT ===\n\n");
+        report.append("Report Parameters:\n");
+        report.append("Year: ").append(year).append("\n");
+        report.append("Month: ").append(month).append("\n");
+        report.append("Level: ").append(level).append("\n");
+        report.append("Subject: ").append(subject).append("\n\n");
+        
+        report.append("Results:\n");
+        report.append("Matching Classes: ").append(totals.getClasses()).append("\n");
+        report.append("Payment Records: ").append(paymentCount).append("\n");
+        report.append("Total Income: RM").append(String.format("%.2f", totalIncome)).append("\n\n");
+        
+        if (totalIncome > 0) {
+            report.append("✅ Income data found for selected parameters");
+        } else {
+            report.append("❌ No income recorded for this selection");
+        }
+        
+        return report.toString();
+    }
+    
     private JPanel createQuickActionsPanel() {
         JPanel panel = new JPanel(new FlowLayout(FlowLayout.CENTER, 15, 0));
         panel.setBackground(BACKGROUND_COLOR);
@@ -681,19 +632,26 @@ public class AdminDashboard extends JFrame {
         panel.setBackground(BACKGROUND_COLOR);
         panel.setBorder(new EmptyBorder(30, 0, 30, 0));
         
-        SystemStats stats = getSystemStats();
+        // Cards show placeholders until the statistics are read off the EDT
+        addStatCards(panel, null);
+        BackgroundLoader.fill(panel, this::getSystemStats, stats -> addStatCards(panel, stats));
+        
+        return panel;
+    }
+    
+    // stats is null while it is still loading
+    private void addStatCards(JPanel panel, SystemStats stats) {
+        String loading = BackgroundLoader.PLACEHOLDER;
         
         // Create enhanced stat cards
-        JPanel studentsCard = createStatCard("👥", "Total Students", String.valueOf(stats.getTotalStudents()));
-        JPanel tutorsCard = createStatCard("👩‍🏫", "Total Tutors", String.valueOf(stats.getTotalTutors()));
+        JPanel studentsCard = createStatCard("👥", "Total Students", stats != null ? String.valueOf(stats.getTotalStudents()) : loading);
+        JPanel tutorsCard = createStatCard("👩‍🏫", "Total Tutors", stats != null ? String.valueOf(stats.getTotalTutors()) : loading);
         JPanel receptionistsCard = createStatCard("📋", "Receptionists", "3"); // From original system
         JPanel adminsCard = createStatCard("🔧", "Administrators", "2"); // From original system
-        JPanel classesCard = createStatCard("📚", "Total Classes", String.valueOf(stats.getTotalClasses()));
-        JPanel paymentsCard = createStatCard("💳", "Total Payments", String.valueOf(stats.getTotalPayments()));
-        JPanel revenueCard = createStatCard("💰", "Total Revenue", "RM" + String.format("%.2f", stats.getTotalRevenue()));
+        JPanel classesCard = createStatCard("📚", "Total Classes", stats != null ? String.valueOf(stats.getTotalClasses()) : loading);
+        JPanel paymentsCard = createStatCard("💳", "Total Payments", stats != null ? String.valueOf(stats.getTotalPayments()) : loading);
+        JPanel revenueCard = createStatCard("💰", "Total Revenue", stats != null ? "RM" + String.format("%.2f", stats.getTotalRevenue()) : loading);
         
-
-
         panel.add(studentsCard);
         panel.add(tutorsCard);
         panel.add(receptionistsCard);
@@ -701,8 +659,6 @@ public class AdminDashboard extends JFrame {
         panel.add(classesCard);
         panel.add(paymentsCard);
         panel.add(revenueCard);
-        
-        return panel;
     }
     
     // Keep existing profile methods from original AdminDashboard
@@ -1147,16 +1103,16 @@ public class AdminDashboard extends JFrame {
         createdDateField.setEditable(false);
         createdDateField.setBackground(SECONDARY_COLOR);
         
-        // System statistics
-        SystemStats stats = getSystemStats();
+        // System statistics, filled in once read off the EDT
         JTextArea systemOverviewArea = createStyledTextArea(6, 25);
-        systemOverviewArea.setText(
+        systemOverviewArea.setText("System Overview:\n" + BackgroundLoader.PLACEHOLDER + "\n");
+        BackgroundLoader.load(systemOverviewArea, this::getSystemStats, stats -> systemOverviewArea.setText(
             "System Overview:\n" +
             "• Total Students: " + stats.getTotalStudents() + "\n" +
             "• Total Tutors: " + stats.getTotalTutors() + "\n" +
             "• Total Classes: " + stats.getTotalClasses() + "\n" +
             "• Total Revenue: RM" + String.format("%.2f", stats.getTotalRevenue()) + "\n"
-        );
+        ));
         systemOverviewArea.setEditable(false);
         systemOverviewArea.setBackground(SECONDARY_COLOR);
         
@@ -1337,7 +1293,7 @@ public class AdminDashboard extends JFrame {
             return;
         }
         
-        if (!currentPassword.equals(currentAdmin.getPassword())) {
+        if (!PasswordHasher.matches(currentPassword, currentAdmin.getPassword())) {
             JOptionPane.showMessageDialog(this, 
                 "Current password is incorrect!", 
                 "Authentication Error", JOptionPane.ERROR_MESSAGE);
@@ -1383,8 +1339,8 @@ public class AdminDashboard extends JFrame {
                                                            currentPassword, newPassword);
             
             if (success) {
-                // Update current admin object
-                currentAdmin.setPassword(newPassword);
+                // Update current admin object with the stored verifier
+                currentAdmin.setPassword(session.getUser().getPassword());
                 
                 // Clear fields
                 currentField.setText("");
@@ -1409,62 +1365,26 @@ public class AdminDashboard extends JFrame {
     }
     
     private boolean updateAdminInFile(String adminId, String name, String email, String phone, String address) {
-        try {
-            File file = new File("admin.txt");
-            List<String> lines = new ArrayList<>();
-            boolean found = false;
-            
-            // Read all lines
-            if (file.exists()) {
-                try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        lines.add(line);
-                    }
-                }
-            }
-            
-            // Update the admin's line
-            for (int i = 0; i < lines.size(); i++) {
-                String[] parts = lines.get(i).split(",");
-                if (parts.length >= 1 && parts[0].equals(adminId)) {
-                    // Reconstruct the line with updated information
-                    // Format: adminId,username,password,name,email,phone
-                    String updatedLine = adminId + "," + 
-                                       (parts.length >= 2 ? parts[1] : "admin") + "," + 
-                                       (parts.length >= 3 ? parts[2] : "admin123") + "," + 
-                                       name + "," + email + "," + phone;
-                    lines.set(i, updatedLine);
-                    found = true;
-                    break;
-                }
-            }
-            
-            // If admin not found, add new line
-            if (!found) {
-                String newLine = adminId + ",admin," + currentAdmin.getPassword() + "," + 
-                               name + "," + email + "," + phone;
-                lines.add(newLine);
-            }
-            
-            // Write back to file
-            try (PrintWriter writer = new PrintWriter(new FileWriter(file))) {
-                for (String line : lines) {
-                    writer.println(line);
-                }
-            }
-            
-            return true;
-            
-        } catch (IOException e) {
-            e.printStackTrace();
-            return false;
-        }
+        DataRepository repository = DataRepository.getInstance();
+        
+        // Update the admin's line (single-record write, so journal mode sees it)
+        boolean found = repository.editRecord("admin.txt", adminId, parts ->
+            // Reconstruct the line with updated information
+            // Format: adminId,username,password,name,email,phone
+            new String[] { adminId,
+                           parts.length >= 2 ? parts[1] : "admin",
+                           parts.length >= 3 ? parts[2] : "admin123",
+                           name, email, phone });
+        if (found) return true;
+        
+        // If admin not found, add new line
+        return repository.insertRecord("admin.txt", adminId,
+                                       CsvTokenizer.join(adminId, "admin", currentAdmin.getPassword(),
+                                                         name, email, phone));
     }
     
     private String getAdminAddress(String adminId) {
-        // Since admin.txt doesn't store address, return a default
-        return "ATC Tuition Centre Administrative Office";
+        return session.getAddress();
     }
     
     private String getCurrentLoginTime() {
@@ -1512,38 +1432,14 @@ public class AdminDashboard extends JFrame {
         SystemStats stats = new SystemStats();
         
         try {
-            // Get students count
-            List<Student> students = dataManager.getAllStudents();
-            stats.setTotalStudents(students != null ? students.size() : 0);
-            
-            // Get tutors count
-            List<Tutor> tutors = dataManager.getAllTutors();
-            stats.setTotalTutors(tutors != null ? tutors.size() : 0);
-            
-            // Get classes count
-            List<ClassInfo> classes = dataManager.getAllClasses();
-            stats.setTotalClasses(classes != null ? classes.size() : 0);
-            
-            // Calculate total revenue and payments count
-            double totalRevenue = 0.0;
-            int totalPayments = 0;
-            
-            if (students != null) {
-                for (Student student : students) {
-                    List<String> studentSubjects = student.getSubjects();
-                    if (studentSubjects != null && !studentSubjects.isEmpty()) {
-                        totalRevenue += dataManager.calculateTotalFee(studentSubjects);
-                    }
-                }
-            }
-            
-            // Count payments from payment history file
-            totalPayments = countPaymentsFromFile();
-            
-            stats.setTotalRevenue(totalRevenue);
-            stats.setTotalPayments(totalPayments);
-            
-
+            // Running totals kept up to date by every mutation; nothing is rescanned here
+            SystemStatistics.Snapshot totals = DataRepository.getInstance().getStatistics();
+            stats.setTotalStudents(totals.getTotalStudents());
+            stats.setTotalTutors(totals.getTotalTutors());
+            stats.setTotalClasses(totals.getTotalClasses());
+            stats.setTotalRevenue(totals.getTotalRevenue());
+            stats.setTotalPayments(totals.getTotalPayments());
+            stats.setPendingRequests(totals.getPendingRequests());
             
         } catch (Exception e) {
             System.err.println("Error getting system stats: " + e.getMessage());
@@ -1554,47 +1450,6 @@ public class AdminDashboard extends JFrame {
         return stats;
     }
     
-    private int countPaymentsFromFile() {
-        int count = 0;
-        try {
-            java.io.File file = new java.io.File("payment_history.txt");
-            if (file.exists()) {
-                try (java.io.BufferedReader reader = new java.io.BufferedReader(new java.io.FileReader(file))) {
-                    while (reader.readLine() != null) {
-                        count++;
-                    }
-                }
-            }
-        } catch (java.io.IOException e) {
-            System.err.println("Error reading payment history file: " + e.getMessage());
-            // File doesn't exist or can't be read, return 0
-        }
-        return count;
-    }
-    
-    private int countPendingRequests() {
-        int count = 0;
-        try {
-            java.io.File file = new java.io.File("Subject_Change_Requests.txt");
-            if (file.exists()) {
-                try (java.io.BufferedReader reader = new java.io.BufferedReader(new java.io.FileReader(file))) {
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        if (line.trim().isEmpty()) continue;
-                        String[] parts = line.split(",");
-                        if (parts.length >= 5 && "Pending".equalsIgnoreCase(parts[4].trim())) {
-                            count++;
-                        }
-                    }
-                }
-            }
-        } catch (java.io.IOException e) {
-            System.err.println("Error reading subject change requests file: " + e.getMessage());
-            // File doesn't exist or can't be read, return 0
-        }
-        return count;
-    }
-    
     // Keep existing methods for other management panels (simplified versions)
     private JPanel createSystemStatsPanel() {
         JPanel panel = new JPanel(new BorderLayout());
@@ -1634,6 +1489,13 @@ public class AdminDashboard extends JFrame {
     }
     
     private void updateSystemStats(JTextArea statsArea) {
+        // Built off the EDT; a refresh while one is running replaces it
+        if (statsArea.getText().isEmpty()) statsArea.setText("Loading statistics" + BackgroundLoader.PLACEHOLDER);
+        BackgroundLoader.load(statsArea, this::buildSystemStatsText, statsArea::setText);
+    }
+    
+    // Runs on a worker thread: reads only, no Swing
+    private String buildSystemStatsText() {
         SystemStats stats = getSystemStats();
         
         StringBuilder sb = new StringBuilder();
@@ -1653,8 +1515,28 @@ public class AdminDashboard extends JFrame {
         sb.append("Total Payments: ").append(stats.getTotalPayments()).append("\n");
         sb.append("Total Revenue: RM").append(String.format("%.2f", stats.getTotalRevenue())).append("\n");
         
+        // Filter-and-sum over the payment columns, not the Payment objects
+        PaymentColumns payments = DataRepository.getInstance().getPaymentColumns();
+        java.time.YearMonth thisMonth = java.time.YearMonth.now();
+        PaymentColumns.Aggregate collected = payments.aggregate(PaymentColumns.query().in(thisMonth));
+        sb.append("Collected This Month: RM").append(String.format("%.2f", collected.getTotal()))
+          .append(" (").append(collected.getCount()).append(" payments)\n");
+        for (Map.Entry<String, Double> method : payments.totalsByMethod(PaymentColumns.query()).entrySet()) {
+            sb.append("  ").append(method.getKey()).append(": RM")
+              .append(String.format("%.2f", method.getValue())).append("\n");
+        }
+        
+        sb.append("\nTUTOR WORKLOAD:\n");
+        sb.append(String.format("%-8s %7s %7s %8s %8s %12s%n", "Tutor", "Classes", "Active", "Students", "Sessions", "Fees (RM)"));
+        for (TutorWorkload.Summary tutor : DataRepository.getInstance().getTutorWorkloads()) {
+            sb.append(String.format("%-8s %7d %7d %8d %8d %12.2f%n", tutor.getTutorId(), tutor.getClasses(),
+                                    tutor.getActiveClasses(), tutor.getStudents(), tutor.getSessions(), tutor.getRevenue()));
+        }
+        
+        sb.append("\nREPORT CACHE:\n");
+        sb.append(INCOME_REPORTS).append("\n");
         
-        statsArea.setText(sb.toString());
+        return sb.toString();
     }
     
     // Helper methods for UI components
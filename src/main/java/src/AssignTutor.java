@@ -1,5 +1,4 @@
 import java.awt.*;
-import java.io.*;
 import java.util.*;
 import java.util.List;
 import javax.swing.*;
@@ -581,13 +580,8 @@ public class AssignTutor extends JDialog {
         ClassItem selectedClass = (ClassItem) existingClassCombo.getSelectedItem();
         String classId = selectedClass.getClassId();
         
-        try {
-            // Update the class file with new tutor assignment
-            return updateClassTutorInFile(classId, tutorId);
-        } catch (IOException e) {
-            e.printStackTrace();
-            return false;
-        }
+        // Update the class file with new tutor assignment
+        return updateClassTutorInFile(classId, tutorId);
     }
     
     private boolean createNewClassWithTutor(String tutorId) {
@@ -607,60 +601,24 @@ public class AssignTutor extends JDialog {
         } catch (NumberFormatException e) {
             showValidationError("Please enter a valid fee amount!");
             return false;
-        } catch (IOException e) {
-            e.printStackTrace();
-            return false;
         }
     }
     
-    private boolean updateClassTutorInFile(String classId, String newTutorId) throws IOException {
-        File file = new File("class.txt");
-        List<String> lines = new ArrayList<>();
-        boolean found = false;
-        
-        // Read all lines
-        if (file.exists()) {
-            try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    lines.add(line);
-                }
-            }
-        }
-        
-        // Update the specific class line
-        for (int i = 0; i < lines.size(); i++) {
-            String[] parts = lines.get(i).split(",");
-            if (parts.length >= 6 && parts[0].trim().equals(classId)) {
-                // Update tutor ID (second column)
-                parts[1] = newTutorId;
-                lines.set(i, String.join(",", parts));
-                found = true;
-                break;
-            }
-        }
-        
-        if (found) {
-            // Write back to file
-            try (PrintWriter writer = new PrintWriter(new FileWriter(file))) {
-                for (String line : lines) {
-                    writer.println(line);
-                }
-            }
+    private boolean updateClassTutorInFile(String classId, String newTutorId) {
+        DataRepository repository = DataRepository.getInstance();
+        ClassInfo classInfo = repository.findClass(classId);
+        if (classInfo == null) {
+            return false;
         }
         
-        return found;
+        // Update tutor ID (second column); moves the class in the tutor index
+        classInfo.setTutorId(newTutorId);
+        return repository.updateClass(classInfo);
     }
     
-    private boolean addClassToFile(String classId, String tutorId, String className, String description, String schedule, double fee) throws IOException {
-        String newLine = String.format("%s,%s,%s,%s,%s,%.1f",
-            classId, tutorId, className, description, schedule, fee);
-        
-        // Append to class.txt
-        try (FileWriter fw = new FileWriter("class.txt", true)) {
-            fw.write(newLine + "\n");
-            return true;
-        }
+    private boolean addClassToFile(String classId, String tutorId, String className, String description, String schedule, double fee) {
+        return DataRepository.getInstance().addClass(
+            new ClassInfo(classId, tutorId, className, description, schedule, fee));
     }
     
     private boolean validateAssignment() {
@@ -735,16 +693,7 @@ public class AssignTutor extends JDialog {
     }
     
     private String generateNextClassId() {
-        int maxId = 0;
-        for (String classId : classMap.keySet()) {
-            if (classId.startsWith("CL")) {
-                try {
-                    int num = Integer.parseInt(classId.substring(2));
-                    maxId = Math.max(maxId, num);
-                } catch (NumberFormatException ignored) {}
-            }
-        }
-        return String.format("CL%03d", maxId + 1);
+        return IdSequence.getInstance().next("CL");
     }
     
     private String generateDescription(String subject, String level) {
@@ -0,0 +1,109 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.HierarchyEvent;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * BackgroundLoader moves the data reads behind a dashboard panel off the event
+ * dispatch thread. The panel is built straight away with placeholder values
+ * (PLACEHOLDER in a stat card), the read runs on a SwingWorker thread, and the
+ * result is handed back on the EDT to fill the panel in.
+ *
+ * One load runs per component: starting a new one (a refresh) cancels the one
+ * before it, and a load still running when its component leaves the screen
+ * (tab replaced, window closed) is cancelled and its result dropped. The load
+ * itself must not touch Swing; the consumer runs on the EDT and may.
+ */
+final class BackgroundLoader {
+    static final String PLACEHOLDER = "…";
+
+    private static final String WORKER = "BackgroundLoader.worker";
+    private static final String WATCHED = "BackgroundLoader.watched";
+
+    private BackgroundLoader() {
+    }
+
+    /**
+     * Runs load off the EDT and passes its result to show on the EDT, unless the
+     * load was cancelled or superseded in the meantime. A failed load is logged.
+     */
+    static <T> SwingWorker<T, Void> load(JComponent owner, Supplier<T> load, Consumer<T> show) {
+        return load(owner, load, show, error -> { });
+    }
+
+    /**
+     * Fills a panel that currently shows placeholders: once the load is done the
+     * panel is emptied and fill adds the real content. A failed load leaves a
+     * short message in the panel instead.
+     */
+    static <T> SwingWorker<T, Void> fill(JPanel panel, Supplier<T> load, Consumer<T> fill) {
+        return load(panel, load, result -> {
+            panel.removeAll();
+            fill.accept(result);
+            panel.revalidate();
+            panel.repaint();
+        }, error -> {
+            panel.removeAll();
+            JLabel message = new JLabel("Could not load data: " + error.getMessage(), SwingConstants.CENTER);
+            message.setForeground(new Color(239, 68, 68));
+            panel.add(message);
+            panel.revalidate();
+            panel.repaint();
+        });
+    }
+
+    /**
+     * Cancels the load running for this component, if any
+     */
+    static void cancel(JComponent owner) {
+        Object worker = owner.getClientProperty(WORKER);
+        owner.putClientProperty(WORKER, null);
+        if (worker instanceof SwingWorker) {
+            ((SwingWorker<?, ?>) worker).cancel(true);
+        }
+    }
+
+    private static <T> SwingWorker<T, Void> load(JComponent owner, Supplier<T> load, Consumer<T> show,
+                                                 Consumer<Throwable> failed) {
+        cancel(owner);
+        SwingWorker<T, Void> worker = new SwingWorker<T, Void>() {
+            @Override
+            protected T doInBackground() {
+                return load.get();
+            }
+
+            @Override
+            protected void done() {
+                if (owner.getClientProperty(WORKER) != this) return; // cancelled or superseded
+                owner.putClientProperty(WORKER, null);
+                try {
+                    show.accept(get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    System.err.println("Error loading dashboard data: " + cause.getMessage());
+                    cause.printStackTrace();
+                    failed.accept(cause);
+                }
+            }
+        };
+        owner.putClientProperty(WORKER, worker);
+        watch(owner);
+        worker.execute();
+        return worker;
+    }
+
+    // Cancels the component's load when it stops being displayable; added once per component
+    private static void watch(JComponent owner) {
+        if (owner.getClientProperty(WATCHED) != null) return;
+        owner.putClientProperty(WATCHED, Boolean.TRUE);
+        owner.addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & HierarchyEvent.DISPLAYABILITY_CHANGED) != 0 && !owner.isDisplayable()) {
+                cancel(owner);
+            }
+        });
+    }
+}
\ No newline at end of file
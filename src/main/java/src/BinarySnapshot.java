@@ -0,0 +1,261 @@
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * BinarySnapshot stores an already parsed data file as "<file>.snap" so a cold
+ * start can skip text parsing entirely.
+ *
+ * Layout (big-endian):
+ *   header  magic "ATCS", version, source size, source mtime (ns),
+ *           string count, record count, body length, CRC32 of the body
+ *   body    string table: every distinct string once, as [int length][UTF-8 bytes]
+ *           records: [int length][fields], string fields as table indexes,
+ *           string lists as [int count][indexes], numbers as raw doubles
+ *
+ * A snapshot is only used while the text file still has the size and mtime
+ * recorded in its header; any other change to the text file (an append, a manual
+ * edit) makes FileHandler fall back to parsing text and write a fresh snapshot.
+ *
+ * Snapshots are opt-in (-Datc.snapshot=true).
+ */
+final class BinarySnapshot {
+    private static final int MAGIC = 0x41544353; // "ATCS"
+    private static final short VERSION = 1;
+    private static final int HEADER_BYTES = 4 + 2 + 8 + 8 + 4 + 4 + 4 + 8;
+
+    private BinarySnapshot() {
+    }
+
+    /**
+     * Converts one entity type to and from snapshot fields
+     */
+    interface Codec<T> {
+        void write(T row, RecordWriter out);
+        T read(RecordReader in);
+    }
+
+    static boolean isEnabled() {
+        return Boolean.getBoolean("atc.snapshot");
+    }
+
+    static File snapshotFile(File source) {
+        return new File(source.getPath() + ".snap");
+    }
+
+    /**
+     * {size, mtime} of the text file, or null if it does not exist
+     */
+    static long[] stat(File source) {
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(source.toPath(), BasicFileAttributes.class);
+            return new long[] { attrs.size(), attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS) };
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Loads the snapshot for a text file
+     * @return the records, or null if there is no usable snapshot
+     */
+    static <T> List<T> load(File source, Codec<T> codec) {
+        File snap = snapshotFile(source);
+        long[] current = stat(source);
+        if (current == null || !snap.exists()) return null;
+
+        try {
+            ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(snap.toPath()));
+            if (buf.remaining() < HEADER_BYTES || buf.getInt() != MAGIC || buf.getShort() != VERSION) {
+                return null;
+            }
+            long sourceSize = buf.getLong();
+            long sourceMtime = buf.getLong();
+            if (sourceSize != current[0] || sourceMtime != current[1]) {
+                return null; // Text file changed since the snapshot was taken
+            }
+
+            int stringCount = buf.getInt();
+            int recordCount = buf.getInt();
+            int bodyLength = buf.getInt();
+            long checksum = buf.getLong();
+            if (bodyLength != buf.remaining()) return null;
+
+            CRC32 crc = new CRC32();
+            crc.update(buf.array(), buf.position(), bodyLength);
+            if (crc.getValue() != checksum) {
+                System.err.println("Ignoring corrupt snapshot " + snap.getName());
+                return null;
+            }
+
+            String[] strings = new String[stringCount];
+            byte[] bytes = buf.array();
+            for (int i = 0; i < stringCount; i++) {
+                int length = buf.getInt();
+                strings[i] = new String(bytes, buf.position(), length, StandardCharsets.UTF_8);
+                buf.position(buf.position() + length);
+            }
+
+            List<T> rows = new ArrayList<>(recordCount);
+            RecordReader reader = new RecordReader(buf, strings);
+            for (int i = 0; i < recordCount; i++) {
+                int length = buf.getInt();
+                int next = buf.position() + length;
+                rows.add(codec.read(reader));
+                buf.position(next);
+            }
+            return rows;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error reading snapshot " + snap.getName() + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes a snapshot of rows, stamped with the text file's {size, mtime} at the
+     * time the rows were read or written
+     */
+    static <T> boolean save(File source, long[] sourceStat, List<T> rows, Codec<T> codec) {
+        if (sourceStat == null) return false;
+
+        RecordWriter writer = new RecordWriter();
+        ByteBuffer records = ByteBuffer.allocate(1024);
+        for (T row : rows) {
+            writer.reset();
+            codec.write(row, writer);
+            records = ensure(records, 4 + writer.size());
+            records.putInt(writer.size());
+            records.put(writer.data.array(), 0, writer.size());
+        }
+
+        ByteBuffer table = ByteBuffer.allocate(1024);
+        for (String s : writer.strings.keySet()) {
+            byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+            table = ensure(table, 4 + utf8.length);
+            table.putInt(utf8.length);
+            table.put(utf8);
+        }
+
+        int bodyLength = table.position() + records.position();
+        CRC32 crc = new CRC32();
+        crc.update(table.array(), 0, table.position());
+        crc.update(records.array(), 0, records.position());
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putShort(VERSION)
+              .putLong(sourceStat[0]).putLong(sourceStat[1])
+              .putInt(writer.strings.size()).putInt(rows.size())
+              .putInt(bodyLength).putLong(crc.getValue());
+
+        File snap = snapshotFile(source);
+        File temp = new File(snap.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(temp)) {
+            out.write(header.array());
+            out.write(table.array(), 0, table.position());
+            out.write(records.array(), 0, records.position());
+        } catch (IOException e) {
+            System.err.println("Error writing snapshot " + snap.getName() + ": " + e.getMessage());
+            return false;
+        }
+
+        try {
+            try {
+                Files.move(temp.toPath(), snap.toPath(),
+                           StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException atomicNotSupported) {
+                Files.move(temp.toPath(), snap.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error replacing snapshot " + snap.getName() + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static ByteBuffer ensure(ByteBuffer buf, int extra) {
+        if (buf.remaining() >= extra) return buf;
+        ByteBuffer bigger = ByteBuffer.allocate(Math.max(buf.capacity() * 2, buf.position() + extra));
+        bigger.put(buf.array(), 0, buf.position());
+        return bigger;
+    }
+
+    /**
+     * Encodes the fields of one record; strings are interned into the shared table
+     */
+    static final class RecordWriter {
+        private final Map<String, Integer> strings = new LinkedHashMap<>();
+        private ByteBuffer data = ByteBuffer.allocate(256);
+
+        void string(String value) {
+            Integer index = strings.get(value == null ? "" : value);
+            if (index == null) {
+                index = strings.size();
+                strings.put(value == null ? "" : value, index);
+            }
+            data = ensure(data, 4);
+            data.putInt(index);
+        }
+
+        /**
+         * A list of strings, written as a count followed by table indexes
+         */
+        void strings(Collection<String> values) {
+            data = ensure(data, 4);
+            data.putInt(values.size());
+            for (String value : values) {
+                string(value);
+            }
+        }
+
+        void number(double value) {
+            data = ensure(data, 8);
+            data.putDouble(value);
+        }
+
+        private void reset() {
+            data.clear();
+        }
+
+        private int size() {
+            return data.position();
+        }
+    }
+
+    /**
+     * Decodes the fields of one record in the order they were written
+     */
+    static final class RecordReader {
+        private final ByteBuffer buf;
+        private final String[] strings;
+
+        private RecordReader(ByteBuffer buf, String[] strings) {
+            this.buf = buf;
+            this.strings = strings;
+        }
+
+        String string() {
+            return strings[buf.getInt()];
+        }
+
+        List<String> strings() {
+            int count = buf.getInt();
+            String[] values = new String[count];
+            for (int i = 0; i < count; i++) {
+                values[i] = string();
+            }
+            return Arrays.asList(values);
+        }
+
+        double number() {
+            return buf.getDouble();
+        }
+    }
+}
\ No newline at end of file
@@ -1,7 +1,4 @@
 import java.awt.*;
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.io.IOException;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 
@@ -29,7 +26,7 @@ class ClassDetailsDialog extends JDialog {
         setLayout(new BorderLayout());
         getContentPane().setBackground(BACKGROUND_COLOR);
         
-        String[] classData = loadClassData();
+        ClassInfo classData = DataRepository.getInstance().findClass(classId);
         if (classData == null) {
             JOptionPane.showMessageDialog(this, "Class not found!", "Error", JOptionPane.ERROR_MESSAGE);
             dispose();
@@ -74,7 +71,7 @@ class ClassDetailsDialog extends JDialog {
         add(scrollPane, BorderLayout.CENTER);
     }
     
-    private JPanel createClassInfoPanel(String[] classData) {
+    private JPanel createClassInfoPanel(ClassInfo classData) {
         JPanel panel = new JPanel();
         panel.setLayout(new BoxLayout(panel, BoxLayout.Y_AXIS));
         panel.setBackground(Color.WHITE);
@@ -86,12 +83,12 @@ class ClassDetailsDialog extends JDialog {
             new EmptyBorder(20, 20, 20, 20)
         ));
         
-        addDetailRow(panel, "Class ID:", classData[0]);
-        addDetailRow(panel, "Course Name:", classData[2]);
-        addDetailRow(panel, "Description:", classData[3]);
-        addDetailRow(panel, "Schedule:", formatSchedule(classData[4]));
-        addDetailRow(panel, "Fee per Class:", "RM " + classData[5]);
-        addDetailRow(panel, "Tutor ID:", classData[1]);
+        addDetailRow(panel, "Class ID:", classData.getClassId());
+        addDetailRow(panel, "Course Name:", classData.getSubject());
+        addDetailRow(panel, "Description:", classData.getDescription());
+        addDetailRow(panel, "Schedule:", formatSchedule(classData.getSchedule()));
+        addDetailRow(panel, "Fee per Class:", "RM " + classData.getFee());
+        addDetailRow(panel, "Tutor ID:", classData.getTutorId());
         
         return panel;
     }
@@ -160,75 +157,24 @@ class ClassDetailsDialog extends JDialog {
         parent.add(row);
     }
     
-    private String[] loadClassData() {
-        try (BufferedReader reader = new BufferedReader(new FileReader("class.txt"))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",", 6);
-                if (parts.length == 6 && parts[0].equals(classId)) {
-                    return parts;
-                }
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        return null;
-    }
-    
     private String formatSchedule(String schedule) {
         return schedule.replace("; ", "\n");
     }
     
     private int getStudentCount() {
-        int count = 0;
-        try (BufferedReader reader = new BufferedReader(new FileReader("students.txt"))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length >= 10) {
-                    String[] studentClasses = parts[9].split(";");
-                    for (String studentClass : studentClasses) {
-                        if (studentClass.trim().equals(classId)) {
-                            count++;
-                            break;
-                        }
-                    }
-                }
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        return count;
+        return DataRepository.getInstance().countStudentsInClass(classId);
     }
     
     private String getStudentList() {
         StringBuilder studentList = new StringBuilder();
         int count = 1;
         
-        try (BufferedReader reader = new BufferedReader(new FileReader("students.txt"))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length >= 10) {
-                    String studentId = parts[0];
-                    String studentName = parts[3];
-                    String email = parts[4];
-                    String[] studentClasses = parts[9].split(";");
-                    
-                    for (String studentClass : studentClasses) {
-                        if (studentClass.trim().equals(classId)) {
-                            studentList.append(count).append(". ")
-                                     .append(studentName).append(" (").append(studentId).append(")")
-                                     .append("\n   Email: ").append(email)
-                                     .append("\n\n");
-                            count++;
-                            break;
-                        }
-                    }
-                }
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
+        for (Student student : DataRepository.getInstance().getStudentsInClass(classId)) {
+            studentList.append(count).append(". ")
+                     .append(student.getName()).append(" (").append(student.getUserId()).append(")")
+                     .append("\n   Email: ").append(student.getEmail())
+                     .append("\n\n");
+            count++;
         }
         
         return studentList.toString();
@@ -432,22 +378,17 @@ class EditClassDialog extends JDialog {
     }
     
     private void loadClassData() {
-        try (BufferedReader reader = new BufferedReader(new FileReader("class.txt"))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",", 6);
-                if (parts.length == 6 && parts[0].equals(classId)) {
-                    classIdField.setText(parts[0]);
-                    courseNameField.setText(parts[2]);
-                    descriptionArea.setText(parts[3]);
-                    scheduleArea.setText(parts[4].replace("; ", "\n"));
-                    chargeField.setText(parts[5]);
-                    break;
-                }
-            }
-        } catch (IOException e) {
-            JOptionPane.showMessageDialog(this, "Error loading class data: " + e.getMessage());
+        // Parsed by the repository, so a quoted description with commas stays one field
+        ClassInfo classInfo = DataRepository.getInstance().findClass(classId);
+        if (classInfo == null) {
+            JOptionPane.showMessageDialog(this, "Error loading class data: class " + classId + " not found");
+            return;
         }
+        classIdField.setText(classInfo.getClassId());
+        courseNameField.setText(classInfo.getSubject());
+        descriptionArea.setText(classInfo.getDescription());
+        scheduleArea.setText(classInfo.getSchedule().replace("; ", "\n"));
+        chargeField.setText(String.valueOf(classInfo.getFee()));
     }
     
     private void updateClass() {
@@ -475,11 +416,10 @@ class EditClassDialog extends JDialog {
             return;
         }
         
-        String newRecord = classId + "," + tutorId + "," + courseName + "," + 
-                          description + "," + schedule + "," + charge;
+        ClassInfo updated = new ClassInfo(classId, tutorId, courseName, description, schedule, charge);
         
         // Update file
-        if (updateClassInFile(newRecord)) {
+        if (DataRepository.getInstance().updateClass(updated)) {
             JOptionPane.showMessageDialog(this, "✅ Class updated successfully!", 
                 "Success", JOptionPane.INFORMATION_MESSAGE);
             parentFrame.refreshData();
@@ -497,7 +437,7 @@ class EditClassDialog extends JDialog {
             "Confirm Delete", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
         
         if (confirm == JOptionPane.YES_OPTION) {
-            if (deleteClassFromFile()) {
+            if (DataRepository.getInstance().deleteClass(classId)) {
                 JOptionPane.showMessageDialog(this, "✅ Class deleted successfully.", 
                     "Success", JOptionPane.INFORMATION_MESSAGE);
                 parentFrame.refreshData();
@@ -509,57 +449,6 @@ class EditClassDialog extends JDialog {
         }
     }
     
-    private boolean updateClassInFile(String newRecord) {
-        java.io.File inputFile = new java.io.File("class.txt");
-        java.io.File tempFile = new java.io.File("class_temp.txt");
-        boolean updated = false;
-        
-        try (BufferedReader reader = new BufferedReader(new java.io.FileReader(inputFile));
-             java.io.PrintWriter writer = new java.io.PrintWriter(new java.io.FileWriter(tempFile))) {
-            
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.startsWith(classId + ",")) {
-                    writer.println(newRecord);
-                    updated = true;
-                } else {
-                    writer.println(line);
-                }
-            }
-            
-        } catch (IOException ex) {
-            ex.printStackTrace();
-            return false;
-        }
-        
-        return inputFile.delete() && tempFile.renameTo(inputFile) && updated;
-    }
-    
-    private boolean deleteClassFromFile() {
-        java.io.File originalFile = new java.io.File("class.txt");
-        java.io.File tempFile = new java.io.File("class_temp.txt");
-        boolean deleted = false;
-        
-        try (BufferedReader reader = new BufferedReader(new java.io.FileReader(originalFile));
-             java.io.PrintWriter writer = new java.io.PrintWriter(new java.io.FileWriter(tempFile))) {
-            
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (!line.startsWith(classId + ",")) {
-                    writer.println(line);
-                } else {
-                    deleted = true;
-                }
-            }
-            
-        } catch (IOException e) {
-            e.printStackTrace();
-            return false;
-        }
-        
-        return originalFile.delete() && tempFile.renameTo(originalFile) && deleted;
-    }
-    
     private JLabel createFieldLabel(String text) {
         JLabel label = new JLabel(text);
         label.setFont(new Font("Segoe UI", Font.BOLD, 14));
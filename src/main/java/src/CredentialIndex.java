@@ -0,0 +1,129 @@
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CredentialIndex answers login lookups from memory. The four role files are
+ * read once into a case-insensitive map of user ID -> role, file record and
+ * password verifier (see PasswordHasher). The map is rebuilt only when one of
+ * the files (or its journal) changes size or timestamp, so a login costs a few
+ * stat calls and a single hash probe however many students are enrolled.
+ */
+final class CredentialIndex {
+    // Searched in this order when a user ID appears in more than one file
+    private static final String[][] ROLE_FILES = {
+        { "admin.txt", "ADMIN" },
+        { "receptionist.txt", "RECEPTIONIST" },
+        { "tutor.txt", "TUTOR" },
+        { "students.txt", "STUDENT" }
+    };
+
+    private static final CredentialIndex INSTANCE = new CredentialIndex();
+
+    private Map<String, List<Entry>> entries;
+    private long[] stamp;
+
+    private CredentialIndex() {
+    }
+
+    static CredentialIndex getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * One login-capable record from a role file
+     */
+    static final class Entry {
+        final String file;
+        final String role;
+        final String[] record;
+        final String verifier;
+
+        private Entry(String file, String role, String[] record) {
+            this.file = file;
+            this.role = role;
+            this.record = record;
+            this.verifier = record[2]; // every role file keeps the password in the third column
+        }
+
+        /**
+         * Checks a password against the stored PBKDF2 verifier (or legacy plain text)
+         */
+        boolean verify(String password) {
+            return PasswordHasher.matches(password, verifier);
+        }
+    }
+
+    /**
+     * Records whose user ID matches (ignoring case), in role-file order
+     */
+    synchronized List<Entry> lookup(String userId) {
+        if (userId == null) return Collections.emptyList();
+        long[] current = stat();
+        if (entries == null || !Arrays.equals(current, stamp)) {
+            entries = load();
+            stamp = current;
+        }
+        List<Entry> found = entries.get(userId.trim().toUpperCase(Locale.ROOT));
+        return found != null ? found : Collections.emptyList();
+    }
+
+    /**
+     * Forces the next lookup to reread the role files
+     */
+    synchronized void invalidate() {
+        entries = null;
+        stamp = null;
+    }
+
+    private Map<String, List<Entry>> load() {
+        Map<String, List<Entry>> map = new HashMap<>();
+        for (String[] roleFile : ROLE_FILES) {
+            File file = new File(System.getProperty("user.dir"), roleFile[0]);
+            MutationJournal journal = MutationJournal.forFile(roleFile[0]);
+            if (!file.exists() && !journal.isActive()) {
+                System.err.println("File not found: " + file.getPath());
+                continue;
+            }
+
+            try (BufferedReader reader = journal.isActive()
+                     ? new BufferedReader(new StringReader(String.join("\n", journal.materialize())))
+                     : new BufferedReader(new FileReader(file))) {
+                CsvTokenizer csv = new CsvTokenizer(reader);
+                while (csv.next()) {
+                    if (csv.fieldCount() >= 3 && !csv.isEmpty(0)) {
+                        Entry entry = new Entry(roleFile[0], roleFile[1], csv.fields());
+                        map.computeIfAbsent(entry.record[0].toUpperCase(Locale.ROOT), k -> new ArrayList<>(1))
+                           .add(entry);
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("Error reading file: " + file.getPath() + " - " + e.getMessage());
+            }
+        }
+        return map;
+    }
+
+    // {size, mtime} of each role file and its journal; -1 when missing
+    private long[] stat() {
+        long[] result = new long[ROLE_FILES.length * 4];
+        for (int i = 0; i < ROLE_FILES.length; i++) {
+            statInto(new File(System.getProperty("user.dir"), ROLE_FILES[i][0]), result, i * 4);
+            statInto(MutationJournal.forFile(ROLE_FILES[i][0]).journalFile(), result, i * 4 + 2);
+        }
+        return result;
+    }
+
+    private static void statInto(File file, long[] result, int offset) {
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+            result[offset] = attrs.size();
+            result[offset + 1] = attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+        } catch (IOException e) {
+            result[offset] = -1;
+            result[offset + 1] = -1;
+        }
+    }
+}
\ No newline at end of file
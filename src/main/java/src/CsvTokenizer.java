@@ -0,0 +1,398 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * CsvTokenizer splits data-file records into fields without regexes or
+ * per-field copies. A record is loaded into a reusable char buffer and each
+ * field is reported as [start, end) offsets into it (already trimmed and
+ * unquoted), so callers only create a String for the fields they keep and
+ * can parse numbers straight from the chars.
+ *
+ * Fields may be wrapped in double quotes to contain commas, quotes ("") or line
+ * breaks; quote() and join() produce that form for writers. Unquoted records are read
+ * exactly as the old line.split(",") + trim() did.
+ *
+ * One instance is not thread-safe; create one per scan.
+ */
+final class CsvTokenizer {
+    private final Reader in;
+    private char[] buf = new char[256];
+    private int length;
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private int count;
+
+    // Read-ahead state when tokenizing from a Reader
+    private final char[] chunk;
+    private int chunkPos;
+    private int chunkLen;
+    private int pushedBack = -1;
+
+    /**
+     * Tokenizer for single lines passed to reset()
+     */
+    CsvTokenizer() {
+        this.in = null;
+        this.chunk = null;
+    }
+
+    /**
+     * Tokenizer that pulls records straight from a reader with next()
+     */
+    CsvTokenizer(Reader in) {
+        this.in = in;
+        this.chunk = new char[8192];
+    }
+
+    /**
+     * Tokenizes one line that has already been read
+     * @return number of fields
+     */
+    int reset(CharSequence line) {
+        length = 0;
+        ensureCapacity(line.length());
+        for (int i = 0; i < line.length(); i++) {
+            buf[length++] = line.charAt(i);
+        }
+        split();
+        return count;
+    }
+
+    /**
+     * Reads the next non-blank record from the reader. A quoted field may span lines.
+     * @return false at end of input
+     */
+    boolean next() throws IOException {
+        while (true) {
+            length = 0;
+            boolean inQuotes = false;
+            boolean fieldStart = true;   // only whitespace since the record start or the last comma
+            boolean closedQuote = false; // the previous char closed a quoted section
+            int c;
+            while ((c = read()) != -1) {
+                if (inQuotes) {
+                    if (c == '"') {
+                        inQuotes = false;
+                        closedQuote = true;
+                    }
+                } else if (c == '"') {
+                    // Same rule as split(): only a quote opening a field (or the second
+                    // half of "") quotes; a stray one in a legacy field is plain text
+                    inQuotes = fieldStart || closedQuote;
+                    fieldStart = false;
+                    closedQuote = false;
+                } else if (c == '\n' || c == '\r') {
+                    if (c == '\r') {
+                        int after = read();
+                        if (after != '\n' && after != -1) pushedBack = after;
+                    }
+                    break;
+                } else {
+                    if (c == ',') {
+                        fieldStart = true;
+                    } else if (c > ' ') {
+                        fieldStart = false;
+                    }
+                    closedQuote = false;
+                }
+                append((char) c);
+            }
+
+            if (c == -1 && length == 0) return false;
+            if (!isBlank()) {
+                split();
+                return true;
+            }
+            if (c == -1) return false;
+        }
+    }
+
+    int fieldCount() {
+        return count;
+    }
+
+    /**
+     * The raw record text (without the line break), e.g. for rewriting it unchanged
+     */
+    String line() {
+        return new String(buf, 0, length);
+    }
+
+    String field(int index) {
+        if (index >= count) return "";
+        return new String(buf, starts[index], ends[index] - starts[index]);
+    }
+
+    /**
+     * All fields as strings - for display code that needs every column anyway
+     */
+    String[] fields() {
+        String[] out = new String[count];
+        for (int i = 0; i < count; i++) {
+            out[i] = field(i);
+        }
+        return out;
+    }
+
+    boolean isEmpty(int index) {
+        return index >= count || starts[index] == ends[index];
+    }
+
+    boolean fieldEquals(int index, String value) {
+        if (index >= count || ends[index] - starts[index] != value.length()) return false;
+        for (int i = 0; i < value.length(); i++) {
+            if (buf[starts[index] + i] != value.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    boolean fieldEqualsIgnoreCase(int index, String value) {
+        if (index >= count || ends[index] - starts[index] != value.length()) return false;
+        return new String(buf, starts[index], value.length()).regionMatches(true, 0, value, 0, value.length());
+    }
+
+    boolean fieldStartsWith(int index, String prefix) {
+        if (index >= count || ends[index] - starts[index] < prefix.length()) return false;
+        for (int i = 0; i < prefix.length(); i++) {
+            if (buf[starts[index] + i] != prefix.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Text spanning fields from..to inclusive, separators included (legacy records
+     * whose free-text column contains unquoted commas)
+     */
+    String span(int from, int to) {
+        if (from > to || to >= count) return "";
+        return new String(buf, starts[from], ends[to] - starts[from]);
+    }
+
+    /**
+     * Parses a plain decimal (e.g. 180.00) straight from the buffer
+     */
+    double parseDouble(int index) {
+        if (index >= count) throw new NumberFormatException("missing field " + index);
+        int i = starts[index];
+        int end = ends[index];
+        if (i == end) throw new NumberFormatException("empty field " + index);
+
+        boolean negative = buf[i] == '-';
+        if (negative || buf[i] == '+') i++;
+
+        long digits = 0;
+        int scale = 0;
+        boolean seenDot = false;
+        boolean seenDigit = false;
+        for (; i < end; i++) {
+            char ch = buf[i];
+            if (ch >= '0' && ch <= '9' && digits < 100_000_000_000_000L) {
+                digits = digits * 10 + (ch - '0');
+                if (seenDot) scale++;
+                seenDigit = true;
+            } else if (ch == '.' && !seenDot) {
+                seenDot = true;
+            } else {
+                // Exponents, very long numbers etc. - fall back to the JDK parser
+                return Double.parseDouble(field(index));
+            }
+        }
+        if (!seenDigit) throw new NumberFormatException("not a number: " + field(index));
+
+        double value = digits / Math.pow(10, scale);
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses the digits after a fixed prefix, e.g. 12 from "STU012"; -1 if not numeric
+     */
+    int parseIdNumber(int index, String prefix) {
+        if (!fieldStartsWith(index, prefix)) return -1;
+        int value = 0;
+        int start = starts[index] + prefix.length();
+        if (start == ends[index]) return -1;
+        for (int i = start; i < ends[index]; i++) {
+            char ch = buf[i];
+            if (ch < '0' || ch > '9' || value > (Integer.MAX_VALUE - 9) / 10) return -1;
+            value = value * 10 + (ch - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Whether the sep-separated list in a field contains value (e.g. "CL007" in "CL007;CL008")
+     */
+    boolean listContains(int index, char sep, String value) {
+        if (index >= count) return false;
+        int start = starts[index];
+        int end = ends[index];
+        for (int i = start; i <= end; i++) {
+            if (i == end || buf[i] == sep) {
+                int s = start;
+                int e = i;
+                while (s < e && buf[s] <= ' ') s++;
+                while (e > s && buf[e - 1] <= ' ') e--;
+                if (e - s == value.length() && regionEquals(s, value)) return true;
+                start = i + 1;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Number of non-empty entries in a sep-separated list field
+     */
+    int listSize(int index, char sep) {
+        if (index >= count || starts[index] == ends[index]) return 0;
+        int size = 0;
+        int start = starts[index];
+        int end = ends[index];
+        for (int i = start; i <= end; i++) {
+            if (i == end || buf[i] == sep) {
+                for (int j = start; j < i; j++) {
+                    if (buf[j] > ' ') { size++; break; }
+                }
+                start = i + 1;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Quote-aware replacement for line.split(",") in code that edits or displays
+     * whole records; fields come back trimmed and unquoted
+     */
+    static String[] split(CharSequence line) {
+        CsvTokenizer csv = new CsvTokenizer();
+        csv.reset(line);
+        return csv.fields();
+    }
+
+    /**
+     * Quotes a field for writing if it contains a comma or quote. Line breaks are
+     * written as spaces so every record stays on one line for the journal and
+     * the mapped ledger scans.
+     */
+    static String quote(String field) {
+        if (field == null) return "";
+        boolean needsQuotes = false;
+        boolean hasLineBreak = false;
+        for (int i = 0; i < field.length(); i++) {
+            char ch = field.charAt(i);
+            needsQuotes |= ch == ',' || ch == '"';
+            hasLineBreak |= ch == '\n' || ch == '\r';
+        }
+        if (hasLineBreak) field = field.replace("\r\n", " ").replace('\n', ' ').replace('\r', ' ');
+        return needsQuotes ? "\"" + field.replace("\"", "\"\"") + "\"" : field;
+    }
+
+    /**
+     * Joins fields into one record, quoting only where needed
+     */
+    static String join(String... fields) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(quote(fields[i]));
+        }
+        return sb.toString();
+    }
+
+    // Splits buf[0, length) into fields, unquoting in place
+    private void split() {
+        count = 0;
+        int read = 0;
+        while (true) {
+            // Skip leading whitespace
+            while (read < length && buf[read] <= ' ' && buf[read] != ',') read++;
+
+            int start;
+            int end;
+            if (read < length && buf[read] == '"') {
+                // Quoted field: compact the unescaped content in place
+                read++;
+                start = read;
+                int write = read;
+                while (read < length) {
+                    char ch = buf[read];
+                    if (ch == '"') {
+                        if (read + 1 < length && buf[read + 1] == '"') {
+                            buf[write++] = '"';
+                            read += 2;
+                            continue;
+                        }
+                        read++;
+                        break;
+                    }
+                    buf[write++] = ch;
+                    read++;
+                }
+                end = write;
+                // Ignore anything between the closing quote and the next comma
+                while (read < length && buf[read] != ',') read++;
+            } else {
+                start = read;
+                while (read < length && buf[read] != ',') read++;
+                end = read;
+                while (end > start && buf[end - 1] <= ' ') end--;
+            }
+
+            addField(start, end);
+            if (read >= length) break;
+            read++; // skip comma
+        }
+    }
+
+    private void addField(int start, int end) {
+        if (count == starts.length) {
+            starts = Arrays.copyOf(starts, count * 2);
+            ends = Arrays.copyOf(ends, count * 2);
+        }
+        starts[count] = start;
+        ends[count] = end;
+        count++;
+    }
+
+    private boolean regionEquals(int start, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (buf[start + i] != value.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private boolean isBlank() {
+        for (int i = 0; i < length; i++) {
+            if (buf[i] > ' ') return false;
+        }
+        return true;
+    }
+
+    private void append(char ch) {
+        ensureCapacity(length + 1);
+        buf[length++] = ch;
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(needed, buf.length * 2));
+        }
+    }
+
+    private int read() throws IOException {
+        if (pushedBack != -1) {
+            int c = pushedBack;
+            pushedBack = -1;
+            return c;
+        }
+        if (chunkPos == chunkLen) {
+            chunkLen = in.read(chunk, 0, chunk.length);
+            chunkPos = 0;
+            if (chunkLen <= 0) {
+                chunkLen = 0;
+                return -1;
+            }
+        }
+        return chunk[chunkPos++];
+    }
+}
\ No newline at end of file
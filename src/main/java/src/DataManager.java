@@ -8,9 +8,11 @@ import java.util.*;
  */
 public class DataManager {
     private FileHandler fileHandler;
+    private final DataRepository repository;
     
     public DataManager() {
         this.fileHandler = new FileHandler();
+        this.repository = DataRepository.getInstance();
     }
     
     /**
@@ -33,7 +35,7 @@ public class DataManager {
                 studentId,
                 icPassport, // Use IC/Passport as IC field
                 studentId,  // Use studentId as username
-                "password123", // Default password
+                PasswordHasher.hash("password123"), // Default password
                 name,
                 email,
                 phone,
@@ -54,11 +56,8 @@ public class DataManager {
                 }
             }
             
-            // Add new student
-            students.add(student);
-            
-            // Write back to file
-            return fileHandler.writeStudents(students);
+            // Add new student (single-record write, appended in journal mode); fails on an ID collision
+            return repository.insertStudent(student);
             
         } catch (Exception e) {
             System.err.println("Error registering student: " + e.getMessage());
@@ -85,17 +84,9 @@ public class DataManager {
                 return false;
             }
             
-            List<Student> students = fileHandler.readStudents();
-            
-            for (Student s : students) {
-                if (s.getUserId().equals(studentId)) {
-                    // Update class IDs
-                    s.setClassIds(newClassIds.toArray(new String[0]));
-                    return fileHandler.writeStudents(students);
-                }
-            }
-            
-            return false; // Student not found
+            // Update class IDs
+            student.setClassIds(newClassIds.toArray(new String[0]));
+            return repository.upsertStudent(student);
         } catch (Exception e) {
             System.err.println("Error updating student subjects: " + e.getMessage());
             return false;
@@ -130,24 +121,18 @@ public class DataManager {
                 paymentMethod
             );
             
-            // Read existing payments
-            List<Payment> payments = fileHandler.readPayments();
-            payments.add(payment);
-            
-            // Write back to payments file
-            boolean paymentSaved = fileHandler.writePayments(payments);
+            // Append to payments file - constant cost regardless of ledger size
+            boolean paymentSaved = repository.appendPayment(payment);
             
             // Also write to payment_history.txt for student portal compatibility
-            try (java.io.FileWriter fw = new java.io.FileWriter("payment_history.txt", true)) {
-                String record = String.join(",",
-                    studentId,
-                    student.getName(),
-                    String.join(";", classIds),
-                    String.format("%.2f", amount),
-                    paymentMethod.toLowerCase().replace(" ", ""));
-                fw.write(record + "\n");
-            } catch (java.io.IOException e) {
-                System.err.println("Error writing to payment history: " + e.getMessage());
+            String record = CsvTokenizer.join(
+                studentId,
+                student.getName(),
+                String.join(";", classIds),
+                String.format("%.2f", amount),
+                paymentMethod.toLowerCase().replace(" ", ""));
+            if (!fileHandler.appendLine("payment_history.txt", record)) {
+                System.err.println("Error writing to payment history");
             }
             
             if (paymentSaved) {
@@ -241,9 +226,7 @@ public class DataManager {
      */
     public boolean deleteStudent(String studentId) {
         try {
-            List<Student> students = fileHandler.readStudents();
-            students.removeIf(student -> student.getUserId().equals(studentId));
-            return fileHandler.writeStudents(students);
+            return repository.deleteStudent(studentId);
         } catch (Exception e) {
             System.err.println("Error deleting student: " + e.getMessage());
             return false;
@@ -255,19 +238,15 @@ public class DataManager {
      */
     public boolean updateReceptionistProfile(String userId, String name, String email, String phone) {
         try {
-            List<Receptionist> receptionists = fileHandler.readReceptionists();
-            
-            for (Receptionist receptionist : receptionists) {
-                if (receptionist.getUserId().equals(userId)) {
-                    receptionist.setName(name);
-                    receptionist.setEmail(email);
-                    receptionist.setPhone(phone);
-                    
-                    return fileHandler.writeReceptionists(receptionists);
-                }
+            Receptionist receptionist = getReceptionistById(userId);
+            if (receptionist == null) {
+                return false; // Receptionist not found
             }
             
-            return false; // Receptionist not found
+            receptionist.setName(name);
+            receptionist.setEmail(email);
+            receptionist.setPhone(phone);
+            return repository.upsertReceptionist(receptionist);
         } catch (Exception e) {
             System.err.println("Error updating receptionist profile: " + e.getMessage());
             return false;
@@ -285,13 +264,28 @@ public class DataManager {
      * Gets student by ID
      */
     public Student getStudentById(String studentId) {
-        List<Student> students = fileHandler.readStudents();
-        for (Student student : students) {
-            if (student.getUserId().equals(studentId)) {
-                return student;
-            }
-        }
-        return null;
+        return repository.findStudent(studentId);
+    }
+    
+    /**
+     * Gets the students enrolled in a class
+     */
+    public List<Student> getStudentsInClass(String classId) {
+        return repository.getStudentsInClass(classId);
+    }
+    
+    /**
+     * Gets the number of students enrolled in a class
+     */
+    public int getStudentCountInClass(String classId) {
+        return repository.countStudentsInClass(classId);
+    }
+    
+    /**
+     * Gets class by ID
+     */
+    public ClassInfo getClassById(String classId) {
+        return repository.findClass(classId);
     }
     
     /**
@@ -332,25 +326,18 @@ public class DataManager {
      * Calculates total fee for selected class IDs
      */
     public double calculateTotalFee(List<String> classIds) {
-        List<ClassInfo> allClasses = fileHandler.readClasses();
         double totalFee = 0.0;
         
         System.out.println("DEBUG: Calculating fees for " + classIds.size() + " classes");
         
         for (String classId : classIds) {
             System.out.println("DEBUG: Looking for class ID: " + classId);
-            boolean found = false;
-            
-            for (ClassInfo classInfo : allClasses) {
-                if (classInfo.getClassId().equals(classId)) {
-                    totalFee += classInfo.getFee();
-                    System.out.println("DEBUG: Found " + classId + " - Fee: " + classInfo.getFee() + " - Running total: " + totalFee);
-                    found = true;
-                    break;
-                }
-            }
+            ClassInfo classInfo = repository.findClass(classId); // index probe, no copy of the whole table
             
-            if (!found) {
+            if (classInfo != null) {
+                totalFee += classInfo.getFee();
+                System.out.println("DEBUG: Found " + classId + " - Fee: " + classInfo.getFee() + " - Running total: " + totalFee);
+            } else {
                 System.out.println("DEBUG: Class ID " + classId + " not found in available classes!");
             }
         }
@@ -376,11 +363,13 @@ public class DataManager {
      * Gets all payments for a student
      */
     public List<Payment> getStudentPayments(String studentId) {
-        List<Payment> allPayments = fileHandler.readPayments();
         List<Payment> studentPayments = new ArrayList<>();
         
-        for (Payment payment : allPayments) {
-            if (payment.getStudentId().equals(studentId)) {
+        // Filtered on the student column; only the matching payments are copied out
+        PaymentColumns columns = repository.getPaymentColumns();
+        for (String paymentId : columns.paymentIds(PaymentColumns.query().student(studentId))) {
+            Payment payment = repository.findPayment(paymentId);
+            if (payment != null && payment.getStudentId().equals(studentId)) {
                 studentPayments.add(payment);
             }
         }
@@ -437,41 +426,24 @@ public List<Admin> searchAdmins(String searchTerm) {
 }
 
 public List<ClassInfo> getClassesByTutor(String tutorId) {
-    List<ClassInfo> allClasses = getAllClasses();
-    return allClasses.stream()
-        .filter(classInfo -> tutorId.equals(classInfo.getTutorId()))
-        .collect(java.util.stream.Collectors.toList());
+    return repository.getClassesByTutor(tutorId);
 }
 
 public Tutor getTutorById(String tutorId) {
-    List<Tutor> tutors = getAllTutors();
-    return tutors.stream()
-        .filter(tutor -> tutor.getUserId().equals(tutorId))
-        .findFirst()
-        .orElse(null);
+    return repository.findTutor(tutorId);
 }
 
 public Receptionist getReceptionistById(String receptionistId) {
-    List<Receptionist> receptionists = getAllReceptionists();
-    return receptionists.stream()
-        .filter(receptionist -> receptionist.getUserId().equals(receptionistId))
-        .findFirst()
-        .orElse(null);
+    return repository.findReceptionist(receptionistId);
 }
 
 public Admin getAdminById(String adminId) {
-    List<Admin> admins = getAllAdmins();
-    return admins.stream()
-        .filter(admin -> admin.getUserId().equals(adminId))
-        .findFirst()
-        .orElse(null);
+    return repository.findAdmin(adminId);
 }
 
 public boolean addStudent(Student student) {
     try {
-        List<Student> students = fileHandler.readStudents();
-        students.add(student);
-        return fileHandler.writeStudents(students);
+        return repository.insertStudent(student);
     } catch (Exception e) {
         System.err.println("Error adding student: " + e.getMessage());
         return false;
@@ -479,108 +451,18 @@ public boolean addStudent(Student student) {
 }
 
 public boolean deleteTutor(String tutorId) {
-    try {
-        java.io.File file = new java.io.File("tutor.txt");
-        java.util.List<String> lines = new java.util.ArrayList<>();
-        boolean found = false;
-        
-        if (file.exists()) {
-            try (java.io.BufferedReader reader = new java.io.BufferedReader(new java.io.FileReader(file))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    String[] parts = line.split(",");
-                    if (parts.length > 0 && !parts[0].equals(tutorId)) {
-                        lines.add(line);
-                    } else if (parts.length > 0 && parts[0].equals(tutorId)) {
-                        found = true;
-                    }
-                }
-            }
-        }
-        
-        if (found) {
-            try (java.io.PrintWriter writer = new java.io.PrintWriter(new java.io.FileWriter(file))) {
-                for (String line : lines) {
-                    writer.println(line);
-                }
-            }
-        }
-        
-        return found;
-    } catch (java.io.IOException e) {
-        e.printStackTrace();
-        return false;
-    }
+    // Single-record delete - a journal append when journal mode is on
+    return repository.deleteRecord("tutor.txt", tutorId);
 }
 
 public boolean deleteReceptionist(String receptionistId) {
-    try {
-        java.io.File file = new java.io.File("receptionist.txt");
-        java.util.List<String> lines = new java.util.ArrayList<>();
-        boolean found = false;
-        
-        if (file.exists()) {
-            try (java.io.BufferedReader reader = new java.io.BufferedReader(new java.io.FileReader(file))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    String[] parts = line.split(",");
-                    if (parts.length > 0 && !parts[0].equals(receptionistId)) {
-                        lines.add(line);
-                    } else if (parts.length > 0 && parts[0].equals(receptionistId)) {
-                        found = true;
-                    }
-                }
-            }
-        }
-        
-        if (found) {
-            try (java.io.PrintWriter writer = new java.io.PrintWriter(new java.io.FileWriter(file))) {
-                for (String line : lines) {
-                    writer.println(line);
-                }
-            }
-        }
-        
-        return found;
-    } catch (java.io.IOException e) {
-        e.printStackTrace();
-        return false;
-    }
+    // Single-record delete - a journal append when journal mode is on
+    return repository.deleteRecord("receptionist.txt", receptionistId);
 }
 
 public boolean deleteAdmin(String adminId) {
-    try {
-        java.io.File file = new java.io.File("admin.txt");
-        java.util.List<String> lines = new java.util.ArrayList<>();
-        boolean found = false;
-        
-        if (file.exists()) {
-            try (java.io.BufferedReader reader = new java.io.BufferedReader(new java.io.FileReader(file))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    String[] parts = line.split(",");
-                    if (parts.length > 0 && !parts[0].equals(adminId)) {
-                        lines.add(line);
-                    } else if (parts.length > 0 && parts[0].equals(adminId)) {
-                        found = true;
-                    }
-                }
-            }
-        }
-        
-        if (found) {
-            try (java.io.PrintWriter writer = new java.io.PrintWriter(new java.io.FileWriter(file))) {
-                for (String line : lines) {
-                    writer.println(line);
-                }
-            }
-        }
-        
-        return found;
-    } catch (java.io.IOException e) {
-        e.printStackTrace();
-        return false;
-    }
+    // Single-record delete - a journal append when journal mode is on
+    return repository.deleteRecord("admin.txt", adminId);
 }
 
 public boolean changeUserPassword(String userId, String userType, String currentPassword, String newPassword) {
@@ -603,42 +485,20 @@ public boolean changeUserPassword(String userId, String userType, String current
                 return false;
         }
         
-        java.io.File file = new java.io.File(filename);
-        java.util.List<String> lines = new java.util.ArrayList<>();
-        boolean found = false;
-        
-        if (file.exists()) {
-            try (java.io.BufferedReader reader = new java.io.BufferedReader(new java.io.FileReader(file))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    lines.add(line);
-                }
-            }
-        }
-        
-        for (int i = 0; i < lines.size(); i++) {
-            String[] parts = lines.get(i).split(",");
-            if (parts.length >= 3 && parts[0].equals(userId)) {
-                // Verify current password
-                if (parts[2].equals(currentPassword)) {
-                    parts[2] = newPassword;
-                    lines.set(i, String.join(",", parts));
-                    found = true;
-                }
-                break;
-            }
-        }
+        // Single-record edit through the repository, so journal mode sees it
+        boolean found = repository.editRecord(filename, userId, parts -> {
+            // Verify current password
+            if (parts.length < 3 || !PasswordHasher.matches(currentPassword, parts[2])) return null;
+            parts[2] = PasswordHasher.hash(newPassword);
+            return parts;
+        });
         
         if (found) {
-            try (java.io.PrintWriter writer = new java.io.PrintWriter(new java.io.FileWriter(file))) {
-                for (String line : lines) {
-                    writer.println(line);
-                }
-            }
+            CredentialIndex.getInstance().invalidate();
         }
         
         return found;
-    } catch (java.io.IOException e) {
+    } catch (Exception e) {
         e.printStackTrace();
         return false;
     }
@@ -670,20 +530,16 @@ public boolean changeUserPassword(String userId, String userType, String current
     public boolean updateStudentProfile(String studentId, String name, String email, 
                                        String phone, String address) {
         try {
-            List<Student> students = fileHandler.readStudents();
-            
-            for (Student student : students) {
-                if (student.getUserId().equals(studentId)) {
-                    student.setName(name);
-                    student.setEmail(email);
-                    student.setPhone(phone);
-                    student.setAddress(address);
-                    
-                    return fileHandler.writeStudents(students);
-                }
+            Student student = getStudentById(studentId);
+            if (student == null) {
+                return false; // Student not found
             }
             
-            return false; // Student not found
+            student.setName(name);
+            student.setEmail(email);
+            student.setPhone(phone);
+            student.setAddress(address);
+            return repository.upsertStudent(student);
         } catch (Exception e) {
             System.err.println("Error updating student profile: " + e.getMessage());
             return false;
@@ -708,19 +564,7 @@ public boolean changeUserPassword(String userId, String userType, String current
     }
     
     private String generateNextRequestId() {
-        int max = 0;
-        try (java.io.BufferedReader br = new java.io.BufferedReader(new java.io.FileReader("Subject_Change_Requests.txt"))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] p = line.split(",");
-                if (p.length > 0 && p[0].startsWith("REQ")) {
-                    try {
-                        max = Math.max(max, Integer.parseInt(p[0].substring(3)));
-                    } catch (NumberFormatException ignored) {}
-                }
-            }
-        } catch (java.io.IOException ignored) {}
-        return String.format("REQ%03d", max + 1);
+        return IdSequence.getInstance().next("REQ");
     }
     
     /**
@@ -731,17 +575,16 @@ public boolean changeUserPassword(String userId, String userType, String current
         
         boolean foundInFile = false;
         try (java.io.BufferedReader br = new java.io.BufferedReader(new java.io.FileReader("payment_history.txt"))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] p = line.split(",");
-                if (p.length >= 4 && p[0].trim().equals(studentId)) {
+            CsvTokenizer csv = new CsvTokenizer(br);
+            while (csv.next()) {
+                if (csv.fieldCount() >= 4 && csv.fieldEquals(0, studentId)) {
                     foundInFile = true;
                     sb.append("Recorded Payment\n")
-                            .append("Student ID : ").append(p[0]).append("\n")
-                            .append("Name       : ").append(p[1]).append("\n")
-                            .append("Classes    : ").append(p[2]).append("\n")
-                            .append("Amount     : RM").append(p[3]).append("\n")
-                            .append("Method     : ").append(p.length > 4 ? p[4] : "-").append("\n")
+                            .append("Student ID : ").append(csv.field(0)).append("\n")
+                            .append("Name       : ").append(csv.field(1)).append("\n")
+                            .append("Classes    : ").append(csv.field(2)).append("\n")
+                            .append("Amount     : RM").append(csv.field(3)).append("\n")
+                            .append("Method     : ").append(csv.fieldCount() > 4 ? csv.field(4) : "-").append("\n")
                             .append("----------------------------\n");
                 }
             }
@@ -864,23 +707,8 @@ public boolean changeUserPassword(String userId, String userType, String current
      * ENHANCED: Get enrollment statistics for analytics
      */
     public EnrollmentStatistics getEnrollmentStatistics() {
-        List<Student> students = getAllStudents();
-        int oneSubject = 0, twoSubjects = 0, threeSubjects = 0, noSubjects = 0;
-        double totalRevenue = 0.0;
-        
-        for (Student student : students) {
-            int subjectCount = student.getSubjects().size();
-            switch (subjectCount) {
-                case 0: noSubjects++; break;
-                case 1: oneSubject++; break;
-                case 2: twoSubjects++; break;
-                case 3: threeSubjects++; break;
-            }
-            totalRevenue += calculateTotalFee(student.getSubjects());
-        }
-        
-        return new EnrollmentStatistics(students.size(), oneSubject, twoSubjects, 
-                                       threeSubjects, noSubjects, totalRevenue);
+        // Cached in the repository until students.txt or class.txt changes
+        return repository.getEnrollmentStatistics();
     }
     
     /**
@@ -893,6 +721,8 @@ public boolean changeUserPassword(String userId, String userType, String current
         private final int threeSubjectStudents;
         private final int noSubjectStudents;
         private final double totalRevenue;
+        private final Map<Integer, Integer> studentsBySubjectCount;
+        private final Map<String, Map<String, Integer>> dimensions; // dimension name -> key -> students
         
         public EnrollmentStatistics(int totalStudents, int oneSubject, int twoSubjects, 
                                   int threeSubjects, int noSubjects, double totalRevenue) {
@@ -902,6 +732,31 @@ public boolean changeUserPassword(String userId, String userType, String current
             this.threeSubjectStudents = threeSubjects;
             this.noSubjectStudents = noSubjects;
             this.totalRevenue = totalRevenue;
+            Map<Integer, Integer> buckets = new TreeMap<>();
+            if (noSubjects > 0) buckets.put(0, noSubjects);
+            if (oneSubject > 0) buckets.put(1, oneSubject);
+            if (twoSubjects > 0) buckets.put(2, twoSubjects);
+            if (threeSubjects > 0) buckets.put(3, threeSubjects);
+            this.studentsBySubjectCount = Collections.unmodifiableMap(buckets);
+            this.dimensions = Collections.emptyMap();
+        }
+        
+        /**
+         * @param studentsBySubjectCount number of enrolled classes -> students
+         * @param dimensions dimension name (e.g. "Level") -> key -> students
+         */
+        public EnrollmentStatistics(int totalStudents, Map<Integer, Integer> studentsBySubjectCount,
+                                  double totalRevenue, Map<String, Map<String, Integer>> dimensions) {
+            this.totalStudents = totalStudents;
+            this.oneSubjectStudents = studentsBySubjectCount.getOrDefault(1, 0);
+            this.twoSubjectStudents = studentsBySubjectCount.getOrDefault(2, 0);
+            this.threeSubjectStudents = studentsBySubjectCount.getOrDefault(3, 0);
+            this.noSubjectStudents = studentsBySubjectCount.getOrDefault(0, 0);
+            this.totalRevenue = totalRevenue;
+            this.studentsBySubjectCount = Collections.unmodifiableMap(new TreeMap<>(studentsBySubjectCount));
+            Map<String, Map<String, Integer>> copy = new LinkedHashMap<>();
+            dimensions.forEach((name, counts) -> copy.put(name, Collections.unmodifiableMap(new TreeMap<>(counts))));
+            this.dimensions = Collections.unmodifiableMap(copy);
         }
         
         // Getters
@@ -911,10 +766,29 @@ public boolean changeUserPassword(String userId, String userType, String current
         public int getThreeSubjectStudents() { return threeSubjectStudents; }
         public int getNoSubjectStudents() { return noSubjectStudents; }
         public double getTotalRevenue() { return totalRevenue; }
+        public double getExpectedMonthlyRevenue() { return totalRevenue; }
+        public Map<Integer, Integer> getStudentsBySubjectCount() { return studentsBySubjectCount; }
+        
+        /**
+         * Students per key of a dimension, e.g. getCounts("Tutor"); empty if it was not computed
+         */
+        public Map<String, Integer> getCounts(String dimension) {
+            return dimensions.getOrDefault(dimension, Collections.emptyMap());
+        }
+        public Set<String> getDimensionNames() { return dimensions.keySet(); }
+        public Map<String, Integer> getStudentsByLevel() { return getCounts("Level"); }
+        public Map<String, Integer> getStudentsByEnrollmentMonth() { return getCounts("Enrollment Month"); }
+        public Map<String, Integer> getStudentsBySubject() { return getCounts("Subject"); }
+        public Map<String, Integer> getStudentsByTutor() { return getCounts("Tutor"); }
         
         public double getAverageSubjectsPerStudent() {
             if (totalStudents == 0) return 0;
-            return (double)(oneSubjectStudents + (twoSubjectStudents * 2) + (threeSubjectStudents * 3)) / totalStudents;
+            // Every bucket counts, including students in more than three classes
+            int enrollments = 0;
+            for (Map.Entry<Integer, Integer> bucket : studentsBySubjectCount.entrySet()) {
+                enrollments += bucket.getKey() * bucket.getValue();
+            }
+            return (double) enrollments / totalStudents;
         }
         
         public double getEnrollmentRate() {
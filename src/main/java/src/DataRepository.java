@@ -0,0 +1,819 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * DataRepository keeps one process-wide, parsed copy of every data file.
+ * A file is only reparsed when its size or modification time changes, so
+ * repeated reads between writes cost a single stat call instead of a full parse.
+ * Callers always receive copies, so editing a returned object never leaks into
+ * the shared state until it is written back through FileHandler.
+ *
+ * Every table also keeps a primary-key index (ID -> row position), so point
+ * lookups such as findStudent() are a hash probe instead of a scan. Tables can
+ * carry extra RowIndexes (e.g. class ID -> enrolled students, or the
+ * SystemStatistics counters) that are patched by the same single-record mutations.
+ */
+public class DataRepository {
+    private static final DataRepository INSTANCE = new DataRepository();
+    // Joins tried before getReceivables settles for one that raced a change
+    private static final int RECEIVABLES_ATTEMPTS = 3;
+
+    private final FileHandler fileHandler = new FileHandler();
+
+    private final CachedTable<Student> students =
+        new CachedTable<>("students.txt", fileHandler::loadStudentsFromDisk, DataRepository::copyOf,
+                          line -> FileHandler.parseStudentLine(line, 0), User::getUserId);
+    private final CachedTable<Tutor> tutors =
+        new CachedTable<>("tutor.txt", fileHandler::loadTutorsFromDisk, DataRepository::copyOf,
+                          FileHandler::parseTutorLine, User::getUserId);
+    private final CachedTable<Receptionist> receptionists =
+        new CachedTable<>("receptionist.txt", fileHandler::loadReceptionistsFromDisk, DataRepository::copyOf,
+                          FileHandler::parseReceptionistLine, User::getUserId);
+    private final CachedTable<Admin> admins =
+        new CachedTable<>("admin.txt", fileHandler::loadAdminsFromDisk, DataRepository::copyOf,
+                          FileHandler::parseAdminLine, User::getUserId);
+    private final CachedTable<ClassInfo> classes =
+        new CachedTable<>("class.txt", fileHandler::loadClassesFromDisk, DataRepository::copyOf,
+                          FileHandler::parseClassLine, ClassInfo::getClassId);
+    private final CachedTable<Payment> payments =
+        new CachedTable<>("payments.txt", fileHandler::loadPaymentsFromDisk, DataRepository::copyOf,
+                          FileHandler::parsePaymentLine, Payment::getPaymentId);
+
+    // class ID -> IDs of the students enrolled in it
+    private final GroupIndex<Student> enrollments = new GroupIndex<>(Student::getSubjects);
+    // tutor ID -> IDs of the classes they teach
+    private final GroupIndex<ClassInfo> tutorClasses =
+        new GroupIndex<>(c -> Collections.singletonList(c.getTutorId()));
+
+    // Running totals for the admin dashboard
+    private final SystemStatistics statistics = new SystemStatistics();
+    // Income by month, level and subject for the income report
+    private final IncomeRollups incomeRollups = new IncomeRollups();
+    // The payment ledger in columns, for filter-and-sum queries
+    private final PaymentColumns paymentColumns = new PaymentColumns();
+    // Classes, students, sessions and fees per tutor
+    private final TutorWorkload tutorWorkload = new TutorWorkload();
+    // Due, paid and credit per student for a billing month
+    private final Receivables receivables = new Receivables();
+    // Last enrollment analytics and the table versions they were computed from; guarded by itself
+    private final EnrollmentCache enrollmentStatistics = new EnrollmentCache();
+
+    private DataRepository() {
+        students.addIndex(enrollments);
+        classes.addIndex(tutorClasses);
+        students.addIndex(statistics.studentIndex());
+        tutors.addIndex(statistics.tutorIndex());
+        classes.addIndex(statistics.classIndex());
+        payments.addIndex(incomeRollups.paymentIndex());
+        payments.addIndex(paymentColumns.index());
+        students.addIndex(tutorWorkload.studentIndex());
+        classes.addIndex(tutorWorkload.classIndex());
+        payments.addIndex(receivables.paymentIndex());
+    }
+
+    public static DataRepository getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Read access - each call returns fresh copies of the cached records
+     */
+    public List<Student> getStudents() { return students.snapshot(); }
+    public List<Tutor> getTutors() { return tutors.snapshot(); }
+    public List<Receptionist> getReceptionists() { return receptionists.snapshot(); }
+    public List<Admin> getAdmins() { return admins.snapshot(); }
+    public List<ClassInfo> getClasses() { return classes.snapshot(); }
+    public List<Payment> getPayments() { return payments.snapshot(); }
+
+    /**
+     * Point lookups by ID (case and surrounding spaces ignored)
+     * @return a copy of the record, or null if there is none
+     */
+    public Student findStudent(String studentId) { return students.find(studentId); }
+    public Tutor findTutor(String tutorId) { return tutors.find(tutorId); }
+    public Receptionist findReceptionist(String receptionistId) { return receptionists.find(receptionistId); }
+    public Admin findAdmin(String adminId) { return admins.find(adminId); }
+    public ClassInfo findClass(String classId) { return classes.find(classId); }
+    public Payment findPayment(String paymentId) { return payments.find(paymentId); }
+
+    /**
+     * Class rosters, answered from the enrollment index
+     */
+    public List<Student> getStudentsInClass(String classId) { return students.findGroup(enrollments, classId); }
+    public Set<String> getStudentIdsInClass(String classId) { return students.groupKeys(enrollments, classId); }
+    public int countStudentsInClass(String classId) { return getStudentIdsInClass(classId).size(); }
+
+    /**
+     * Classes taught by a tutor, answered from the tutor index
+     */
+    public List<ClassInfo> getClassesByTutor(String tutorId) { return classes.findGroup(tutorClasses, tutorId); }
+
+    /**
+     * Write access - persists the list and refreshes the cache without reparsing
+     */
+    public boolean saveStudents(List<Student> list) {
+        return students.save(list, () -> fileHandler.writeStudentsToDisk(list));
+    }
+
+    public boolean saveReceptionists(List<Receptionist> list) {
+        return receptionists.save(list, () -> fileHandler.writeReceptionistsToDisk(list));
+    }
+
+    public boolean savePayments(List<Payment> list) {
+        return payments.save(list, () -> fileHandler.writePaymentsToDisk(list));
+    }
+
+    /**
+     * Single-record mutations. In journal mode each one is an O(1) append to the
+     * entity's journal; otherwise the file is rewritten as before. The cached copy
+     * is patched in place so the next read does not reparse the file.
+     */
+    public boolean upsertStudent(Student student) {
+        return students.upsert(student.getUserId(), student.toFileString(), true);
+    }
+
+    /**
+     * Registers a new student
+     * @return false if a student with that ID already exists
+     */
+    public boolean insertStudent(Student student) {
+        return students.insert(student.getUserId(), student.toFileString());
+    }
+
+    public boolean deleteStudent(String studentId) {
+        return students.delete(studentId);
+    }
+
+    /**
+     * @return false if a class with that ID already exists
+     */
+    public boolean addClass(ClassInfo classInfo) {
+        return classes.insert(classInfo.getClassId(), FileHandler.formatClassLine(classInfo));
+    }
+
+    /**
+     * @return false if the class does not exist
+     */
+    public boolean updateClass(ClassInfo classInfo) {
+        return classes.upsert(classInfo.getClassId(), FileHandler.formatClassLine(classInfo), false);
+    }
+
+    public boolean deleteClass(String classId) {
+        return classes.delete(classId);
+    }
+
+    public boolean upsertReceptionist(Receptionist receptionist) {
+        return receptionists.upsert(receptionist.getUserId(), FileHandler.formatReceptionistLine(receptionist), true);
+    }
+
+    /**
+     * Replaces an existing record in any role file with an already formatted line
+     * @return false if no record with that ID exists
+     */
+    public boolean updateRecord(String filename, String id, String line) {
+        CachedTable<?> table = tableFor(filename);
+        return table != null && table.upsert(id, line, false);
+    }
+
+    /**
+     * Adds a new record to any role file with an already formatted line
+     * @return false if a record with that ID already exists
+     */
+    public boolean insertRecord(String filename, String id, String line) {
+        CachedTable<?> table = tableFor(filename);
+        return table != null && table.insert(id, line);
+    }
+
+    /**
+     * Edits the stored fields of an existing record in any role file. The fields
+     * are read as they are on disk (journal included), so columns the parsed
+     * objects do not carry are kept.
+     * @param edit returns the new fields, or null to leave the record unchanged
+     * @return false if there is no such record or edit returned null
+     */
+    public boolean editRecord(String filename, String id, UnaryOperator<String[]> edit) {
+        CachedTable<?> table = tableFor(filename);
+        return table != null && table.edit(id, edit);
+    }
+
+    /**
+     * The stored fields of a record in any role file, including columns the
+     * parsed objects do not carry. Reads the file (and journal), so keep it off
+     * hot paths.
+     * @return null if there is no such record
+     */
+    public String[] readFields(String filename, String id) {
+        String line = fileHandler.readRecord(new File(filename).getName(), id);
+        return line != null ? CsvTokenizer.split(line) : null;
+    }
+
+    /**
+     * Removes a record from any role file
+     * @return false if no record with that ID exists
+     */
+    public boolean deleteRecord(String filename, String id) {
+        CachedTable<?> table = tableFor(filename);
+        return table != null && table.delete(id);
+    }
+
+    /**
+     * Records a new payment by appending one line to the ledger, independent of its size
+     */
+    public boolean appendPayment(Payment payment) {
+        return payments.append(FileHandler.formatPaymentLine(payment),
+                               () -> fileHandler.appendLine("payments.txt", FileHandler.formatPaymentLine(payment)));
+    }
+
+    /**
+     * Current totals. Each table is only rechecked (a stat call), never rescanned;
+     * the counters were already patched by the mutations that changed it.
+     */
+    public SystemStatistics.Snapshot getStatistics() {
+        students.getVersion();
+        tutors.getVersion();
+        classes.getVersion();
+        return statistics.snapshot();
+    }
+
+    /**
+     * Income from classes of one level and subject scheduled in a month. Costs a
+     * map lookup once the rollups are built; they are re-derived from the
+     * payment groups (not the ledger) only after class.txt changes.
+     */
+    public IncomeRollups.Totals getIncome(int year, int month, String level, String subject) {
+        return rollups().get(year, month, level, subject);
+    }
+
+    /**
+     * Income for a level and subject in every month that has any, oldest first
+     */
+    public SortedMap<String, IncomeRollups.Totals> getIncomeByMonth(String level, String subject) {
+        return rollups().series(level, subject);
+    }
+
+    /**
+     * One tutor's workload, kept current by class and enrollment changes
+     */
+    public TutorWorkload.Summary getTutorWorkload(String tutorId) {
+        students.getVersion();
+        classes.getVersion();
+        return tutorWorkload.get(tutorId);
+    }
+
+    /**
+     * Workloads of every tutor who has classes, by tutor ID
+     */
+    public List<TutorWorkload.Summary> getTutorWorkloads() {
+        students.getVersion();
+        classes.getVersion();
+        return tutorWorkload.all();
+    }
+
+    /**
+     * Every student's due, paid and credit amounts for a billing month. Payments
+     * recorded since the last call are already included; a student or class
+     * change costs one join on the next call.
+     */
+    public List<Receivables.Entry> getReceivables(YearMonth month) {
+        List<Receivables.Entry> built = null;
+        for (int attempt = 0; attempt < RECEIVABLES_ATTEMPTS; attempt++) {
+            long studentsVersion = students.getVersion();
+            long classesVersion = classes.getVersion();
+            payments.getVersion();
+            List<Receivables.Entry> current = receivables.current(month, studentsVersion, classesVersion);
+            if (current != null) return current;
+
+            long paymentChanges = receivables.paymentChanges();
+            Map<String, Double> paid = paymentColumns.totalsByStudent(PaymentColumns.query().in(month));
+            // Not kept if a payment arrived during the join; the next round reads the kept result
+            built = receivables.rebuild(month, studentsVersion, classesVersion, paymentChanges,
+                                        students.snapshot(), classes.snapshot(), paid);
+        }
+        // The tables kept changing under every join; the last one is at most a change behind
+        return built;
+    }
+
+    /**
+     * Enrollment analytics (subject-count buckets, revenue, per-dimension counts).
+     * Recomputed only after students.txt or class.txt changes; until then every
+     * caller gets the same immutable result.
+     */
+    public DataManager.EnrollmentStatistics getEnrollmentStatistics() {
+        long studentsVersion = students.getVersion();
+        long classesVersion = classes.getVersion();
+        synchronized (enrollmentStatistics) {
+            if (enrollmentStatistics.result == null || enrollmentStatistics.studentsVersion != studentsVersion
+                    || enrollmentStatistics.classesVersion != classesVersion) {
+                // A change landing during the pass bumps a version, so the next call recomputes
+                enrollmentStatistics.result = new EnrollmentStatisticsEngine().compute(students.snapshot(),
+                                                                                        classes.snapshot());
+                enrollmentStatistics.studentsVersion = studentsVersion;
+                enrollmentStatistics.classesVersion = classesVersion;
+            }
+            return enrollmentStatistics.result;
+        }
+    }
+
+    private static final class EnrollmentCache {
+        DataManager.EnrollmentStatistics result;
+        long studentsVersion = -1;
+        long classesVersion = -1;
+    }
+
+    /**
+     * Payments as columns, current with payments.txt. Query with
+     * PaymentColumns.query() instead of looping over getPayments() copies.
+     */
+    public PaymentColumns getPaymentColumns() {
+        payments.getVersion();
+        return paymentColumns;
+    }
+
+    private IncomeRollups rollups() {
+        payments.getVersion();
+        long version = classes.getVersion();
+        if (incomeRollups.classesVersion() != version) {
+            incomeRollups.rebuild(version, classes.snapshot()); // snapshot taken outside the rollup lock
+        }
+        return incomeRollups;
+    }
+
+    /**
+     * Changes whenever the cached contents of a data file change; cheap to poll
+     * @return -1 for a file the repository does not cache
+     */
+    public long getVersion(String filename) {
+        CachedTable<?> table = tableFor(filename);
+        return table != null ? table.getVersion() : -1;
+    }
+
+    private CachedTable<?> tableFor(String filename) {
+        String name = new File(filename).getName();
+        for (CachedTable<?> table : Arrays.asList(students, tutors, receptionists, admins, classes, payments)) {
+            if (table.filename.equals(name)) return table;
+        }
+        return null;
+    }
+
+    /**
+     * Drops every cached table so the next read goes back to disk
+     */
+    public void invalidateAll() {
+        students.invalidate();
+        tutors.invalidate();
+        receptionists.invalidate();
+        admins.invalidate();
+        classes.invalidate();
+        payments.invalidate();
+    }
+
+    /**
+     * Number of full-file parses performed so far, useful for diagnostics
+     */
+    public int getReloadCount() {
+        return students.reloads + tutors.reloads + receptionists.reloads
+            + admins.reloads + classes.reloads + payments.reloads;
+    }
+
+    static String normalize(String id) {
+        return id.trim().toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Normalised IDs in first-seen order, blanks and repeats dropped. A class
+     * listed twice on a student is one enrollment and is charged once.
+     */
+    static Set<String> distinct(Collection<String> ids) {
+        Set<String> keys = new LinkedHashSet<>();
+        for (String id : ids) {
+            if (id != null && !id.trim().isEmpty()) keys.add(normalize(id));
+        }
+        return keys;
+    }
+
+    // Copy helpers so cached objects are never handed out directly
+    static Student copyOf(Student s) {
+        return new Student(s.getUserId(), s.getIc(), s.getUsername(), s.getPassword(), s.getName(),
+                           s.getEmail(), s.getPhone(), s.getAddress(), s.getLevel(), s.getEnrollmentMonth(),
+                           s.getSubjects(), s.getTotalBalance(), s.getLoginAttempts(), s.isLockedOut());
+    }
+
+    static Tutor copyOf(Tutor t) {
+        return new Tutor(t.getUserId(), t.getUsername(), t.getPassword(), t.getName(),
+                         t.getEmail(), t.getPhone(), t.getDateOfBirth());
+    }
+
+    static Receptionist copyOf(Receptionist r) {
+        return new Receptionist(r.getUserId(), r.getUsername(), r.getPassword(), r.getName(),
+                                r.getEmail(), r.getPhone(), r.getDepartment());
+    }
+
+    static Admin copyOf(Admin a) {
+        return new Admin(a.getUserId(), a.getUsername(), a.getPassword(), a.getName(),
+                         a.getEmail(), a.getPhone(), a.getRole());
+    }
+
+    static ClassInfo copyOf(ClassInfo c) {
+        return new ClassInfo(c.getClassId(), c.getTutorId(), c.getSubject(), c.getDescription(),
+                             c.getSchedule(), c.getFee());
+    }
+
+    static Payment copyOf(Payment p) {
+        String[] ids = p.getClassIds() != null ? p.getClassIds().clone() : new String[0];
+        Payment copy = new Payment(p.getPaymentId(), p.getReceiptId(), p.getStudentId(), p.getStudentName(),
+                                   ids, p.getAmount(), p.getPaymentDate(), p.getPaymentMethod());
+        copy.setStatus(p.getStatus());
+        return copy;
+    }
+
+    /**
+     * One cached data file together with the size and timestamp it was parsed at
+     */
+    class CachedTable<T> {
+        private final String filename;
+        private final Supplier<List<T>> loader;
+        private final UnaryOperator<T> copier;
+        private final Function<String, T> lineParser;
+        private final Function<T, String> keyOf;
+
+        private List<T> rows;
+        private Map<String, Integer> positions; // normalised key -> index in rows
+        private final List<RowIndex<T>> rowIndexes = new ArrayList<>();
+        private long[] stamp;
+        private long version;
+        private int appendsInFlight;
+        private boolean staleAppends;
+        int reloads;
+
+        CachedTable(String filename, Supplier<List<T>> loader, UnaryOperator<T> copier,
+                    Function<String, T> lineParser, Function<T, String> keyOf) {
+            this.filename = filename;
+            this.loader = loader;
+            this.copier = copier;
+            this.lineParser = lineParser;
+            this.keyOf = keyOf;
+        }
+
+        synchronized List<T> snapshot() {
+            refreshIfChanged();
+            List<T> copy = new ArrayList<>(rows.size());
+            for (T row : rows) {
+                copy.add(copier.apply(row));
+            }
+            return copy;
+        }
+
+        synchronized T find(String key) {
+            if (key == null) return null;
+            refreshIfChanged();
+            int index = indexOf(key);
+            return index < 0 ? null : copier.apply(rows.get(index));
+        }
+
+        synchronized void addIndex(RowIndex<T> index) {
+            rowIndexes.add(index);
+            if (rows != null) reindex();
+        }
+
+        synchronized List<T> findGroup(GroupIndex<T> index, String group) {
+            List<T> found = new ArrayList<>();
+            for (String key : groupKeys(index, group)) {
+                found.add(copier.apply(rows.get(indexOf(key))));
+            }
+            return found;
+        }
+
+        synchronized Set<String> groupKeys(GroupIndex<T> index, String group) {
+            if (group == null) return Collections.emptySet();
+            refreshIfChanged();
+            return new LinkedHashSet<>(index.get(group));
+        }
+
+        synchronized boolean save(List<T> list, Supplier<Boolean> writer) {
+            if (!writer.get()) {
+                invalidate();
+                return false;
+            }
+            List<T> stored = new ArrayList<>(list.size());
+            for (T row : list) {
+                stored.add(copier.apply(row));
+            }
+            rows = stored;
+            reindex();
+            version++;
+            stamp = stat();
+            return true;
+        }
+
+        boolean upsert(String key, String line, boolean insertIfMissing) {
+            return write(() -> startUpsert(key, line, insertIfMissing, false));
+        }
+
+        boolean insert(String key, String line) {
+            return write(() -> startUpsert(key, line, true, true));
+        }
+
+        boolean edit(String key, UnaryOperator<String[]> edit) {
+            return write(() -> {
+                int index = indexOf(key);
+                if (index < 0) return null;
+                String current = fileHandler.readRecord(filename, keyOf.apply(rows.get(index)));
+                String[] fields = current != null ? edit.apply(CsvTokenizer.split(current)) : null;
+                return fields != null ? startUpsert(key, CsvTokenizer.join(fields), false, false) : null;
+            });
+        }
+
+        boolean delete(String key) {
+            return write(() -> {
+                int index = indexOf(key);
+                if (index < 0) return null;
+                CompletableFuture<Boolean> written =
+                    fileHandler.startWriteRecord(filename, keyOf.apply(rows.get(index)), null, false);
+                removed(index);
+                version++;
+                return written;
+            });
+        }
+
+        /**
+         * Single-record writes: start runs under the table lock, checks the row,
+         * queues the write and patches the cached rows (so the cache sees writes
+         * in the order the journal gets them). The wait for the group commit
+         * happens with the lock released, so writes to different records can
+         * share one fsync. A failed write drops the cache for a reload.
+         */
+        private boolean write(Supplier<CompletableFuture<Boolean>> start) {
+            CompletableFuture<Boolean> written;
+            long startGeneration;
+            synchronized (this) {
+                refreshIfChanged();
+                written = start.get();
+                if (written == null) return false;
+                startGeneration = reloads;
+                appendsInFlight++;
+            }
+
+            boolean ok = written.join();
+
+            synchronized (this) {
+                appendsInFlight--;
+                if (!ok) {
+                    invalidate();
+                } else if (reloads != startGeneration) {
+                    staleAppends = true; // a reload raced this write; recheck the file
+                }
+                if (appendsInFlight == 0) {
+                    if (staleAppends) {
+                        stamp = null;
+                        staleAppends = false;
+                    } else if (rows != null) {
+                        stamp = stat();
+                    }
+                }
+            }
+            return ok;
+        }
+
+        // Called under the table lock; null when the write is refused
+        private CompletableFuture<Boolean> startUpsert(String key, String line, boolean insertIfMissing,
+                                                       boolean mustBeNew) {
+            int index = indexOf(key);
+            if (index >= 0 ? mustBeNew : !insertIfMissing) return null;
+            String storedKey = index >= 0 ? keyOf.apply(rows.get(index)) : key;
+
+            CompletableFuture<Boolean> written = fileHandler.startWriteRecord(filename, storedKey, line, insertIfMissing);
+            T parsed = lineParser.apply(line);
+            if (parsed == null) {
+                invalidate();
+            } else {
+                if (index >= 0) {
+                    T old = rows.set(index, parsed);
+                    for (RowIndex<T> rowIndex : rowIndexes) rowIndex.update(storedKey, old, parsed);
+                } else {
+                    added(parsed);
+                }
+                version++;
+            }
+            return written;
+        }
+
+        /**
+         * Appends are written without holding the table lock so concurrent callers
+         * can share one group commit; the cached rows are patched afterwards.
+         */
+        boolean append(String line, Supplier<Boolean> writer) {
+            long startGeneration;
+            synchronized (this) {
+                refreshIfChanged();
+                startGeneration = reloads;
+                appendsInFlight++;
+            }
+
+            boolean written = writer.get();
+
+            synchronized (this) {
+                appendsInFlight--;
+                T parsed = written ? lineParser.apply(line) : null;
+                if (parsed != null && rows != null && reloads == startGeneration) {
+                    added(parsed);
+                    version++;
+                } else {
+                    // A reload raced this append (or it failed); make the next read recheck the file
+                    staleAppends = true;
+                }
+
+                if (appendsInFlight == 0) {
+                    if (staleAppends) {
+                        stamp = null;
+                        staleAppends = false;
+                    } else {
+                        stamp = stat();
+                    }
+                }
+            }
+            return written;
+        }
+
+        synchronized void invalidate() {
+            rows = null;
+            positions = null;
+            stamp = null;
+        }
+
+        synchronized long getVersion() {
+            refreshIfChanged();
+            return version;
+        }
+
+        private int indexOf(String key) {
+            Integer index = positions.get(normalize(key));
+            return index != null ? index : -1;
+        }
+
+        // Rebuilds the key and group indexes; the first row wins if a file holds duplicate IDs
+        private void reindex() {
+            positions = new HashMap<>(rows.size() * 2);
+            for (RowIndex<T> rowIndex : rowIndexes) rowIndex.clear();
+            for (int i = 0; i < rows.size(); i++) {
+                T row = rows.get(i);
+                String key = keyOf.apply(row);
+                if (key != null && positions.putIfAbsent(normalize(key), i) == null) {
+                    for (RowIndex<T> rowIndex : rowIndexes) rowIndex.add(key, row);
+                }
+            }
+        }
+
+        // Indexes a row that was just added to the end of rows
+        private void added(T row) {
+            rows.add(row);
+            String key = keyOf.apply(row);
+            if (positions.putIfAbsent(normalize(key), rows.size() - 1) == null) {
+                for (RowIndex<T> rowIndex : rowIndexes) rowIndex.add(key, row);
+            }
+        }
+
+        // Drops one row: later positions shift down by one, the row indexes only lose this row
+        private void removed(int index) {
+            T row = rows.remove(index);
+            String key = keyOf.apply(row);
+            String normalized = normalize(key);
+            positions.remove(normalized);
+            for (int i = index; i < rows.size(); i++) {
+                String later = keyOf.apply(rows.get(i));
+                if (later == null) continue;
+                if (normalize(later).equals(normalized)) {
+                    reindex(); // a duplicate of the deleted ID becomes the visible row
+                    return;
+                }
+                int position = i;
+                positions.computeIfPresent(normalize(later), (k, p) -> p == position + 1 ? position : p);
+            }
+            for (RowIndex<T> rowIndex : rowIndexes) rowIndex.remove(key, row);
+        }
+
+        // A file that cannot be stat'ed is stamped {-1, -1} like any other and only
+        // reloaded again once that changes, so consumers keyed on version stay put
+        private void refreshIfChanged() {
+            long[] current = stat();
+            if (rows == null || (appendsInFlight == 0 && !Arrays.equals(current, stamp))) {
+                rows = loader.get();
+                reindex();
+                reloads++;
+                version++;
+                stamp = current;
+            }
+        }
+
+        // {size, mtime} of the text file followed by {size, mtime} of its journal; -1 when missing
+        private long[] stat() {
+            long[] result = new long[4];
+            statInto(new File(System.getProperty("user.dir"), filename), result, 0);
+            statInto(MutationJournal.forFile(filename).journalFile(), result, 2);
+            return result;
+        }
+
+        private void statInto(File file, long[] result, int offset) {
+            try {
+                BasicFileAttributes attrs = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+                result[offset] = attrs.size();
+                result[offset + 1] = attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+            } catch (IOException e) {
+                result[offset] = -1;
+                result[offset + 1] = -1;
+            }
+        }
+    }
+
+    /**
+     * Anything derived from a table's rows that is patched by its mutations instead
+     * of being rebuilt. Called under the owning table's lock; clear() followed by
+     * add() for every row happens only when the table is reloaded or replaced as
+     * a whole. Single-row inserts, updates and deletes call add, update and remove.
+     */
+    interface RowIndex<T> {
+        void add(String key, T row);
+
+        void update(String key, T old, T now);
+
+        void remove(String key, T row);
+
+        void clear();
+    }
+
+    /**
+     * Secondary index from a group value (e.g. a class ID) to the primary keys of
+     * the rows that list it. Only used under the owning table's lock.
+     */
+    static final class GroupIndex<T> implements RowIndex<T> {
+        private final Function<T, Collection<String>> groupsOf;
+        private final Map<String, Set<String>> members = new HashMap<>();
+
+        GroupIndex(Function<T, Collection<String>> groupsOf) {
+            this.groupsOf = groupsOf;
+        }
+
+        Set<String> get(String group) {
+            Set<String> keys = members.get(normalize(group));
+            return keys != null ? keys : Collections.emptySet();
+        }
+
+        @Override
+        public void add(String key, T row) {
+            for (String group : groupsOf(row)) {
+                members.computeIfAbsent(group, g -> new LinkedHashSet<>()).add(key);
+            }
+        }
+
+        // Only touches the groups that changed, so unaffected rosters keep their order
+        @Override
+        public void update(String key, T old, T now) {
+            Set<String> before = groupsOf(old);
+            Set<String> after = groupsOf(now);
+            for (String group : before) {
+                if (!after.contains(group)) removeFrom(group, key);
+            }
+            for (String group : after) {
+                if (!before.contains(group)) members.computeIfAbsent(group, g -> new LinkedHashSet<>()).add(key);
+            }
+        }
+
+        @Override
+        public void remove(String key, T row) {
+            for (String group : groupsOf(row)) {
+                removeFrom(group, key);
+            }
+        }
+
+        @Override
+        public void clear() {
+            members.clear();
+        }
+
+        private void removeFrom(String group, String key) {
+            Set<String> keys = members.get(group);
+            if (keys != null && keys.remove(key) && keys.isEmpty()) {
+                members.remove(group);
+            }
+        }
+
+        private Set<String> groupsOf(T row) {
+            Set<String> groups = new LinkedHashSet<>();
+            Collection<String> values = groupsOf.apply(row);
+            if (values != null) {
+                for (String value : values) {
+                    if (value != null && !value.trim().isEmpty()) groups.add(normalize(value));
+                }
+            }
+            return groups;
+        }
+    }
+}
\ No newline at end of file
@@ -521,7 +521,7 @@ public class EditUser extends JDialog {
             // Update password if provided
             String newPassword = new String(passwordField.getPassword());
             if (!newPassword.isEmpty()) {
-                currentUser.setPassword(newPassword);
+                currentUser.setPassword(PasswordHasher.hash(newPassword));
             }
             
             // Type-specific updates
@@ -706,72 +706,31 @@ public class EditUser extends JDialog {
     }
     
     private boolean updateUserInFile(String filename, User user) {
-        try {
-            File file = new File(filename);
-            java.util.List<String> lines = new ArrayList<>();
-            boolean found = false;
-            
-            // Read all lines
-            if (file.exists()) {
-                try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        lines.add(line);
-                    }
-                }
-            }
-            
-            // Update the user's line
-            for (int i = 0; i < lines.size(); i++) {
-                String[] parts = lines.get(i).split(",");
-                if (parts.length > 0 && parts[0].equals(user.getUserId())) {
-                    String updatedLine = createUpdatedLine(user);
-                    lines.set(i, updatedLine);
-                    found = true;
-                    break;
-                }
-            }
-            
-            if (!found) {
-                return false;
-            }
-            
-            // Write back to file
-            try (PrintWriter writer = new PrintWriter(new FileWriter(file))) {
-                for (String line : lines) {
-                    writer.println(line);
-                }
-            }
-            
-            return true;
-            
-        } catch (IOException e) {
-            e.printStackTrace();
-            return false;
-        }
+        // Single-record update through the shared repository (journaled when enabled)
+        return DataRepository.getInstance().updateRecord(filename, user.getUserId(), createUpdatedLine(user));
     }
     
     private String createUpdatedLine(User user) {
         if (user instanceof Student) {
             Student s = (Student) user;
-            return String.format("%s,%s,%s,%s,%s,%s,%s,%s,%s,%s",
+            return CsvTokenizer.join(
                 s.getUserId(), s.getIc(), s.getPassword(), s.getName(),
                 s.getEmail(), s.getPhone(), s.getAddress(), s.getLevel(),
                 s.getEnrollmentMonth(), s.getClassIdsString());
         } else if (user instanceof Tutor) {
             Tutor t = (Tutor) user;
-            return String.format("%s,%s,%s,%s,%s,%s,%s",
+            return CsvTokenizer.join(
                 t.getUserId(), t.getName(), t.getPassword(),
                 t.getEmail(), t.getDateOfBirth(), t.getPhone(), t.getUsername());
         } else if (user instanceof Receptionist) {
             Receptionist r = (Receptionist) user;
-            return String.format("%s,%s,%s,%s,%s,%s",
+            return CsvTokenizer.join(
                 r.getUserId(), r.getUsername(), r.getPassword(),
                 r.getName(), r.getEmail(), r.getPhone());
         } else if (user instanceof Admin) {
             Admin a = (Admin) user;
             // Format: UserID,Username,Password,Name,Email,Phone,Role
-            return String.format("%s,%s,%s,%s,%s,%s,%s",
+            return CsvTokenizer.join(
                 a.getUserId(), a.getUsername(), a.getPassword(),
                 a.getName(), a.getEmail(), a.getPhone(), 
                 a.getRole() != null ? a.getRole() : "Administrator");
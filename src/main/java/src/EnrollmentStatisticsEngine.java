@@ -0,0 +1,164 @@
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * EnrollmentStatisticsEngine computes the enrollment analytics in one pass over
+ * the students: how many are enrolled in 0, 1, 2... classes, the expected
+ * monthly revenue (the fees of every enrollment; a class listed twice is
+ * charged once), and a student count per key of each Dimension (level,
+ * enrollment month, subject, tutor by default).
+ *
+ * Class IDs are joined against an in-memory map of the class table built once
+ * per run, so pricing a student is a hash lookup per class. At
+ * atc.stats.parallelThreshold students (default 20,000) and above, the pass is
+ * split over the common ForkJoinPool and the partial counts are merged.
+ */
+final class EnrollmentStatisticsEngine {
+    private static final int PARALLEL_THRESHOLD = Integer.getInteger("atc.stats.parallelThreshold", 20_000);
+
+    /**
+     * One way of grouping students. A student counts once under every distinct
+     * key it reports.
+     */
+    interface Dimension {
+        String getName();
+
+        /**
+         * @param classes the student's enrolled classes that exist in the class table
+         */
+        void classify(Student student, List<ClassInfo> classes, Consumer<String> key);
+    }
+
+    static final Dimension LEVEL = dimension("Level", (student, classes, key) -> key.accept(text(student.getLevel())));
+    static final Dimension ENROLLMENT_MONTH =
+        dimension("Enrollment Month", (student, classes, key) -> key.accept(text(student.getEnrollmentMonth())));
+    static final Dimension SUBJECT = dimension("Subject", (student, classes, key) -> {
+        for (ClassInfo classInfo : classes) key.accept(classInfo.getSubjectName());
+    });
+    static final Dimension TUTOR = dimension("Tutor", (student, classes, key) -> {
+        for (ClassInfo classInfo : classes) key.accept(text(classInfo.getTutorId()));
+    });
+
+    private final List<Dimension> dimensions;
+    private final int parallelThreshold;
+
+    EnrollmentStatisticsEngine() {
+        this(defaultDimensions());
+    }
+
+    EnrollmentStatisticsEngine(List<Dimension> dimensions) {
+        this(dimensions, PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * @param parallelThreshold student count from which the pass runs in parallel
+     */
+    EnrollmentStatisticsEngine(List<Dimension> dimensions, int parallelThreshold) {
+        this.dimensions = new ArrayList<>(dimensions);
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    static List<Dimension> defaultDimensions() {
+        return Arrays.asList(LEVEL, ENROLLMENT_MONTH, SUBJECT, TUTOR);
+    }
+
+    DataManager.EnrollmentStatistics compute(List<Student> students, List<ClassInfo> classTable) {
+        Map<String, ClassInfo> classes = new HashMap<>(classTable.size() * 2);
+        for (ClassInfo classInfo : classTable) {
+            classes.put(DataRepository.normalize(classInfo.getClassId()), classInfo);
+        }
+
+        Partial total;
+        if (students.size() >= parallelThreshold) {
+            total = students.parallelStream().collect(() -> new Partial(dimensions.size()),
+                                                      (partial, student) -> partial.add(student, classes, dimensions),
+                                                      Partial::merge);
+        } else {
+            total = new Partial(dimensions.size());
+            for (Student student : students) {
+                total.add(student, classes, dimensions);
+            }
+        }
+
+        Map<String, Map<String, Integer>> byDimension = new LinkedHashMap<>();
+        for (int i = 0; i < dimensions.size(); i++) {
+            byDimension.put(dimensions.get(i).getName(), total.counts.get(i));
+        }
+        return new DataManager.EnrollmentStatistics(total.students, total.bySubjectCount, total.revenue, byDimension);
+    }
+
+    // Counts for the students one thread has seen
+    private static final class Partial {
+        int students;
+        double revenue;
+        final Map<Integer, Integer> bySubjectCount = new TreeMap<>();
+        final List<Map<String, Integer>> counts = new ArrayList<>();
+
+        // Reused per student: the enrolled classes and the keys already counted for one dimension
+        private final List<ClassInfo> enrolled = new ArrayList<>();
+        private final List<String> seen = new ArrayList<>();
+
+        Partial(int dimensions) {
+            for (int i = 0; i < dimensions; i++) counts.add(new TreeMap<>());
+        }
+
+        void add(Student student, Map<String, ClassInfo> classes, List<Dimension> dimensions) {
+            Set<String> classIds = DataRepository.distinct(student.getSubjects());
+            students++;
+            bySubjectCount.merge(classIds.size(), 1, Integer::sum);
+
+            enrolled.clear();
+            for (String classId : classIds) {
+                ClassInfo classInfo = classes.get(classId);
+                if (classInfo != null) {
+                    enrolled.add(classInfo);
+                    revenue += classInfo.getFee();
+                }
+            }
+
+            for (int i = 0; i < dimensions.size(); i++) {
+                Map<String, Integer> dimension = counts.get(i);
+                seen.clear();
+                dimensions.get(i).classify(student, enrolled, key -> {
+                    if (!seen.contains(key)) { // a handful of keys per student at most
+                        seen.add(key);
+                        dimension.merge(key, 1, Integer::sum);
+                    }
+                });
+            }
+        }
+
+        void merge(Partial other) {
+            students += other.students;
+            revenue += other.revenue;
+            other.bySubjectCount.forEach((k, v) -> bySubjectCount.merge(k, v, Integer::sum));
+            for (int i = 0; i < counts.size(); i++) {
+                Map<String, Integer> into = counts.get(i);
+                other.counts.get(i).forEach((k, v) -> into.merge(k, v, Integer::sum));
+            }
+        }
+    }
+
+    // Lets the built-in dimensions be written as lambdas
+    private interface Classifier {
+        void classify(Student student, List<ClassInfo> classes, Consumer<String> key);
+    }
+
+    private static Dimension dimension(String name, Classifier classifier) {
+        return new Dimension() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public void classify(Student student, List<ClassInfo> classes, Consumer<String> key) {
+                classifier.classify(student, classes, key);
+            }
+        };
+    }
+
+    private static String text(String value) {
+        return value == null || value.trim().isEmpty() ? "Not Set" : value.trim();
+    }
+}
\ No newline at end of file
@@ -1,5 +1,6 @@
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * FileHandler class manages all file operations for the ATC system
@@ -15,6 +16,83 @@ public class FileHandler {
     private static final String PAYMENT_HISTORY_FILE = "payment_history.txt";
     private static final String SUBJECT_CHANGE_REQUESTS_FILE = "Subject_Change_Requests.txt";
     
+    // Binary snapshot layouts; bump BinarySnapshot.VERSION when changing any of them
+    private static final BinarySnapshot.Codec<Student> STUDENT_CODEC = new BinarySnapshot.Codec<Student>() {
+        public void write(Student s, BinarySnapshot.RecordWriter out) {
+            out.string(s.getUserId());
+            out.string(s.getIc());
+            out.string(s.getPassword());
+            out.string(s.getName());
+            out.string(s.getEmail());
+            out.string(s.getPhone());
+            out.string(s.getAddress());
+            out.string(s.getLevel());
+            out.string(s.getEnrollmentMonth());
+            out.strings(s.getSubjects());
+            out.number(s.getTotalBalance());
+        }
+        
+        public Student read(BinarySnapshot.RecordReader in) {
+            String id = in.string();
+            return new Student(id, in.string(), id, in.string(), in.string(), in.string(),
+                               in.string(), in.string(), in.string(), in.string(), in.strings(), in.number());
+        }
+    };
+    
+    private static final BinarySnapshot.Codec<Tutor> TUTOR_CODEC = new BinarySnapshot.Codec<Tutor>() {
+        public void write(Tutor t, BinarySnapshot.RecordWriter out) {
+            out.string(t.getUserId());
+            out.string(t.getUsername());
+            out.string(t.getPassword());
+            out.string(t.getName());
+            out.string(t.getEmail());
+            out.string(t.getPhone());
+            out.string(t.getDateOfBirth());
+        }
+        
+        public Tutor read(BinarySnapshot.RecordReader in) {
+            return new Tutor(in.string(), in.string(), in.string(), in.string(),
+                             in.string(), in.string(), in.string());
+        }
+    };
+    
+    private static final BinarySnapshot.Codec<ClassInfo> CLASS_CODEC = new BinarySnapshot.Codec<ClassInfo>() {
+        public void write(ClassInfo c, BinarySnapshot.RecordWriter out) {
+            out.string(c.getClassId());
+            out.string(c.getTutorId());
+            out.string(c.getSubject());
+            out.string(c.getDescription());
+            out.string(c.getSchedule());
+            out.number(c.getFee());
+        }
+        
+        public ClassInfo read(BinarySnapshot.RecordReader in) {
+            return new ClassInfo(in.string(), in.string(), in.string(), in.string(),
+                                 in.string(), in.number());
+        }
+    };
+    
+    private static final BinarySnapshot.Codec<Payment> PAYMENT_CODEC = new BinarySnapshot.Codec<Payment>() {
+        public void write(Payment p, BinarySnapshot.RecordWriter out) {
+            out.string(p.getPaymentId());
+            out.string(p.getReceiptId());
+            out.string(p.getStudentId());
+            out.string(p.getStudentName());
+            out.strings(p.getClassIds() != null ? Arrays.asList(p.getClassIds()) : Collections.emptyList());
+            out.number(p.getAmount());
+            out.string(p.getPaymentDate());
+            out.string(p.getPaymentMethod());
+            out.string(p.getStatus());
+        }
+        
+        public Payment read(BinarySnapshot.RecordReader in) {
+            Payment payment = new Payment(in.string(), in.string(), in.string(), in.string(),
+                                          in.strings().toArray(new String[0]), in.number(), in.string(), in.string());
+            payment.setStatus(in.string());
+            return payment;
+        }
+    };
+    
     // Get the directory where the class files are located
     private String getFilePath(String filename) {
         try {
@@ -201,106 +279,132 @@ public class FileHandler {
     }
     
     /**
-     * Reads all students from file
+     * Reads all students (served from the shared repository cache)
      */
     public List<Student> readStudents() {
-    List<Student> students = new ArrayList<>();
-    String filepath = getFilePath(STUDENTS_FILE);
-    
-    System.out.println("🔍 DEBUG: Reading students from: " + filepath);
+        return DataRepository.getInstance().getStudents();
+    }
     
-    try (BufferedReader reader = new BufferedReader(new FileReader(filepath))) {
-        String line;
-        int lineNumber = 0;
-        while ((line = reader.readLine()) != null) {
-            lineNumber++;
-            if (line.trim().isEmpty()) continue;
-            
-            String[] parts = line.split(",");
-            // Expected format: StudentID,IC,Password,Name,Email,Phone,Address,Level,Month,Subjects
-            if (parts.length >= 9) {
-                try {
-                    Student student = new Student(
-                        parts[0].trim(), // userId (STU001)
-                        parts[1].trim(), // ic (0538291933)
-                        parts[0].trim(), // username (using userId)
-                        parts[2].trim(), // password (password123)
-                        parts[3].trim(), // name (Vince) <- THIS IS THE IMPORTANT FIX
-                        parts[4].trim(), // email (vince@gmail.com)
-                        parts[5].trim(), // phone (019-222-333)
-                        parts[6].trim(), // address (Kuala Lumpur)
-                        parts[7].trim(), // level (Form 5)
-                        parts[8].trim()  // enrollmentMonth (January)
-                    );
-                    
-                    // Handle subjects if they exist
-                    if (parts.length > 9 && !parts[9].trim().isEmpty()) {
-                        student.setSubjectsFromString(parts[9].trim());
-                    }
-                    
+    /**
+     * Parses all students from file
+     */
+    List<Student> loadStudentsFromDisk() {
+        List<Student> snapshot = loadSnapshot(STUDENTS_FILE, STUDENT_CODEC);
+        if (snapshot != null) return snapshot;
+        
+        List<Student> students = new ArrayList<>();
+        String filepath = getFilePath(STUDENTS_FILE);
+        long[] source = BinarySnapshot.stat(new File(filepath));
+        
+        System.out.println("🔍 DEBUG: Reading students from: " + filepath);
+        
+        try (BufferedReader reader = openForRead(STUDENTS_FILE)) {
+            CsvTokenizer csv = new CsvTokenizer(reader);
+            int lineNumber = 0;
+            while (csv.next()) {
+                lineNumber++;
+                
+                Student student = parseStudent(csv, lineNumber);
+                if (student != null) {
                     students.add(student);
-                    
-                    // DEBUG: Print what we're reading
-                    System.out.println("🔍 DEBUG: Read student - ID: " + parts[0].trim() + 
-                                     ", Name: " + parts[3].trim() + 
-                                     ", IC: " + parts[1].trim());
-                    
-                } catch (Exception e) {
-                    System.err.println("❌ Error parsing line " + lineNumber + ": " + line);
-                    System.err.println("❌ Error details: " + e.getMessage());
                 }
-            } else {
-                System.err.println("⚠️ WARNING: Invalid line " + lineNumber + " (expected 9+ fields, got " + parts.length + "): " + line);
             }
+        } catch (IOException e) {
+            System.err.println("❌ Error reading students file: " + e.getMessage());
         }
-    } catch (IOException e) {
-        System.err.println("❌ Error reading students file: " + e.getMessage());
+        
+        System.out.println("✅ Successfully read " + students.size() + " students");
+        saveSnapshot(STUDENTS_FILE, source, students, STUDENT_CODEC);
+        return students;
     }
     
-    System.out.println("✅ Successfully read " + students.size() + " students");
-    return students;
-}
-    
     /**
-     * Writes all students to file
+     * Parses one students.txt record, or returns null if it is malformed
      */
-    public boolean writeStudents(List<Student> students) {
-        String filepath = getFilePath(STUDENTS_FILE);
+    static Student parseStudentLine(String line, int lineNumber) {
+        CsvTokenizer csv = new CsvTokenizer();
+        csv.reset(line);
+        return parseStudent(csv, lineNumber);
+    }
+    
+    static Student parseStudent(CsvTokenizer csv, int lineNumber) {
+        // Expected format: StudentID,IC,Password,Name,Email,Phone,Address,Level,Month,Subjects
+        if (csv.fieldCount() < 9) {
+            System.err.println("⚠️ WARNING: Invalid line " + lineNumber + " (expected 9+ fields, got " + csv.fieldCount() + "): " + csv.line());
+            return null;
+        }
         
-        try (PrintWriter writer = new PrintWriter(new FileWriter(filepath))) {
-            for (Student student : students) {
-                writer.println(student.toFileString());
+        try {
+            String studentId = csv.field(0);
+            Student student = new Student(
+                studentId,       // userId (STU001)
+                csv.field(1),    // ic (0538291933)
+                studentId,       // username (using userId)
+                csv.field(2),    // password (password123)
+                csv.field(3),    // name (Vince) <- THIS IS THE IMPORTANT FIX
+                csv.field(4),    // email (vince@gmail.com)
+                csv.field(5),    // phone (019-222-333)
+                csv.field(6),    // address (Kuala Lumpur)
+                csv.field(7),    // level (Form 5)
+                csv.field(8),    // enrollmentMonth (January)
+                null,
+                0.0
+            );
+            
+            // Handle subjects if they exist
+            if (!csv.isEmpty(9)) {
+                student.setSubjectsFromString(csv.field(9));
             }
-            return true;
-        } catch (IOException e) {
-            System.err.println("Error writing students file: " + e.getMessage());
-            return false;
+            
+            // DEBUG: Print what we're reading
+            System.out.println("🔍 DEBUG: Read student - ID: " + studentId + 
+                             ", Name: " + student.getName() + 
+                             ", IC: " + student.getIc());
+            return student;
+        } catch (Exception e) {
+            System.err.println("❌ Error parsing line " + lineNumber + ": " + csv.line());
+            System.err.println("❌ Error details: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Writes all students to file and refreshes the repository cache
+     */
+    public boolean writeStudents(List<Student> students) {
+        return DataRepository.getInstance().saveStudents(students);
+    }
+    
+    boolean writeStudentsToDisk(List<Student> students) {
+        List<String> lines = new ArrayList<>();
+        for (Student student : students) {
+            lines.add(student.toFileString());
         }
+        return writeLines(STUDENTS_FILE, lines) && saveSnapshot(STUDENTS_FILE, students, STUDENT_CODEC);
     }
     
     /**
-     * Reads all tutors from file
+     * Reads all tutors (served from the shared repository cache)
      */
     public List<Tutor> readTutors() {
+        return DataRepository.getInstance().getTutors();
+    }
+    
+    /**
+     * Parses all tutors from file
+     */
+    List<Tutor> loadTutorsFromDisk() {
+        List<Tutor> snapshot = loadSnapshot(TUTORS_FILE, TUTOR_CODEC);
+        if (snapshot != null) return snapshot;
+        
         List<Tutor> tutors = new ArrayList<>();
-        String filepath = getFilePath(TUTORS_FILE);
+        long[] source = BinarySnapshot.stat(new File(getFilePath(TUTORS_FILE)));
         
-        try (BufferedReader reader = new BufferedReader(new FileReader(filepath))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.trim().isEmpty()) continue;
-                
-                String[] parts = line.split(",");
-                if (parts.length >= 6) {
-                    Tutor tutor = new Tutor(
-                        parts[0].trim(), // userId
-                        parts[1].trim(), // username
-                        parts[2].trim(), // password
-                        parts[1].trim(), // name (using username as placeholder)
-                        parts[3].trim(), // email
-                        parts[5].trim(), // phone
-                        parts[4].trim()  // dateOfBirth
-                    );
+        try (BufferedReader reader = openForRead(TUTORS_FILE)) {
+            CsvTokenizer csv = new CsvTokenizer(reader);
+            while (csv.next()) {
+                Tutor tutor = parseTutor(csv);
+                if (tutor != null) {
                     tutors.add(tutor);
                 }
             }
@@ -308,31 +412,49 @@ public class FileHandler {
             System.err.println("Error reading tutors file: " + e.getMessage());
         }
         
+        saveSnapshot(TUTORS_FILE, source, tutors, TUTOR_CODEC);
         return tutors;
     }
     
+    static Tutor parseTutorLine(String line) {
+        CsvTokenizer csv = new CsvTokenizer();
+        csv.reset(line);
+        return parseTutor(csv);
+    }
+    
+    static Tutor parseTutor(CsvTokenizer csv) {
+        if (csv.fieldCount() < 6) return null;
+        
+        String username = csv.field(1);
+        return new Tutor(
+            csv.field(0), // userId
+            username,     // username
+            csv.field(2), // password
+            username,     // name (using username as placeholder)
+            csv.field(3), // email
+            csv.field(5), // phone
+            csv.field(4)  // dateOfBirth
+        );
+    }
+    
     /**
-     * Reads all receptionists from file
+     * Reads all receptionists (served from the shared repository cache)
      */
     public List<Receptionist> readReceptionists() {
+        return DataRepository.getInstance().getReceptionists();
+    }
+    
+    /**
+     * Parses all receptionists from file
+     */
+    List<Receptionist> loadReceptionistsFromDisk() {
         List<Receptionist> receptionists = new ArrayList<>();
-        String filepath = getFilePath(RECEPTIONISTS_FILE);
         
-        try (BufferedReader reader = new BufferedReader(new FileReader(filepath))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.trim().isEmpty()) continue;
-                
-                String[] parts = line.split(",");
-                if (parts.length >= 6) {
-                    Receptionist receptionist = new Receptionist(
-                        parts[0].trim(), // userId
-                        parts[1].trim(), // username
-                        parts[2].trim(), // password
-                        parts[3].trim(), // name
-                        parts[4].trim(), // email
-                        parts[5].trim()  // phone
-                    );
+        try (BufferedReader reader = openForRead(RECEPTIONISTS_FILE)) {
+            CsvTokenizer csv = new CsvTokenizer(reader);
+            while (csv.next()) {
+                Receptionist receptionist = parseReceptionist(csv);
+                if (receptionist != null) {
                     receptionists.add(receptionist);
                 }
             }
@@ -343,52 +465,69 @@ public class FileHandler {
         return receptionists;
     }
     
+    static Receptionist parseReceptionistLine(String line) {
+        CsvTokenizer csv = new CsvTokenizer();
+        csv.reset(line);
+        return parseReceptionist(csv);
+    }
+    
+    static Receptionist parseReceptionist(CsvTokenizer csv) {
+        if (csv.fieldCount() < 6) return null;
+        
+        return new Receptionist(
+            csv.field(0), // userId
+            csv.field(1), // username
+            csv.field(2), // password
+            csv.field(3), // name
+            csv.field(4), // email
+            csv.field(5)  // phone
+        );
+    }
+    
+    static String formatReceptionistLine(Receptionist receptionist) {
+        return CsvTokenizer.join(
+            receptionist.getUserId(),
+            receptionist.getUsername(),
+            receptionist.getPassword(),
+            receptionist.getName(),
+            receptionist.getEmail(),
+            receptionist.getPhone()
+        );
+    }
+    
     /**
-     * Writes all receptionists to file
+     * Writes all receptionists to file and refreshes the repository cache
      */
     public boolean writeReceptionists(List<Receptionist> receptionists) {
-        String filepath = getFilePath(RECEPTIONISTS_FILE);
-        
-        try (PrintWriter writer = new PrintWriter(new FileWriter(filepath))) {
-            for (Receptionist receptionist : receptionists) {
-                writer.println(String.format("%s,%s,%s,%s,%s,%s",
-                    receptionist.getUserId(),
-                    receptionist.getUsername(),
-                    receptionist.getPassword(),
-                    receptionist.getName(),
-                    receptionist.getEmail(),
-                    receptionist.getPhone()
-                ));
-            }
-            return true;
-        } catch (IOException e) {
-            System.err.println("Error writing receptionists file: " + e.getMessage());
-            return false;
+        return DataRepository.getInstance().saveReceptionists(receptionists);
+    }
+    
+    boolean writeReceptionistsToDisk(List<Receptionist> receptionists) {
+        List<String> lines = new ArrayList<>();
+        for (Receptionist receptionist : receptionists) {
+            lines.add(formatReceptionistLine(receptionist));
         }
+        return writeLines(RECEPTIONISTS_FILE, lines);
     }
     
     /**
-     * Reads all admins from file
+     * Reads all admins (served from the shared repository cache)
      */
     public List<Admin> readAdmins() {
+        return DataRepository.getInstance().getAdmins();
+    }
+    
+    /**
+     * Parses all admins from file
+     */
+    List<Admin> loadAdminsFromDisk() {
         List<Admin> admins = new ArrayList<>();
-        String filepath = getFilePath(ADMINS_FILE);
         
-        try (BufferedReader reader = new BufferedReader(new FileReader(filepath))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.trim().isEmpty()) continue;
-                
-                String[] parts = line.split(",");
-                if (parts.length >= 6) {
-                    Admin admin = new Admin(
-                        parts[0].trim(), // userId
-                        parts[1].trim(), // username
-                        parts[2].trim(), // password
-                        parts[3].trim(), // name
-                        parts[4].trim(), // email
-                        parts[5].trim()  // phone
-                    );
+        try (BufferedReader reader = openForRead(ADMINS_FILE)) {
+            CsvTokenizer csv = new CsvTokenizer(reader);
+            while (csv.next()) {
+                Admin admin = parseAdmin(csv);
+                if (admin != null) {
                     admins.add(admin);
                 }
             }
@@ -399,65 +538,109 @@ public class FileHandler {
         return admins;
     }
     
+    static Admin parseAdminLine(String line) {
+        CsvTokenizer csv = new CsvTokenizer();
+        csv.reset(line);
+        return parseAdmin(csv);
+    }
+    
+    static Admin parseAdmin(CsvTokenizer csv) {
+        if (csv.fieldCount() < 6) return null;
+        
+        return new Admin(
+            csv.field(0), // userId
+            csv.field(1), // username
+            csv.field(2), // password
+            csv.field(3), // name
+            csv.field(4), // email
+            csv.field(5)  // phone
+        );
+    }
+    
     /**
-     * Reads all classes from file
+     * Reads all classes (served from the shared repository cache)
      */
     public List<ClassInfo> readClasses() {
+        return DataRepository.getInstance().getClasses();
+    }
+    
+    /**
+     * Parses all classes from file
+     */
+    List<ClassInfo> loadClassesFromDisk() {
+        List<ClassInfo> snapshot = loadSnapshot(CLASSES_FILE, CLASS_CODEC);
+        if (snapshot != null) return snapshot;
+        
         List<ClassInfo> classes = new ArrayList<>();
-        String filepath = getFilePath(CLASSES_FILE);
+        long[] source = BinarySnapshot.stat(new File(getFilePath(CLASSES_FILE)));
         
-        try (BufferedReader reader = new BufferedReader(new FileReader(filepath))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.trim().isEmpty()) continue;
-                
-                // Split by comma, but be careful with descriptions that might contain commas
-                String[] parts = line.split(",");
-                if (parts.length >= 6) {
-                    try {
-                        String classId = parts[0].trim();
-                        String tutorId = parts[1].trim();
-                        String subject = parts[2].trim();
-                        
-                        // Handle description that might span multiple parts due to commas
-                        StringBuilder description = new StringBuilder();
-                        int descStart = 3;
-                        int descEnd = parts.length - 2; // Last two parts are schedule and fee
-                        
-                        for (int i = descStart; i < descEnd; i++) {
-                            if (description.length() > 0) description.append(",");
-                            description.append(parts[i].trim());
-                        }
-                        
-                        String schedule = parts[parts.length - 2].trim();
-                        double fee = Double.parseDouble(parts[parts.length - 1].trim());
-                        
-                        ClassInfo classInfo = new ClassInfo(
-                            classId,
-                            tutorId,
-                            subject,
-                            description.toString(),
-                            schedule,
-                            fee
-                        );
-                        classes.add(classInfo);
-                    } catch (NumberFormatException e) {
-                        System.err.println("Error parsing fee for line: " + line);
-                        continue; // Skip this line and continue with next
-                    }
+        try (BufferedReader reader = openForRead(CLASSES_FILE)) {
+            CsvTokenizer csv = new CsvTokenizer(reader);
+            while (csv.next()) {
+                ClassInfo classInfo = parseClass(csv);
+                if (classInfo != null) {
+                    classes.add(classInfo);
                 }
             }
         } catch (IOException e) {
             System.err.println("Error reading classes file: " + e.getMessage());
         }
         
+        saveSnapshot(CLASSES_FILE, source, classes, CLASS_CODEC);
         return classes;
     }
     
+    static ClassInfo parseClassLine(String line) {
+        CsvTokenizer csv = new CsvTokenizer();
+        csv.reset(line);
+        return parseClass(csv);
+    }
+    
+    static ClassInfo parseClass(CsvTokenizer csv) {
+        int count = csv.fieldCount();
+        if (count < 6) return null;
+        
+        try {
+            // Descriptions with commas are written quoted; older files may still have
+            // them unquoted, in which case the description spans the middle fields
+            String description = count == 6 ? csv.field(3) : csv.span(3, count - 3);
+            
+            return new ClassInfo(
+                csv.field(0), // classId
+                csv.field(1), // tutorId
+                csv.field(2), // subject
+                description,
+                csv.field(count - 2), // schedule
+                csv.parseDouble(count - 1) // fee
+            );
+        } catch (NumberFormatException e) {
+            System.err.println("Error parsing fee for line: " + csv.line());
+            return null; // Skip this line and continue with next
+        }
+    }
+    
+    static String formatClassLine(ClassInfo classInfo) {
+        return CsvTokenizer.join(
+            classInfo.getClassId(),
+            classInfo.getTutorId(),
+            classInfo.getSubject(),
+            classInfo.getDescription(),
+            classInfo.getSchedule(),
+            String.valueOf(classInfo.getFee())
+        );
+    }
+    
     /**
-     * Reads payments from file with enhanced format
+     * Reads payments (served from the shared repository cache)
      */
     public List<Payment> readPayments() {
+        return DataRepository.getInstance().getPayments();
+    }
+    
+    /**
+     * Parses payments from file with enhanced format
+     */
+    List<Payment> loadPaymentsFromDisk() {
         List<Payment> payments = new ArrayList<>();
         String filepath = getFilePath(PAYMENTS_FILE);
         File file = new File(filepath);
@@ -472,137 +655,309 @@ public class FileHandler {
             return payments;
         }
         
-        try (BufferedReader reader = new BufferedReader(new FileReader(filepath))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.trim().isEmpty()) continue;
-                
-                String[] parts = line.split(",");
-                if (parts.length >= 7) { // Enhanced format
-                    try {
-                        String paymentId = parts[0].trim();
-                        String receiptId = parts[1].trim();
-                        String studentId = parts[2].trim();
-                        String studentName = parts[3].trim();
-                        String[] classIds = parts[4].split(";");
-                        double amount = Double.parseDouble(parts[5].trim());
-                        String paymentDate = parts[6].trim();
-                        String paymentMethod = parts.length > 7 ? parts[7].trim() : "Cash";
-                        
-                        Payment payment = new Payment(
-                            paymentId, receiptId, studentId, studentName,
-                            classIds, amount, paymentDate, paymentMethod
-                        );
-                        
-                        if (parts.length > 8) {
-                            payment.setStatus(parts[8].trim());
-                        }
-                        
-                        payments.add(payment);
-                    } catch (NumberFormatException e) {
-                        System.err.println("Error parsing payment amount in line: " + line);
-                    }
+        List<Payment> snapshot = loadSnapshot(PAYMENTS_FILE, PAYMENT_CODEC);
+        if (snapshot != null) return snapshot;
+        long[] source = BinarySnapshot.stat(file);
+        
+        if (!MutationJournal.forFile(PAYMENTS_FILE).isActive()) {
+            // Fast path: decode fields straight from the mapped ledger, chunks in parallel
+            try {
+                payments.addAll(ParallelLedgerScan.aggregate(PAYMENTS_FILE, PAYMENT_LINES));
+                saveSnapshot(PAYMENTS_FILE, source, payments, PAYMENT_CODEC);
+                return payments;
+            } catch (IOException e) {
+                System.err.println("Error mapping payments file, falling back to reader: " + e.getMessage());
+                payments.clear();
+            }
+        }
+        
+        try (BufferedReader reader = openForRead(PAYMENTS_FILE)) {
+            CsvTokenizer csv = new CsvTokenizer(reader);
+            while (csv.next()) {
+                Payment payment = parsePayment(csv);
+                if (payment != null) {
+                    payments.add(payment);
                 }
             }
         } catch (IOException e) {
             System.err.println("Error reading payments file: " + e.getMessage());
         }
         
+        saveSnapshot(PAYMENTS_FILE, source, payments, PAYMENT_CODEC);
         return payments;
     }
     
+    // Payments of each ledger chunk in file order; chunks are concatenated in order
+    private static final ParallelLedgerScan.Aggregation<List<Payment>> PAYMENT_LINES =
+        new ParallelLedgerScan.Aggregation<List<Payment>>() {
+            @Override
+            public List<Payment> create() {
+                return new ArrayList<>();
+            }
+
+            @Override
+            public void accumulate(List<Payment> payments, MappedLedgerReader.Record record) {
+                Payment payment = toPayment(record);
+                if (payment != null) {
+                    payments.add(payment);
+                }
+            }
+
+            @Override
+            public List<Payment> merge(List<Payment> left, List<Payment> right) {
+                left.addAll(right);
+                return left;
+            }
+        };
+    
+    private static Payment toPayment(MappedLedgerReader.Record record) {
+        if (record.fieldCount() < 7) return null; // Enhanced format
+        
+        try {
+            double amount = record.parseDouble(5);
+            Payment payment = new Payment(
+                record.field(0), record.field(1), record.field(2), record.field(3),
+                record.field(4).split(";"), amount, record.field(6),
+                record.fieldCount() > 7 ? record.field(7) : "Cash"
+            );
+            if (record.fieldCount() > 8) {
+                payment.setStatus(record.field(8));
+            }
+            return payment;
+        } catch (NumberFormatException e) {
+            System.err.println("Error parsing payment amount for payment: " + record.field(0));
+            return null;
+        }
+    }
+    
+    static Payment parsePaymentLine(String line) {
+        CsvTokenizer csv = new CsvTokenizer();
+        csv.reset(line);
+        return parsePayment(csv);
+    }
+    
+    static Payment parsePayment(CsvTokenizer csv) {
+        if (csv.fieldCount() < 7) return null; // Enhanced format
+        
+        try {
+            Payment payment = new Payment(
+                csv.field(0), // paymentId
+                csv.field(1), // receiptId
+                csv.field(2), // studentId
+                csv.field(3), // studentName
+                csv.field(4).split(";"), // classIds
+                csv.parseDouble(5), // amount
+                csv.field(6), // paymentDate
+                csv.fieldCount() > 7 ? csv.field(7) : "Cash"
+            );
+            
+            if (csv.fieldCount() > 8) {
+                payment.setStatus(csv.field(8));
+            }
+            return payment;
+        } catch (NumberFormatException e) {
+            System.err.println("Error parsing payment amount in line: " + csv.line());
+            return null;
+        }
+    }
+    
+    static String formatPaymentLine(Payment payment) {
+        // Enhanced format: PaymentID,ReceiptID,StudentID,StudentName,ClassIDs,Amount,Date,Method,Status
+        return CsvTokenizer.join(
+            payment.getPaymentId(),
+            payment.getReceiptId(),
+            payment.getStudentId(),
+            payment.getStudentName(),
+            payment.getClassIdsString().replace(", ", ";"),
+            String.format("%.2f", payment.getAmount()),
+            payment.getPaymentDate(),
+            payment.getPaymentMethod(),
+            payment.getStatus()
+        );
+    }
+    
     /**
-     * Writes payments to file with enhanced format
+     * Writes payments to file and refreshes the repository cache
      */
     public boolean writePayments(List<Payment> payments) {
-        String filepath = getFilePath(PAYMENTS_FILE);
+        return DataRepository.getInstance().savePayments(payments);
+    }
+    
+    boolean writePaymentsToDisk(List<Payment> payments) {
+        List<String> lines = new ArrayList<>();
+        for (Payment payment : payments) {
+            lines.add(formatPaymentLine(payment));
+        }
+        return writeLines(PAYMENTS_FILE, lines) && saveSnapshot(PAYMENTS_FILE, payments, PAYMENT_CODEC);
+    }
+    
+    /**
+     * Opens a data file for reading. When journal mode is on, the reader sees the
+     * snapshot with all journaled mutations applied.
+     */
+    private BufferedReader openForRead(String filename) throws IOException {
+        MutationJournal journal = MutationJournal.forFile(filename);
+        if (journal.isActive()) {
+            return new BufferedReader(new StringReader(String.join("\n", journal.materialize())));
+        }
+        return new BufferedReader(new FileReader(getFilePath(filename)));
+    }
+    
+    /**
+     * Loads a file from its binary snapshot when enabled and still current; null means parse the text
+     */
+    private <T> List<T> loadSnapshot(String filename, BinarySnapshot.Codec<T> codec) {
+        if (!BinarySnapshot.isEnabled() || MutationJournal.forFile(filename).isActive()) return null;
+        return BinarySnapshot.load(new File(getFilePath(filename)), codec);
+    }
+    
+    /**
+     * Stores freshly parsed rows, stamped with the text file's state from before the parse
+     */
+    private <T> void saveSnapshot(String filename, long[] source, List<T> rows, BinarySnapshot.Codec<T> codec) {
+        if (!BinarySnapshot.isEnabled() || MutationJournal.forFile(filename).isActive()) return;
+        BinarySnapshot.save(new File(getFilePath(filename)), source, rows, codec);
+    }
+    
+    /**
+     * Stores rows that were just written to the text file. A failed snapshot only costs a
+     * text parse on the next load, so it never fails the write itself.
+     */
+    private <T> boolean saveSnapshot(String filename, List<T> rows, BinarySnapshot.Codec<T> codec) {
+        File file = new File(getFilePath(filename));
+        saveSnapshot(filename, BinarySnapshot.stat(file), rows, codec);
+        return true;
+    }
+    
+    /**
+     * Rewrites a whole data file. Any pending journal is folded into the new snapshot.
+     */
+    private boolean writeLines(String filename, List<String> lines) {
+        MutationJournal journal = MutationJournal.forFile(filename);
+        if (journal.isActive()) {
+            return journal.replaceSnapshot(lines);
+        }
         
-        try (PrintWriter writer = new PrintWriter(new FileWriter(filepath))) {
-            for (Payment payment : payments) {
-                // Enhanced format: PaymentID,ReceiptID,StudentID,StudentName,ClassIDs,Amount,Date,Method,Status
-                writer.println(String.format("%s,%s,%s,%s,%s,%.2f,%s,%s,%s",
-                    payment.getPaymentId(),
-                    payment.getReceiptId(),
-                    payment.getStudentId(),
-                    payment.getStudentName(),
-                    payment.getClassIdsString().replace(", ", ";"),
-                    payment.getAmount(),
-                    payment.getPaymentDate(),
-                    payment.getPaymentMethod(),
-                    payment.getStatus()
-                ));
+        try (PrintWriter writer = new PrintWriter(new FileWriter(getFilePath(filename)))) {
+            for (String line : lines) {
+                writer.println(line);
             }
             return true;
         } catch (IOException e) {
-            System.err.println("Error writing payments file: " + e.getMessage());
+            System.err.println("Error writing " + filename + ": " + e.getMessage());
             return false;
         }
     }
     
     /**
-     * Generates next receipt ID
+     * Returns the stored line of the record whose first column is key, with the
+     * journal applied in journal mode, or null if there is none
      */
-    public String generateNextReceiptId() {
-        List<Payment> payments = readPayments();
-        int maxId = 0;
-        
-        for (Payment payment : payments) {
-            String id = payment.getReceiptId();
-            if (id.startsWith("RCP")) {
-                try {
-                    int num = Integer.parseInt(id.substring(3));
-                    maxId = Math.max(maxId, num);
-                } catch (NumberFormatException e) {
-                    // Ignore invalid IDs
-                }
+    String readRecord(String filename, String key) {
+        MutationJournal journal = MutationJournal.forFile(filename);
+        if (journal.isActive()) {
+            for (String line : journal.materialize()) {
+                if (MutationJournal.keyOf(line).equals(key)) return line;
             }
+            return null;
         }
         
-        return String.format("RCP%03d", maxId + 1);
+        try (BufferedReader reader = new BufferedReader(new FileReader(getFilePath(filename)))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (MutationJournal.keyOf(line).equals(key)) return line;
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading " + filename + ": " + e.getMessage());
+        }
+        return null;
     }
     
     /**
-     * Generates next student ID
+     * Replaces (or removes, when line is null) the record whose first column is key.
+     * In journal mode this is a single append; otherwise the file is rewritten.
+     * @return true if a matching record existed or was inserted
      */
-    public String generateNextStudentId() {
-        List<Student> students = readStudents();
-        int maxId = 0;
+    boolean writeRecord(String filename, String key, String line, boolean insertIfMissing) {
+        return startWriteRecord(filename, key, line, insertIfMissing).join();
+    }
+    
+    /**
+     * Starts writeRecord without waiting for it. In journal mode the entry is
+     * queued for the next group commit and the future completes once it is
+     * durable; otherwise the file is rewritten before this returns.
+     */
+    CompletableFuture<Boolean> startWriteRecord(String filename, String key, String line, boolean insertIfMissing) {
+        MutationJournal journal = MutationJournal.forFile(filename);
+        if (journal.isActive()) {
+            return line == null ? journal.enqueueDelete(key) : journal.enqueueUpsert(line);
+        }
+        return CompletableFuture.completedFuture(rewriteRecord(filename, key, line, insertIfMissing));
+    }
+    
+    private boolean rewriteRecord(String filename, String key, String line, boolean insertIfMissing) {
+
+        File file = new File(getFilePath(filename));
+        List<String> lines = new ArrayList<>();
+        boolean found = false;
         
-        for (Student student : students) {
-            String id = student.getUserId();
-            if (id.startsWith("STU")) {
-                try {
-                    int num = Integer.parseInt(id.substring(3));
-                    maxId = Math.max(maxId, num);
-                } catch (NumberFormatException e) {
-                    // Ignore invalid IDs
+        if (file.exists()) {
+            try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+                String existing;
+                while ((existing = reader.readLine()) != null) {
+                    if (!found && MutationJournal.keyOf(existing).equals(key)) {
+                        found = true;
+                        if (line != null) lines.add(line);
+                    } else {
+                        lines.add(existing);
+                    }
                 }
+            } catch (IOException e) {
+                System.err.println("Error reading " + filename + ": " + e.getMessage());
+                return false;
             }
         }
         
-        return String.format("STU%03d", maxId + 1);
+        if (!found) {
+            if (line == null || !insertIfMissing) return false;
+            lines.add(line);
+        }
+        return writeLines(filename, lines);
+    }
+    
+    /**
+     * Appends one record to the end of a data file without touching existing lines.
+     * Concurrent appends are batched into a single durable write by GroupCommitWriter.
+     * In journal mode the record goes to the journal instead, so a compaction
+     * cannot drop it.
+     */
+    boolean appendLine(String filename, String line) {
+        MutationJournal journal = MutationJournal.forFile(filename);
+        if (journal.isActive()) {
+            return journal.upsert(line);
+        }
+        return GroupCommitWriter.getInstance().append(new File(getFilePath(filename)), line);
+    }
+    
+    /**
+     * Generates next receipt ID
+     */
+    public String generateNextReceiptId() {
+        return IdSequence.getInstance().next("RCP");
+    }
+    
+    /**
+     * Generates next student ID
+     */
+    public String generateNextStudentId() {
+        return IdSequence.getInstance().next("STU");
     }
     
     /**
      * Generates next payment ID
      */
     public String generateNextPaymentId() {
-        List<Payment> payments = readPayments();
-        int maxId = 0;
-        
-        for (Payment payment : payments) {
-            String id = payment.getPaymentId();
-            if (id.startsWith("PAY")) {
-                try {
-                    int num = Integer.parseInt(id.substring(3));
-                    maxId = Math.max(maxId, num);
-                } catch (NumberFormatException e) {
-                    // Ignore invalid IDs
-                }
-            }
-        }
-        
-        return String.format("PAY%03d", maxId + 1);
+        return IdSequence.getInstance().next("PAY");
     }
     
     /**
@@ -626,12 +981,12 @@ public class FileHandler {
                 
                 List<String> filtered = new ArrayList<>();
                 boolean found = false;
+                CsvTokenizer csv = new CsvTokenizer();
                 for (String line : lines) {
-                    String[] p = line.split(",");
-                    if (p.length >= 5 &&
-                        p[0].trim().equalsIgnoreCase(requestId) &&
-                        p[1].trim().equals(studentId) &&
-                        p[4].trim().equalsIgnoreCase("Pending")) {
+                    if (csv.reset(line) >= 5 &&
+                        csv.fieldEqualsIgnoreCase(0, requestId) &&
+                        csv.fieldEquals(1, studentId) &&
+                        csv.fieldEqualsIgnoreCase(4, "Pending")) {
                         found = true; // Skip this line (delete it)
                     } else {
                         filtered.add(line);
@@ -656,13 +1011,12 @@ public class FileHandler {
         public static List<String> getPendingRequestsForStudent(String studentId) {
             List<String> out = new ArrayList<>();
             try (BufferedReader br = new BufferedReader(new FileReader(FILE))) {
-                String line;
-                while ((line = br.readLine()) != null) {
-                    String[] p = line.split(",");
-                    if (p.length >= 5 &&
-                            p[1].trim().equals(studentId) &&
-                            p[4].trim().equalsIgnoreCase("Pending")) {
-                        out.add(line);
+                CsvTokenizer csv = new CsvTokenizer(br);
+                while (csv.next()) {
+                    if (csv.fieldCount() >= 5 &&
+                            csv.fieldEquals(1, studentId) &&
+                            csv.fieldEqualsIgnoreCase(4, "Pending")) {
+                        out.add(csv.line());
                     }
                 }
             } catch (IOException ignored) {}
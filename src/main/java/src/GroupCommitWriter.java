@@ -0,0 +1,151 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * GroupCommitWriter funnels record appends from every thread through one
+ * flusher. Appends that arrive within a short window are written together and
+ * made durable with a single fsync per file; each caller waits until the batch
+ * holding its record has been flushed. Callers that hold locks enqueue() under
+ * them and wait on the returned future after letting go, so writers of
+ * different records can still share a batch.
+ *
+ * Under bursty traffic (front desk registering students while payments are being
+ * taken) the number of opens and fsyncs grows with the number of batches rather
+ * than with the number of records.
+ */
+class GroupCommitWriter {
+    private static final long WINDOW_MICROS = Long.getLong("atc.groupCommit.windowMicros", 2000);
+    private static final int MAX_BATCH = Integer.getInteger("atc.groupCommit.maxBatch", 256);
+    private static final GroupCommitWriter INSTANCE = new GroupCommitWriter();
+
+    private final BlockingQueue<PendingAppend> queue = new LinkedBlockingQueue<>();
+    private volatile long batches;
+    private volatile long records;
+
+    private GroupCommitWriter() {
+        Thread flusher = new Thread(this::flushLoop, "group-commit-writer");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    static GroupCommitWriter getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Appends one line (a newline is added) and waits until it is on disk
+     * @return false if the write failed
+     */
+    boolean append(File file, String line) {
+        try {
+            return enqueue(file, line).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Queues one line for the next batch without waiting. Lines queued by one
+     * thread are written in the order they were queued.
+     * @return completes with true once the line is on disk, false if the write failed
+     */
+    CompletableFuture<Boolean> enqueue(File file, String line) {
+        PendingAppend pending = new PendingAppend(file.getAbsoluteFile(), line);
+        queue.add(pending);
+        return pending.done.handle((written, error) -> {
+            if (error == null) return written;
+            System.err.println("Error appending to " + file.getName() + ": " + error.getMessage());
+            return false;
+        });
+    }
+
+    long getBatchCount() { return batches; }
+    long getRecordCount() { return records; }
+
+    private void flushLoop() {
+        List<PendingAppend> batch = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(WINDOW_MICROS);
+                while (batch.size() < MAX_BATCH) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingAppend next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) break;
+                    batch.add(next);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<PendingAppend> batch) {
+        // Keep arrival order within each file
+        Map<File, List<PendingAppend>> byFile = new LinkedHashMap<>();
+        for (PendingAppend pending : batch) {
+            byFile.computeIfAbsent(pending.file, f -> new ArrayList<>()).add(pending);
+        }
+
+        for (Map.Entry<File, List<PendingAppend>> entry : byFile.entrySet()) {
+            List<PendingAppend> appends = entry.getValue();
+            try {
+                writeAll(entry.getKey(), appends);
+                for (PendingAppend pending : appends) pending.done.complete(true);
+            } catch (IOException e) {
+                for (PendingAppend pending : appends) pending.done.completeExceptionally(e);
+            }
+        }
+        batches++;
+        records += batch.size();
+    }
+
+    private void writeAll(File file, List<PendingAppend> appends) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                                                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            StringBuilder text = new StringBuilder();
+
+            // Never glue a record onto an unterminated last line
+            if (size > 0) {
+                ByteBuffer last = ByteBuffer.allocate(1);
+                channel.read(last, size - 1);
+                if (last.get(0) != '\n') text.append('\n');
+            }
+            for (PendingAppend pending : appends) {
+                text.append(pending.line).append('\n');
+            }
+
+            ByteBuffer bytes = ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8));
+            long position = size;
+            while (bytes.hasRemaining()) {
+                position += channel.write(bytes, position);
+            }
+            channel.force(false);
+        }
+    }
+
+    private static class PendingAppend {
+        final File file;
+        final String line;
+        final CompletableFuture<Boolean> done = new CompletableFuture<>();
+
+        PendingAppend(File file, String line) {
+            this.file = file;
+            this.line = line;
+        }
+    }
+}
\ No newline at end of file
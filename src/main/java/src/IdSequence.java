@@ -0,0 +1,151 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * IdSequence hands out record IDs (STU004, PAY012, CL031, ...) without scanning
+ * the data files.
+ *
+ * The highest reserved number per prefix is kept in id_sequences.txt. A process
+ * reserves a block of numbers at a time under an exclusive file lock and then
+ * serves IDs from memory, so several running copies of the app never hand out
+ * the same ID. Numbers left in a block when the app exits are skipped, which
+ * leaves gaps but never duplicates.
+ *
+ * The first time a prefix is used its data file is scanned once to seed the
+ * sequence from the highest existing ID. After that the sequence file is
+ * authoritative; delete it to reseed after editing the data files by hand.
+ */
+class IdSequence {
+    private static final String SEQUENCE_FILE = "id_sequences.txt";
+    private static final int BLOCK_SIZE = Integer.getInteger("atc.idBlockSize", 8);
+    private static final IdSequence INSTANCE = new IdSequence();
+
+    // prefix -> {data file, ID column} used for the one-off seed scan
+    private static final Map<String, Object[]> SOURCES = new LinkedHashMap<>();
+    static {
+        SOURCES.put("STU", new Object[] { "students.txt", 0 });
+        SOURCES.put("PAY", new Object[] { "payments.txt", 0 });
+        SOURCES.put("RCP", new Object[] { "payments.txt", 1 });
+        SOURCES.put("REQ", new Object[] { "Subject_Change_Requests.txt", 0 });
+        SOURCES.put("CL", new Object[] { "class.txt", 0 });
+        SOURCES.put("TC", new Object[] { "tutor.txt", 0 });
+        SOURCES.put("RC", new Object[] { "receptionist.txt", 0 });
+        SOURCES.put("AD", new Object[] { "admin.txt", 0 });
+    }
+
+    // prefix -> {next number to hand out, first number past the reserved block}
+    private final Map<String, int[]> blocks = new HashMap<>();
+
+    private IdSequence() {
+    }
+
+    static IdSequence getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Allocates the next ID for a prefix, e.g. next("STU") -> "STU005"
+     */
+    synchronized String next(String prefix) {
+        int[] block = blocks.get(prefix);
+        if (block == null || block[0] >= block[1]) {
+            block = reserveBlock(prefix);
+            blocks.put(prefix, block);
+        }
+        return String.format("%s%03d", prefix, block[0]++);
+    }
+
+    // Reserves BLOCK_SIZE numbers after the stored high-water mark
+    private int[] reserveBlock(String prefix) {
+        int high = updateFile(prefix, BLOCK_SIZE);
+        if (high < 0) {
+            // Sequence file unusable; fall back to a private scan so the app keeps working
+            int next = scanHighest(prefix) + 1;
+            return new int[] { next, next + 1 };
+        }
+        return new int[] { high - BLOCK_SIZE + 1, high + 1 };
+    }
+
+    /**
+     * Under the file lock: adds reserve to the stored mark for prefix
+     * @return the new high-water mark, or -1 on I/O failure
+     */
+    private int updateFile(String prefix, int reserve) {
+        File file = new File(System.getProperty("user.dir"), SEQUENCE_FILE);
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                                                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            channel.lock(); // held until the channel is closed
+            Map<String, Integer> marks = read(channel);
+
+            Integer stored = marks.get(prefix);
+            int high = stored != null ? stored : scanHighest(prefix);
+            high += reserve;
+            marks.put(prefix, high);
+
+            write(channel, marks);
+            return high;
+        } catch (IOException e) {
+            System.err.println("Error updating ID sequences: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    private Map<String, Integer> read(FileChannel channel) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate((int) channel.size());
+        while (bytes.hasRemaining() && channel.read(bytes, bytes.position()) > 0) {
+            // keep reading
+        }
+        Map<String, Integer> marks = new LinkedHashMap<>();
+        CsvTokenizer csv = new CsvTokenizer();
+        for (String line : new String(bytes.array(), StandardCharsets.UTF_8).split("\n")) {
+            if (csv.reset(line) >= 2 && !csv.isEmpty(0)) {
+                try {
+                    marks.put(csv.field(0), Integer.parseInt(csv.field(1)));
+                } catch (NumberFormatException ignored) {}
+            }
+        }
+        return marks;
+    }
+
+    private void write(FileChannel channel, Map<String, Integer> marks) throws IOException {
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<String, Integer> mark : marks.entrySet()) {
+            text.append(mark.getKey()).append(',').append(mark.getValue()).append('\n');
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8));
+        channel.truncate(0);
+        long position = 0;
+        while (bytes.hasRemaining()) {
+            position += channel.write(bytes, position);
+        }
+        channel.force(false);
+    }
+
+    /**
+     * Highest existing number for a prefix in its data file (including a pending journal)
+     */
+    private int scanHighest(String prefix) {
+        Object[] source = SOURCES.get(prefix);
+        if (source == null) return 0;
+        String filename = (String) source[0];
+        int column = (Integer) source[1];
+
+        int max = 0;
+        MutationJournal journal = MutationJournal.forFile(filename);
+        try (BufferedReader reader = journal.isActive()
+                 ? new BufferedReader(new StringReader(String.join("\n", journal.materialize())))
+                 : new BufferedReader(new FileReader(new File(System.getProperty("user.dir"), filename)))) {
+            CsvTokenizer csv = new CsvTokenizer(reader);
+            while (csv.next()) {
+                max = Math.max(max, csv.parseIdNumber(column, prefix));
+            }
+        } catch (IOException e) {
+            // Missing file: nothing allocated yet
+        }
+        return max;
+    }
+}
\ No newline at end of file
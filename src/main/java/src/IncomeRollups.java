@@ -0,0 +1,274 @@
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * IncomeRollups answers the monthly income report from totals keyed by
+ * (year-month, level, subject) instead of rescanning the ledger.
+ *
+ * A class contributes to a key for every month in its schedule; "Mathematics
+ * Form 1" is level "Form 1", subject "Mathematics". A payment's amount is split
+ * evenly over the classes it lists, and it counts once towards each key any of
+ * its classes fall under, the same attribution the report always used.
+ *
+ * Payments are grouped by the class list they cover (far fewer lists than
+ * payments). That grouping is a RowIndex on the payments table, so
+ * DataManager.processPayment's append patches it, and a reload of payments.txt
+ * rebuilds it in the same single pass as the parse. The keyed totals are
+ * patched alongside it and rebuilt from the groups, never from the ledger, when
+ * the class table changes.
+ */
+final class IncomeRollups {
+    private static final Pattern YEAR_MONTH = Pattern.compile("\\d{4}-\\d{2}");
+
+    /**
+     * Income and payment count for one key, or a run of keys added together
+     */
+    static final class Totals {
+        private double income;
+        private int payments;
+        private int classes;
+
+        double getIncome() { return income; }
+        int getPayments() { return payments; }
+        int getClasses() { return classes; }
+
+        private Totals copy() {
+            Totals copy = new Totals();
+            copy.income = income;
+            copy.payments = payments;
+            copy.classes = classes;
+            return copy;
+        }
+    }
+
+    // Payments that cover the same class list
+    private static final class PaymentGroup {
+        final String[] classIds;
+        int payments;
+        double amount;
+
+        PaymentGroup(String[] classIds) {
+            this.classIds = classIds;
+        }
+    }
+
+    private final Map<String, PaymentGroup> groups = new HashMap<>(); // class list -> payments covering it
+
+    // "level|subject" -> "yyyy-MM" -> totals, so a subject's months are one sorted map
+    private final Map<String, TreeMap<String, Totals>> rollups = new HashMap<>();
+    private Map<String, List<String[]>> classKeys; // normalised class ID -> {yyyy-MM, level|subject}
+    private long classesVersion = -1;
+
+    IncomeRollups() {
+    }
+
+    /**
+     * Income for one month, level and subject
+     */
+    synchronized Totals get(int year, int month, String level, String subject) {
+        TreeMap<String, Totals> months = rollups.get(seriesKey(level, subject));
+        Totals totals = months != null ? months.get(String.format("%04d-%02d", year, month)) : null;
+        return totals != null ? totals.copy() : new Totals();
+    }
+
+    /**
+     * Every month with income for a level and subject, oldest first
+     */
+    synchronized SortedMap<String, Totals> series(String level, String subject) {
+        SortedMap<String, Totals> copy = new TreeMap<>();
+        TreeMap<String, Totals> months = rollups.get(seriesKey(level, subject));
+        if (months != null) {
+            months.forEach((month, totals) -> copy.put(month, totals.copy()));
+        }
+        return copy;
+    }
+
+    /**
+     * Every key with a scheduled class, as "level|subject|yyyy-MM" in sorted order
+     */
+    synchronized SortedMap<String, Totals> all() {
+        SortedMap<String, Totals> copy = new TreeMap<>();
+        rollups.forEach((series, months) ->
+            months.forEach((month, totals) -> copy.put(series + "|" + month, totals.copy())));
+        return copy;
+    }
+
+    /**
+     * Rollups computed straight from a payment ledger, e.g. to check or redo the
+     * running ones after a correction. The ledger is grouped on a ForkJoinPool
+     * when parallel is set, in one pass on this thread otherwise.
+     */
+    static IncomeRollups fromLedger(String ledger, List<ClassInfo> classes, boolean parallel) throws IOException {
+        LedgerGrouping grouping = new LedgerGrouping();
+        return fromGroups(parallel ? ParallelLedgerScan.aggregate(ledger, grouping)
+                                   : ParallelLedgerScan.aggregateSequential(ledger, grouping), classes);
+    }
+
+    /**
+     * fromLedger on a given pool and chunk size
+     */
+    static IncomeRollups fromLedger(String ledger, List<ClassInfo> classes, ForkJoinPool pool,
+                                    int chunkBytes) throws IOException {
+        return fromGroups(ParallelLedgerScan.aggregate(ledger, new LedgerGrouping(), pool, chunkBytes), classes);
+    }
+
+    private static IncomeRollups fromGroups(Map<String, PaymentGroup> groups, List<ClassInfo> classes) {
+        IncomeRollups rollups = new IncomeRollups();
+        rollups.groups.putAll(groups);
+        rollups.rebuild(0, classes);
+        return rollups;
+    }
+
+    // Groups ledger lines the way paymentIndex() groups Payment rows
+    private static final class LedgerGrouping implements ParallelLedgerScan.Aggregation<Map<String, PaymentGroup>> {
+        @Override
+        public Map<String, PaymentGroup> create() {
+            return new HashMap<>();
+        }
+
+        @Override
+        public void accumulate(Map<String, PaymentGroup> groups, MappedLedgerReader.Record record) {
+            if (record.fieldCount() < 7) return; // FileHandler skips these too
+            double amount;
+            try {
+                amount = record.parseDouble(5);
+            } catch (NumberFormatException e) {
+                return;
+            }
+            String classList = record.field(4);
+            PaymentGroup group = groups.computeIfAbsent(classList, k -> new PaymentGroup(k.split(";")));
+            group.payments++;
+            group.amount += amount;
+        }
+
+        @Override
+        public Map<String, PaymentGroup> merge(Map<String, PaymentGroup> left, Map<String, PaymentGroup> right) {
+            for (PaymentGroup group : right.values()) {
+                PaymentGroup into = left.computeIfAbsent(String.join(";", group.classIds),
+                                                         k -> new PaymentGroup(group.classIds));
+                into.payments += group.payments;
+                into.amount += group.amount;
+            }
+            return left;
+        }
+    }
+
+    long classesVersion() {
+        synchronized (this) {
+            return classesVersion;
+        }
+    }
+
+    /**
+     * Re-derives the keyed totals for a new class table from the payment groups
+     */
+    synchronized void rebuild(long version, List<ClassInfo> classes) {
+        classKeys = new HashMap<>();
+        rollups.clear();
+        for (ClassInfo classInfo : classes) {
+            List<String[]> keys = keysOf(classInfo);
+            if (keys.isEmpty()) continue;
+            classKeys.put(DataRepository.normalize(classInfo.getClassId()), keys);
+            for (String[] key : keys) {
+                totals(key).classes++;
+            }
+        }
+        for (PaymentGroup group : groups.values()) {
+            apply(group.classIds, group.amount, group.payments);
+        }
+        classesVersion = version;
+    }
+
+    DataRepository.RowIndex<Payment> paymentIndex() {
+        return new DataRepository.RowIndex<Payment>() {
+            @Override
+            public void add(String key, Payment row) {
+                record(row, 1);
+            }
+
+            @Override
+            public void update(String key, Payment old, Payment now) {
+                synchronized (IncomeRollups.this) {
+                    record(old, -1);
+                    record(now, 1);
+                }
+            }
+
+            @Override
+            public void remove(String key, Payment row) {
+                record(row, -1);
+            }
+
+            @Override
+            public void clear() {
+                synchronized (IncomeRollups.this) {
+                    groups.clear();
+                    classesVersion = -1; // totals are re-derived on the next report
+                }
+            }
+        };
+    }
+
+    // sign is 1 for a new payment, -1 to take one back out
+    private synchronized void record(Payment payment, int sign) {
+        String[] classIds = payment.getClassIds() != null ? payment.getClassIds() : new String[0];
+        PaymentGroup group = groups.computeIfAbsent(String.join(";", classIds), k -> new PaymentGroup(classIds));
+        group.payments += sign;
+        group.amount += sign * payment.getAmount();
+        if (group.payments == 0) groups.remove(String.join(";", classIds));
+
+        if (classesVersion >= 0) {
+            apply(classIds, sign * payment.getAmount(), sign);
+        }
+    }
+
+    // Adds payments covering one class list to every key their classes fall under
+    private void apply(String[] classIds, double amount, int payments) {
+        int classCount = Math.max(1, classIds.length);
+        Map<String, Integer> matched = new HashMap<>(); // "yyyy-MM|level|subject" -> classes of this list under it
+        Map<String, String[]> keyParts = new HashMap<>();
+        for (String classId : classIds) {
+            List<String[]> keys = classKeys.get(DataRepository.normalize(classId));
+            if (keys == null) continue;
+            for (String[] key : keys) {
+                String flat = key[0] + "|" + key[1];
+                matched.merge(flat, 1, Integer::sum);
+                keyParts.putIfAbsent(flat, key);
+            }
+        }
+        for (Map.Entry<String, Integer> entry : matched.entrySet()) {
+            Totals totals = totals(keyParts.get(entry.getKey()));
+            totals.income += amount / classCount * entry.getValue();
+            totals.payments += payments;
+        }
+    }
+
+    private Totals totals(String[] key) {
+        return rollups.computeIfAbsent(key[1], k -> new TreeMap<>()).computeIfAbsent(key[0], k -> new Totals());
+    }
+
+    // {yyyy-MM, level|subject} for each month the class is scheduled in
+    private static List<String[]> keysOf(ClassInfo classInfo) {
+        String level = classInfo.getLevel();
+        if (level == null || classInfo.getSchedule() == null) return Collections.emptyList();
+        String series = seriesKey(level, classInfo.getSubjectName());
+
+        Set<String> months = new LinkedHashSet<>();
+        for (String date : classInfo.getSchedule().split(";")) {
+            Matcher month = YEAR_MONTH.matcher(date.trim());
+            if (month.lookingAt()) months.add(month.group());
+        }
+        List<String[]> keys = new ArrayList<>(months.size());
+        for (String month : months) {
+            keys.add(new String[] { month, series });
+        }
+        return keys;
+    }
+
+    private static String seriesKey(String level, String subject) {
+        return level.trim().toLowerCase(Locale.ROOT) + "|" + subject.trim().toLowerCase(Locale.ROOT);
+    }
+}
\ No newline at end of file
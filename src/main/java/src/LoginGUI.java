@@ -274,6 +274,9 @@ public class LoginGUI extends JFrame {
             System.out.println("DEBUG: Successful login - UserType: " + userType + 
                              ", UserID: " + user.getUserId());
             
+            userHandler.recordLoginTime(user.getUserId(), userType);
+            UserSession.start(user, userType);
+            
             // Route to appropriate dashboard based on user type
             openDashboard(user, userType);
         } else {
@@ -340,19 +343,9 @@ public class LoginGUI extends JFrame {
     
     private void openStudentDashboard(User user) {
         try {
-            // Load complete student data
-            Student student = Student.loadStudentsFromFile("students.txt")
-                    .stream()
-                    .filter(s -> s.getStudentId().equals(user.getUserId()))
-                    .findFirst()
-                    .orElseGet(() -> {
-                        // Create student from user data if not found in detailed format
-                        Student s = (Student) user;
-                        return new Student(s.getUserId(), s.getIc(), s.getUsername(), 
-                                         s.getPassword(), s.getName(), s.getEmail(), 
-                                         s.getPhone(), s.getAddress(), s.getLevel(), 
-                                         s.getEnrollmentMonth(), s.getSubjects(), s.getTotalBalance());
-                    });
+            // Complete student data comes from the session started at login
+            User sessionUser = UserSession.of(user, "STUDENT").getUser();
+            Student student = sessionUser instanceof Student ? (Student) sessionUser : (Student) user;
             
             new StudentPortal(student).setVisible(true);
         } catch (Exception e) {
@@ -0,0 +1,291 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+
+/**
+ * LoginHistory keeps the "userId,userType,yyyy-MM-dd HH:mm:ss" login log.
+ *
+ * New logins go through one buffered writer to login_history.txt. When that
+ * segment passes atc.loginHistory.segmentBytes (default 256 KB) or a new month
+ * starts, it is renamed to login_history-<yyyyMMdd-HHmmss>.txt and a fresh one
+ * is started, so no single file grows with the years.
+ *
+ * tail(n) reads backwards from the end of the newest segment and only opens
+ * older segments when it needs more lines. The last login of each user is kept
+ * in memory and in login_history.idx (rewritten on rotation), so startup only
+ * rescans the current segment.
+ */
+final class LoginHistory {
+    private static final String ACTIVE_FILE = "login_history.txt";
+    private static final String SEGMENT_PREFIX = "login_history-";
+    private static final String INDEX_FILE = "login_history.idx";
+    private static final long SEGMENT_BYTES = Long.getLong("atc.loginHistory.segmentBytes", 256 * 1024);
+    private static final int TAIL_BLOCK = 4096;
+
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final DateTimeFormatter SEGMENT_STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final int STAMP_LENGTH = "yyyyMMdd-HHmmss".length();
+
+    private static final LoginHistory INSTANCE = new LoginHistory();
+
+    private BufferedWriter writer;
+    private long activeBytes;
+    private YearMonth activeMonth;
+    private Map<String, String> lastLogins; // upper-cased user ID -> timestamp
+
+    private LoginHistory() {
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "login-history-close"));
+    }
+
+    static LoginHistory getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Appends a login stamped with the current time
+     */
+    synchronized void record(String userId, String userType) {
+        LocalDateTime now = LocalDateTime.now();
+        String timestamp = now.format(TIMESTAMP);
+        String line = CsvTokenizer.join(userId, userType, timestamp) + "\n";
+        try {
+            openForAppend(YearMonth.from(now));
+            writer.write(line);
+            writer.flush(); // one write per login; the file stays readable from other windows
+            activeBytes += line.getBytes(StandardCharsets.UTF_8).length;
+        } catch (IOException e) {
+            System.err.println("Error recording login time: " + e.getMessage());
+            close();
+            return;
+        }
+        lastLogins().put(key(userId), timestamp);
+    }
+
+    /**
+     * Timestamp of a user's most recent login, or null if they never logged in
+     */
+    synchronized String lastLogin(String userId) {
+        return userId == null ? null : lastLogins().get(key(userId));
+    }
+
+    /**
+     * The last n entries, oldest first, each split into its fields
+     */
+    synchronized List<String[]> tail(int n) {
+        LinkedList<String[]> entries = new LinkedList<>();
+        if (n <= 0) return entries;
+        flushQuietly();
+
+        List<File> segments = segments();
+        for (int i = segments.size() - 1; i >= 0 && entries.size() < n; i--) {
+            List<String> lines = tailLines(segments.get(i), n - entries.size());
+            for (int j = lines.size() - 1; j >= 0; j--) {
+                String[] fields = CsvTokenizer.split(lines.get(j));
+                if (fields.length >= 3) entries.addFirst(fields);
+            }
+        }
+        while (entries.size() > n) entries.removeFirst();
+        return entries;
+    }
+
+    // Up to n non-blank lines from the end of a file, oldest first
+    private static List<String> tailLines(File file, int n) {
+        List<String> lines = new ArrayList<>();
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            long end = in.length();
+            ByteArrayOutputStream partial = new ByteArrayOutputStream(); // bytes of the line being assembled, reversed
+            byte[] block = new byte[TAIL_BLOCK];
+            while (end > 0 && lines.size() < n) {
+                int length = (int) Math.min(TAIL_BLOCK, end);
+                end -= length;
+                in.seek(end);
+                in.readFully(block, 0, length);
+                for (int i = length - 1; i >= 0 && lines.size() < n; i--) {
+                    if (block[i] == '\n') {
+                        addReversed(lines, partial);
+                    } else if (block[i] != '\r') {
+                        partial.write(block[i]);
+                    }
+                }
+            }
+            if (end == 0 && lines.size() < n) addReversed(lines, partial);
+        } catch (IOException e) {
+            System.err.println("Error reading login history: " + e.getMessage());
+        }
+        Collections.reverse(lines);
+        return lines;
+    }
+
+    private static void addReversed(List<String> lines, ByteArrayOutputStream partial) {
+        byte[] bytes = partial.toByteArray();
+        partial.reset();
+        for (int i = 0, j = bytes.length - 1; i < j; i++, j--) {
+            byte b = bytes[i];
+            bytes[i] = bytes[j];
+            bytes[j] = b;
+        }
+        String line = new String(bytes, StandardCharsets.UTF_8);
+        if (!line.trim().isEmpty()) lines.add(line);
+    }
+
+    private void openForAppend(YearMonth month) throws IOException {
+        File active = file(ACTIVE_FILE);
+        if (writer == null) {
+            activeBytes = active.length();
+            activeMonth = active.exists() ? monthOf(active.lastModified()) : month;
+        }
+        if (activeBytes > 0 && (activeBytes >= SEGMENT_BYTES || !month.equals(activeMonth))) {
+            rotate(active);
+        }
+        if (writer == null) {
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(active, true), StandardCharsets.UTF_8));
+            activeBytes = active.length();
+        }
+        activeMonth = month;
+    }
+
+    // Closes the active segment under a timestamped name and saves the last-login index
+    private void rotate(File active) throws IOException {
+        close();
+        lastLogins(); // make sure the closed segment is in the index before it is left behind
+        String stamp = LocalDateTime.now().format(SEGMENT_STAMP);
+        File segment = file(SEGMENT_PREFIX + stamp + ".txt");
+        for (int n = 1; segment.exists(); n++) {
+            segment = file(SEGMENT_PREFIX + stamp + "-" + n + ".txt");
+        }
+        Files.move(active.toPath(), segment.toPath());
+        saveIndex();
+        activeBytes = 0;
+    }
+
+    private Map<String, String> lastLogins() {
+        if (lastLogins == null) {
+            flushQuietly();
+            lastLogins = new HashMap<>();
+            File index = file(INDEX_FILE);
+            if (index.exists()) {
+                scan(index, 0, 1);
+                scan(file(ACTIVE_FILE), 0, 2);
+            } else {
+                // First run, or the index was removed: rebuild from every segment once
+                for (File segment : segments()) {
+                    scan(segment, 0, 2);
+                }
+                if (segments().size() > 1) saveIndex();
+            }
+        }
+        return lastLogins;
+    }
+
+    // Later lines win, so segments must be scanned oldest first
+    private void scan(File file, int idColumn, int timeColumn) {
+        if (!file.exists()) return;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            CsvTokenizer csv = new CsvTokenizer(reader);
+            while (csv.next()) {
+                if (csv.fieldCount() > timeColumn && !csv.isEmpty(idColumn)) {
+                    lastLogins.put(key(csv.field(idColumn)), csv.field(timeColumn));
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading login history: " + e.getMessage());
+        }
+    }
+
+    private void saveIndex() {
+        File index = file(INDEX_FILE);
+        File temp = new File(index.getPath() + ".tmp");
+        try (BufferedWriter out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(temp), StandardCharsets.UTF_8))) {
+            for (Map.Entry<String, String> entry : lastLogins.entrySet()) {
+                out.write(CsvTokenizer.join(entry.getKey(), entry.getValue()));
+                out.write('\n');
+            }
+        } catch (IOException e) {
+            System.err.println("Error saving login history index: " + e.getMessage());
+            temp.delete();
+            return;
+        }
+        try {
+            try {
+                Files.move(temp.toPath(), index.toPath(),
+                           StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException atomicNotSupported) {
+                Files.move(temp.toPath(), index.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            System.err.println("Error saving login history index: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Rotated segments oldest first, followed by the active file
+     */
+    private List<File> segments() {
+        List<File> segments = new ArrayList<>();
+        File[] rotated = new File(System.getProperty("user.dir"))
+            .listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(".txt"));
+        if (rotated != null) {
+            Arrays.sort(rotated, Comparator.comparing(LoginHistory::rotationStamp)
+                                           .thenComparingInt(LoginHistory::rotationSequence));
+            segments.addAll(Arrays.asList(rotated));
+        }
+        File active = file(ACTIVE_FILE);
+        if (active.exists()) segments.add(active);
+        return segments;
+    }
+
+    // login_history-<stamp>[-<n>].txt: the stamp sorts chronologically, n breaks ties within a second
+    private static String rotationStamp(File segment) {
+        String name = segment.getName().substring(SEGMENT_PREFIX.length());
+        return name.substring(0, Math.min(STAMP_LENGTH, name.length()));
+    }
+
+    private static int rotationSequence(File segment) {
+        String name = segment.getName();
+        int start = SEGMENT_PREFIX.length() + STAMP_LENGTH + 1;
+        int end = name.length() - ".txt".length();
+        try {
+            return start < end ? Integer.parseInt(name.substring(start, end)) : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private void flushQuietly() {
+        if (writer == null) return;
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            close();
+        }
+    }
+
+    synchronized void close() {
+        if (writer == null) return;
+        try {
+            writer.close();
+        } catch (IOException e) {
+            System.err.println("Error closing login history: " + e.getMessage());
+        }
+        writer = null;
+    }
+
+    private static YearMonth monthOf(long millis) {
+        return YearMonth.from(Instant.ofEpochMilli(millis).atZone(ZoneId.systemDefault()));
+    }
+
+    private static File file(String name) {
+        return new File(System.getProperty("user.dir"), name);
+    }
+
+    private static String key(String userId) {
+        return userId.trim().toUpperCase(Locale.ROOT);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,275 @@
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * LoginThrottle tracks failed logins for every login window in the process.
+ *
+ * Each user ID (ignoring case) keeps the times of its recent failures. Reaching
+ * atc.lockout.maxAttempts (default 3) failures within atc.lockout.windowSeconds
+ * (default 900) locks the account for atc.lockout.lockSeconds (default 900);
+ * locks and old failures expire on their own, and an administrator can still
+ * unlock early.
+ *
+ * Entries are immutable and swapped atomically in a ConcurrentHashMap, so
+ * attempts on different accounts never wait on each other. The map is capped at
+ * atc.lockout.maxEntries (default 10000): past that, expired entries are swept
+ * and then failure counts closest to expiry are dropped (locks last), so a
+ * burst of made-up IDs cannot grow it without bound or evict a real lock.
+ *
+ * Live entries are saved to lockouts.txt ("id,lockedUntil,failure times...",
+ * epoch milliseconds) at most once a second and on exit, so locks survive a
+ * restart.
+ */
+final class LoginThrottle {
+    private static final String LOCKOUT_FILE = "lockouts.txt";
+    private static final int MAX_ATTEMPTS = Math.max(1, Integer.getInteger("atc.lockout.maxAttempts", 3));
+    private static final long WINDOW_MILLIS =
+        TimeUnit.SECONDS.toMillis(Long.getLong("atc.lockout.windowSeconds", 900));
+    private static final long LOCK_MILLIS =
+        TimeUnit.SECONDS.toMillis(Long.getLong("atc.lockout.lockSeconds", 900));
+    private static final int MAX_ENTRIES = Math.max(16, Integer.getInteger("atc.lockout.maxEntries", 10_000));
+    private static final long SAVE_DELAY_MILLIS = 1_000;
+
+    private static final ScheduledExecutorService WRITER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "lockout-writer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static final LoginThrottle INSTANCE = new LoginThrottle();
+
+    private final ConcurrentHashMap<String, Tracker> trackers = new ConcurrentHashMap<>();
+    private final AtomicBoolean saveQueued = new AtomicBoolean();
+    private final AtomicBoolean sweeping = new AtomicBoolean();
+
+    private LoginThrottle() {
+        load();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            if (saveQueued.get()) save(); // a change is still waiting for the writer
+        }, "lockout-save"));
+    }
+
+    static LoginThrottle getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Failure history of one user ID; replaced, never modified
+     */
+    private static final class Tracker {
+        final long lockedUntil;
+        final long[] failures; // failure times inside the window, oldest first
+
+        Tracker(long lockedUntil, long[] failures) {
+            this.lockedUntil = lockedUntil;
+            this.failures = failures;
+        }
+
+        boolean isLocked(long now) {
+            return lockedUntil > now;
+        }
+
+        int recentFailures(long now) {
+            int count = 0;
+            for (long failure : failures) {
+                if (failure > now - WINDOW_MILLIS) count++;
+            }
+            return count;
+        }
+
+        Tracker withFailure(long now) {
+            long[] recent = new long[Math.min(recentFailures(now), MAX_ATTEMPTS - 1) + 1];
+            System.arraycopy(failures, failures.length - (recent.length - 1), recent, 0, recent.length - 1);
+            recent[recent.length - 1] = now;
+            if (recent.length >= MAX_ATTEMPTS) {
+                return new Tracker(now + LOCK_MILLIS, new long[0]); // a fresh set of attempts once the lock ends
+            }
+            return new Tracker(lockedUntil, recent);
+        }
+
+        // When nothing about this entry matters any more
+        long expiresAt() {
+            long last = failures.length > 0 ? failures[failures.length - 1] + WINDOW_MILLIS : 0;
+            return Math.max(lockedUntil, last);
+        }
+    }
+
+    boolean isLocked(String userId) {
+        Tracker tracker = trackers.get(key(userId));
+        return tracker != null && tracker.isLocked(System.currentTimeMillis());
+    }
+
+    /**
+     * Milliseconds until the lock on a user ID lifts, 0 when not locked
+     */
+    long lockRemainingMillis(String userId) {
+        Tracker tracker = trackers.get(key(userId));
+        return tracker == null ? 0 : Math.max(0, tracker.lockedUntil - System.currentTimeMillis());
+    }
+
+    /**
+     * Attempts left before the account locks (0 while locked)
+     */
+    int remainingAttempts(String userId) {
+        Tracker tracker = trackers.get(key(userId));
+        if (tracker == null) return MAX_ATTEMPTS;
+        long now = System.currentTimeMillis();
+        return tracker.isLocked(now) ? 0 : Math.max(0, MAX_ATTEMPTS - tracker.recentFailures(now));
+    }
+
+    /**
+     * Counts a failed login
+     * @return attempts left, 0 when this failure locked the account
+     */
+    int recordFailure(String userId) {
+        long now = System.currentTimeMillis();
+        Tracker tracker = trackers.compute(key(userId), (k, old) ->
+            (old == null || old.expiresAt() <= now ? new Tracker(0, new long[0]) : old).withFailure(now));
+        if (trackers.size() > MAX_ENTRIES) {
+            trim(now);
+        }
+        scheduleSave();
+        return tracker.isLocked(now) ? 0 : MAX_ATTEMPTS - tracker.recentFailures(now);
+    }
+
+    /**
+     * Clears the failure history after a successful login
+     */
+    void recordSuccess(String userId) {
+        if (trackers.remove(key(userId)) != null) {
+            scheduleSave();
+        }
+    }
+
+    /**
+     * Lifts a lock and forgets earlier failures
+     */
+    void unlock(String userId) {
+        recordSuccess(userId);
+    }
+
+    Set<String> lockedUsers() {
+        long now = System.currentTimeMillis();
+        Set<String> locked = new TreeSet<>();
+        trackers.forEach((id, tracker) -> {
+            if (tracker.isLocked(now)) locked.add(id);
+        });
+        return locked;
+    }
+
+    Map<String, Integer> failureCounts() {
+        long now = System.currentTimeMillis();
+        Map<String, Integer> counts = new TreeMap<>();
+        trackers.forEach((id, tracker) -> {
+            int recent = tracker.isLocked(now) ? MAX_ATTEMPTS : tracker.recentFailures(now);
+            if (recent > 0) counts.put(id, recent);
+        });
+        return counts;
+    }
+
+    // Drops expired entries, then unlocked ones closest to expiring, until well under the cap
+    private void trim(long now) {
+        if (!sweeping.compareAndSet(false, true)) return; // another thread is already at it
+        try {
+            trackers.forEach((id, tracker) -> {
+                if (tracker.expiresAt() <= now) trackers.remove(id, tracker);
+            });
+            int excess = trackers.size() - MAX_ENTRIES * 3 / 4;
+            if (excess > 0) {
+                List<Map.Entry<String, Tracker>> oldest = new ArrayList<>(trackers.entrySet());
+                // Plain failure counts go before locks
+                oldest.sort(Comparator.<Map.Entry<String, Tracker>, Boolean>comparing(entry -> entry.getValue().isLocked(now))
+                                      .thenComparingLong(entry -> entry.getValue().expiresAt()));
+                for (Map.Entry<String, Tracker> entry : oldest.subList(0, Math.min(excess, oldest.size()))) {
+                    trackers.remove(entry.getKey(), entry.getValue());
+                }
+            }
+        } finally {
+            sweeping.set(false);
+        }
+    }
+
+    private static String key(String userId) {
+        return userId == null ? "" : userId.trim().toUpperCase(Locale.ROOT);
+    }
+
+    // Coalesces every change made within SAVE_DELAY_MILLIS into one write
+    private void scheduleSave() {
+        if (saveQueued.compareAndSet(false, true)) {
+            WRITER.schedule(() -> {
+                saveQueued.set(false);
+                save();
+            }, SAVE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized void save() {
+        long now = System.currentTimeMillis();
+        File file = new File(System.getProperty("user.dir"), LOCKOUT_FILE);
+        File temp = new File(file.getPath() + ".tmp");
+
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(temp))) {
+            for (Map.Entry<String, Tracker> entry : trackers.entrySet()) {
+                Tracker tracker = entry.getValue();
+                if (tracker.expiresAt() <= now) continue;
+                String[] fields = new String[tracker.failures.length + 2];
+                fields[0] = entry.getKey();
+                fields[1] = String.valueOf(tracker.lockedUntil);
+                for (int i = 0; i < tracker.failures.length; i++) {
+                    fields[i + 2] = String.valueOf(tracker.failures[i]);
+                }
+                writer.write(CsvTokenizer.join(fields));
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            System.err.println("Error saving login lockouts: " + e.getMessage());
+            temp.delete();
+            return;
+        }
+
+        try {
+            try {
+                Files.move(temp.toPath(), file.toPath(),
+                           StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException atomicNotSupported) {
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            System.err.println("Error saving login lockouts: " + e.getMessage());
+        }
+    }
+
+    private void load() {
+        File file = new File(System.getProperty("user.dir"), LOCKOUT_FILE);
+        if (!file.exists()) return;
+
+        long now = System.currentTimeMillis();
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            CsvTokenizer csv = new CsvTokenizer(reader);
+            while (csv.next()) {
+                if (csv.fieldCount() < 2 || csv.isEmpty(0)) continue;
+                try {
+                    long[] failures = new long[Math.min(csv.fieldCount() - 2, MAX_ATTEMPTS - 1)];
+                    for (int i = 0; i < failures.length; i++) {
+                        failures[i] = Long.parseLong(csv.field(csv.fieldCount() - failures.length + i));
+                    }
+                    Tracker tracker = new Tracker(Long.parseLong(csv.field(1)), failures);
+                    if (tracker.expiresAt() > now) {
+                        trackers.put(key(csv.field(0)), tracker);
+                    }
+                } catch (NumberFormatException e) {
+                    // Skip a damaged line rather than lose the rest
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading login lockouts: " + e.getMessage());
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,239 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * MappedLedgerReader scans comma-separated ledgers (payments.txt,
+ * payment_history.txt) through a memory-mapped view of the file.
+ *
+ * Each record is exposed as field offsets into the mapped bytes; nothing is
+ * copied or decoded until a caller asks for a specific field, so filters such as
+ * "payments of STU001 in July" run without building a String per line. Quoted
+ * fields follow the same rules as CsvTokenizer.
+ */
+class MappedLedgerReader {
+
+    /**
+     * Callback for each non-empty record; return false to stop the scan early
+     */
+    interface RecordVisitor {
+        boolean visit(Record record);
+    }
+
+    /**
+     * Maps the file and visits every non-empty record. A missing file has no records.
+     */
+    static void scan(String filename, RecordVisitor visitor) throws IOException {
+        File file = new File(System.getProperty("user.dir"), filename);
+        if (!file.exists()) return;
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) return;
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(filename + " is too large to map (" + size + " bytes)");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            scan(buffer, 0, (int) size, visitor);
+        }
+    }
+
+    /**
+     * Visits every record that starts in [from, to) of an already mapped buffer
+     */
+    static void scan(MappedByteBuffer buffer, int from, int to, RecordVisitor visitor) {
+        Record record = new Record(buffer);
+        int position = from;
+
+        while (position < to) {
+            int lineEnd = position;
+            while (lineEnd < to && buffer.get(lineEnd) != '\n') lineEnd++;
+
+            int contentEnd = lineEnd;
+            if (contentEnd > position && buffer.get(contentEnd - 1) == '\r') contentEnd--;
+
+            if (record.reset(position, contentEnd) && !visitor.visit(record)) {
+                return;
+            }
+            position = lineEnd + 1;
+        }
+    }
+
+    /**
+     * A reusable view of one line: field i spans [start(i), end(i)) in the buffer
+     */
+    static final class Record {
+        private final MappedByteBuffer buffer;
+        private int[] starts = new int[16];
+        private int[] ends = new int[16];
+        private int count;
+
+        Record(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        // Splits the line into fields (commas inside quotes do not split); returns false for blank lines
+        private boolean reset(int from, int to) {
+            count = 0;
+            int fieldStart = from;
+            boolean blank = true;
+            boolean inQuotes = false;
+
+            for (int i = from; i <= to; i++) {
+                if (i == to || (buffer.get(i) == ',' && !inQuotes)) {
+                    addField(fieldStart, i);
+                    fieldStart = i + 1;
+                } else {
+                    byte b = buffer.get(i);
+                    if (b == '"') inQuotes = !inQuotes;
+                    if (b > ' ') blank = false;
+                }
+            }
+            return !blank;
+        }
+
+        private void addField(int start, int end) {
+            if (count == starts.length) {
+                starts = java.util.Arrays.copyOf(starts, count * 2);
+                ends = java.util.Arrays.copyOf(ends, count * 2);
+            }
+            // Store trimmed bounds, inside the quotes of a quoted field
+            while (start < end && buffer.get(start) <= ' ') start++;
+            while (end > start && buffer.get(end - 1) <= ' ') end--;
+            if (end - start >= 2 && buffer.get(start) == '"' && buffer.get(end - 1) == '"') {
+                start++;
+                end--;
+            }
+            starts[count] = start;
+            ends[count] = end;
+            count++;
+        }
+
+        int fieldCount() {
+            return count;
+        }
+
+        /**
+         * Compares a trimmed field with an ASCII value without decoding it
+         */
+        boolean fieldEquals(int index, String value) {
+            if (index >= count) return false;
+            int length = ends[index] - starts[index];
+            if (length != value.length()) return false;
+            for (int i = 0; i < length; i++) {
+                if (buffer.get(starts[index] + i) != value.charAt(i)) return false;
+            }
+            return true;
+        }
+
+        /**
+         * Decodes a trimmed field; only call this for fields that are actually needed
+         */
+        String field(int index) {
+            if (index >= count) return "";
+            int length = ends[index] - starts[index];
+            byte[] bytes = new byte[length];
+            int n = 0;
+            for (int i = 0; i < length; i++) {
+                byte b = buffer.get(starts[index] + i);
+                // "" inside a quoted field is an escaped quote
+                if (b == '"' && i + 1 < length && buffer.get(starts[index] + i + 1) == '"') i++;
+                bytes[n++] = b;
+            }
+            return new String(bytes, 0, n, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Parses a plain decimal field (e.g. 180.00) straight from the bytes
+         */
+        double parseDouble(int index) {
+            if (index >= count) throw new NumberFormatException("missing field " + index);
+            int i = starts[index];
+            int end = ends[index];
+            if (i == end) throw new NumberFormatException("empty field " + index);
+
+            boolean negative = buffer.get(i) == '-';
+            if (negative || buffer.get(i) == '+') i++;
+
+            long digits = 0;
+            int scale = 0;
+            boolean seenDot = false;
+            boolean seenDigit = false;
+            for (; i < end; i++) {
+                byte b = buffer.get(i);
+                if (b >= '0' && b <= '9' && digits < 100_000_000_000_000L) {
+                    digits = digits * 10 + (b - '0');
+                    if (seenDot) scale++;
+                    seenDigit = true;
+                } else if (b == '.' && !seenDot) {
+                    seenDot = true;
+                } else {
+                    // Exponents, very long numbers etc. - fall back to the JDK parser
+                    return Double.parseDouble(field(index));
+                }
+            }
+            if (!seenDigit) throw new NumberFormatException("not a number: " + field(index));
+
+            double value = digits / Math.pow(10, scale);
+            return negative ? -value : value;
+        }
+
+        /**
+         * Number of non-empty sub-fields separated by sep (e.g. ';' in class lists)
+         */
+        int countSubfields(int index, byte sep) {
+            return countSubfieldsMatching(index, sep, null);
+        }
+
+        /**
+         * Number of sub-fields equal to one of the candidates; null candidates counts all
+         */
+        int countSubfieldsMatching(int index, byte sep, byte[][] candidates) {
+            if (index >= count) return 0;
+            int matched = 0;
+            int start = starts[index];
+            int end = ends[index];
+
+            for (int i = start; i <= end; i++) {
+                if (i == end || buffer.get(i) == sep) {
+                    int s = start;
+                    int e = i;
+                    while (s < e && buffer.get(s) <= ' ') s++;
+                    while (e > s && buffer.get(e - 1) <= ' ') e--;
+                    if (e > s && (candidates == null || matchesAny(s, e, candidates))) {
+                        matched++;
+                    }
+                    start = i + 1;
+                }
+            }
+            return matched;
+        }
+
+        private boolean matchesAny(int start, int end, byte[][] candidates) {
+            outer:
+            for (byte[] candidate : candidates) {
+                if (candidate.length != end - start) continue;
+                for (int i = 0; i < candidate.length; i++) {
+                    if (buffer.get(start + i) != candidate[i]) continue outer;
+                }
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Encodes lookup keys once so matching never decodes the mapped bytes
+     */
+    static byte[][] toKeys(java.util.Collection<String> values) {
+        byte[][] keys = new byte[values.size()][];
+        int i = 0;
+        for (String value : values) {
+            keys[i++] = value.trim().getBytes(StandardCharsets.UTF_8);
+        }
+        return keys;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,209 @@
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * MutationJournal records single-record changes to a data file as appended
+ * entries in "<file>.journal" instead of rewriting the whole file.
+ *
+ * The current state of a file is its text snapshot with the journal replayed on
+ * top (keyed by the record ID in the first column). Once the journal grows past
+ * a threshold it is folded back into the snapshot on a background thread.
+ *
+ * Journal mode is opt-in (-Datc.journal=true). Nothing may bypass it. The text
+ * file alone misses entries that are not compacted yet, so screens read through
+ * DataRepository and the raw scans (CredentialIndex, IdSequence) use
+ * materialize() while the journal is active. Every change to a journaled file
+ * goes through DataRepository (FileHandler.writeRecord/appendLine), otherwise
+ * the next materialize() replays older entries over it and a compaction can
+ * drop it.
+ */
+class MutationJournal {
+    private static final String UPSERT = "U|";
+    private static final String DELETE = "D|";
+    private static final long COMPACT_THRESHOLD = Long.getLong("atc.journal.compactBytes", 64 * 1024);
+
+    private static final Map<String, MutationJournal> JOURNALS = new ConcurrentHashMap<>();
+    private static final ExecutorService COMPACTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "journal-compactor");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final String filename;
+    private final AtomicBoolean compactionQueued = new AtomicBoolean();
+    // Entries handed to the group commit but maybe not on disk yet; guarded by this
+    private final List<CompletableFuture<Boolean>> pending = new ArrayList<>();
+
+    private MutationJournal(String filename) {
+        this.filename = filename;
+    }
+
+    static MutationJournal forFile(String filename) {
+        return JOURNALS.computeIfAbsent(filename, MutationJournal::new);
+    }
+
+    static boolean isEnabled() {
+        return Boolean.getBoolean("atc.journal");
+    }
+
+    /**
+     * True when reads and writes must go through the journal, either because the
+     * mode is enabled or because entries from an earlier run are still pending
+     */
+    boolean isActive() {
+        return isEnabled() || journalFile().length() > 0;
+    }
+
+    File dataFile() {
+        return new File(System.getProperty("user.dir"), filename);
+    }
+
+    File journalFile() {
+        return new File(System.getProperty("user.dir"), filename + ".journal");
+    }
+
+    /**
+     * Appends an insert/update of the record keyed by the line's first column
+     * and waits until it is durable
+     */
+    boolean upsert(String line) {
+        return enqueueUpsert(line).join();
+    }
+
+    /**
+     * Appends a delete of the record whose first column is key and waits until
+     * it is durable
+     */
+    boolean delete(String key) {
+        return enqueueDelete(key).join();
+    }
+
+    /**
+     * Queues an upsert without waiting for it; entries are written in the order
+     * they are queued
+     * @return completes with false if the write failed
+     */
+    synchronized CompletableFuture<Boolean> enqueueUpsert(String line) {
+        return enqueue(UPSERT + line);
+    }
+
+    synchronized CompletableFuture<Boolean> enqueueDelete(String key) {
+        return enqueue(DELETE + key);
+    }
+
+    private CompletableFuture<Boolean> enqueue(String entry) {
+        pending.removeIf(CompletableFuture::isDone);
+        CompletableFuture<Boolean> written = GroupCommitWriter.getInstance().enqueue(journalFile(), entry);
+        pending.add(written);
+        // Runs on the flusher thread, so it must not take this journal's lock
+        return written.thenApply(ok -> {
+            if (ok && journalFile().length() >= COMPACT_THRESHOLD && compactionQueued.compareAndSet(false, true)) {
+                COMPACTOR.submit(this::compact);
+            }
+            return ok;
+        });
+    }
+
+    // Lets queued entries reach the journal file before it is read or replaced
+    private void awaitPending() {
+        for (CompletableFuture<Boolean> written : pending) {
+            written.join();
+        }
+        pending.clear();
+    }
+
+    /**
+     * Returns the snapshot lines with every journal entry applied, in file order
+     */
+    synchronized List<String> materialize() {
+        awaitPending();
+        Map<String, String> records = new LinkedHashMap<>();
+        int anonymous = 0;
+
+        for (String line : readLines(dataFile())) {
+            if (line.trim().isEmpty()) continue;
+            String key = keyOf(line);
+            records.put(key.isEmpty() ? "\u0000" + (anonymous++) : key, line);
+        }
+
+        for (String entry : readLines(journalFile())) {
+            if (entry.startsWith(UPSERT)) {
+                String line = entry.substring(UPSERT.length());
+                records.put(keyOf(line), line);
+            } else if (entry.startsWith(DELETE)) {
+                records.remove(entry.substring(DELETE.length()).trim());
+            }
+        }
+
+        return new ArrayList<>(records.values());
+    }
+
+    /**
+     * Folds the journal into a fresh snapshot and truncates it
+     */
+    synchronized void compact() {
+        compactionQueued.set(false);
+        awaitPending();
+        if (journalFile().length() == 0) return;
+        replaceSnapshot(materialize());
+    }
+
+    /**
+     * Atomically replaces the snapshot with the given lines and clears the journal
+     */
+    synchronized boolean replaceSnapshot(List<String> lines) {
+        awaitPending(); // an older entry landing after the move would be replayed over these lines
+        File data = dataFile();
+        File temp = new File(data.getPath() + ".tmp");
+
+        try (PrintWriter writer = new PrintWriter(new FileWriter(temp))) {
+            for (String line : lines) {
+                writer.println(line);
+            }
+        } catch (IOException e) {
+            System.err.println("Error writing snapshot for " + filename + ": " + e.getMessage());
+            return false;
+        }
+
+        try {
+            try {
+                Files.move(temp.toPath(), data.toPath(),
+                           StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException atomicNotSupported) {
+                Files.move(temp.toPath(), data.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            Files.deleteIfExists(journalFile().toPath());
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error replacing snapshot for " + filename + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    static String keyOf(String line) {
+        int comma = line.indexOf(',');
+        return (comma < 0 ? line : line.substring(0, comma)).trim();
+    }
+
+    private static List<String> readLines(File file) {
+        List<String> lines = new ArrayList<>();
+        if (!file.exists()) return lines;
+
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading " + file.getName() + ": " + e.getMessage());
+        }
+        return lines;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,123 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * ParallelLedgerScan aggregates a ledger on a ForkJoinPool. The mapped file is
+ * split in halves, each cut moved forward to the next line start, until a range
+ * is at most atc.report.chunkBytes (default 1 MB); each range is folded into its
+ * own partial result by MappedLedgerReader, and partials are merged left to
+ * right so the result is the same as one sequential pass.
+ *
+ * atc.report.parallelism sets the pool size (default: the common pool). A file
+ * smaller than one chunk is scanned on the calling thread.
+ */
+final class ParallelLedgerScan {
+    private static final int CHUNK_BYTES = Integer.getInteger("atc.report.chunkBytes", 1 << 20);
+    private static final int PARALLELISM = Integer.getInteger("atc.report.parallelism", 0);
+
+    private static ForkJoinPool pool;
+
+    private ParallelLedgerScan() {
+    }
+
+    /**
+     * How records are folded into a partial result and partials combined
+     */
+    interface Aggregation<A> {
+        A create();
+
+        void accumulate(A partial, MappedLedgerReader.Record record);
+
+        /**
+         * Combines two partials; left covers the lines before right
+         */
+        A merge(A left, A right);
+    }
+
+    static <A> A aggregate(String filename, Aggregation<A> aggregation) throws IOException {
+        return aggregate(filename, aggregation, defaultPool(), CHUNK_BYTES);
+    }
+
+    /**
+     * The same aggregation in one pass on the calling thread
+     */
+    static <A> A aggregateSequential(String filename, Aggregation<A> aggregation) throws IOException {
+        return aggregate(filename, aggregation, null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param pool null to scan on the calling thread
+     */
+    static <A> A aggregate(String filename, Aggregation<A> aggregation, ForkJoinPool pool, int chunkBytes)
+            throws IOException {
+        File file = new File(System.getProperty("user.dir"), filename);
+        if (!file.exists()) return aggregation.create();
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0) return aggregation.create();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(filename + " is too large to map (" + size + " bytes)");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            ChunkTask<A> task = new ChunkTask<>(buffer, 0, (int) size, aggregation, Math.max(1, chunkBytes));
+            return pool == null || size <= chunkBytes ? task.compute() : pool.invoke(task);
+        }
+    }
+
+    private static synchronized ForkJoinPool defaultPool() {
+        if (pool == null) {
+            pool = PARALLELISM > 0 ? new ForkJoinPool(PARALLELISM) : ForkJoinPool.commonPool();
+        }
+        return pool;
+    }
+
+    private static final class ChunkTask<A> extends RecursiveTask<A> {
+        private static final long serialVersionUID = 1L;
+
+        // Tasks only run in this process; the buffer and aggregation are never serialized
+        private final transient MappedByteBuffer buffer;
+        private final int from;
+        private final int to;
+        private final transient Aggregation<A> aggregation;
+        private final int chunkBytes;
+
+        ChunkTask(MappedByteBuffer buffer, int from, int to, Aggregation<A> aggregation, int chunkBytes) {
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+            this.aggregation = aggregation;
+            this.chunkBytes = chunkBytes;
+        }
+
+        @Override
+        protected A compute() {
+            if (to - from > chunkBytes) {
+                int split = lineStartAfter(from + (to - from) / 2);
+                if (split < to) {
+                    ChunkTask<A> right = new ChunkTask<>(buffer, split, to, aggregation, chunkBytes);
+                    right.fork();
+                    A left = new ChunkTask<>(buffer, from, split, aggregation, chunkBytes).compute();
+                    return aggregation.merge(left, right.join());
+                }
+            }
+            A partial = aggregation.create();
+            MappedLedgerReader.scan(buffer, from, to, record -> {
+                aggregation.accumulate(partial, record);
+                return true;
+            });
+            return partial;
+        }
+
+        // First byte after the next '\n' at or after position, or to if there is none
+        private int lineStartAfter(int position) {
+            while (position < to && buffer.get(position) != '\n') position++;
+            return Math.min(position + 1, to);
+        }
+    }
+}
\ No newline at end of file
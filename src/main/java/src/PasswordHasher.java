@@ -0,0 +1,171 @@
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * PasswordHasher turns passwords into salted PBKDF2 verifiers for the role files:
+ *
+ *   pbkdf2$<iterations>$<base64 salt>$<base64 hash>
+ *
+ * Rows written before hashing still hold the plain password; matches() accepts
+ * both and needsRehash() tells the login path to replace them.
+ *
+ * The cost is tunable with -Datc.password.iterations. Stored verifiers are only
+ * honoured up to MAX_ITERATIONS so an edited file cannot stall a login.
+ *
+ * Successful verifications are remembered for a short time (atc.password.cacheSeconds,
+ * default 300) in a small LRU (atc.password.cacheSize, default 256; 0 disables) so
+ * repeated re-authentication at the front desk skips the KDF. The cache keeps a
+ * SHA-256 of the verifier and password, never the password itself.
+ */
+final class PasswordHasher {
+    private static final String PREFIX = "pbkdf2$";
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+    private static final int MIN_ITERATIONS = 1_000;
+    private static final int MAX_ITERATIONS = 5_000_000;
+
+    static final int ITERATIONS = Math.max(MIN_ITERATIONS, Math.min(MAX_ITERATIONS,
+        Integer.getInteger("atc.password.iterations", 310_000)));
+
+    private static final int CACHE_SIZE = Integer.getInteger("atc.password.cacheSize", 256);
+    private static final long CACHE_TTL_NANOS =
+        TimeUnit.SECONDS.toNanos(Long.getLong("atc.password.cacheSeconds", 300));
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    // verifier -> {SHA-256 of verifier and password, time verified}
+    private static final Map<String, Object[]> VERIFIED = new LinkedHashMap<String, Object[]>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Object[]> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private PasswordHasher() {
+    }
+
+    /**
+     * New verifier for a password at the configured cost
+     */
+    static String hash(String password) {
+        return hash(password, ITERATIONS);
+    }
+
+    static String hash(String password, int iterations) {
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        Base64.Encoder base64 = Base64.getEncoder().withoutPadding();
+        String stored = PREFIX + iterations + "$" + base64.encodeToString(salt) + "$"
+            + base64.encodeToString(pbkdf2(password, salt, iterations));
+        remember(stored, password); // the login right after a change or migration skips the KDF
+        return stored;
+    }
+
+    /**
+     * Checks a password against a stored verifier (or a legacy plain-text password)
+     */
+    static boolean matches(String password, String stored) {
+        if (password == null || stored == null) return false;
+        if (!isHashed(stored)) return constantTimeEquals(password, stored);
+        if (CACHE_SIZE <= 0) return verifyWithoutCache(password, stored);
+
+        byte[] fingerprint = fingerprint(password, stored);
+        synchronized (VERIFIED) {
+            Object[] cached = VERIFIED.get(stored);
+            if (cached != null) {
+                if (System.nanoTime() - (Long) cached[1] < CACHE_TTL_NANOS
+                        && MessageDigest.isEqual((byte[]) cached[0], fingerprint)) {
+                    return true;
+                }
+                VERIFIED.remove(stored);
+            }
+        }
+
+        if (!verifyWithoutCache(password, stored)) return false;
+        remember(stored, password);
+        return true;
+    }
+
+    /**
+     * Full KDF check, bypassing the verification cache
+     */
+    static boolean verifyWithoutCache(String password, String stored) {
+        String[] parts = stored.split("\\$");
+        if (parts.length != 4) return false;
+        try {
+            int iterations = Integer.parseInt(parts[1]);
+            if (iterations < MIN_ITERATIONS || iterations > MAX_ITERATIONS) return false;
+            byte[] salt = Base64.getDecoder().decode(parts[2]);
+            byte[] expected = Base64.getDecoder().decode(parts[3]);
+            return MessageDigest.isEqual(expected, pbkdf2(password, salt, iterations));
+        } catch (IllegalArgumentException e) {
+            return false; // Malformed verifier
+        }
+    }
+
+    /**
+     * Whether a stored value should be replaced: plain text, or hashed at another cost
+     */
+    static boolean needsRehash(String stored) {
+        if (!isHashed(stored)) return true;
+        String[] parts = stored.split("\\$");
+        return parts.length != 4 || !parts[1].equals(String.valueOf(ITERATIONS));
+    }
+
+    static boolean isHashed(String stored) {
+        return stored != null && stored.startsWith(PREFIX);
+    }
+
+    /**
+     * Forgets every cached verification, e.g. after passwords were changed outside the app
+     */
+    static void clearCache() {
+        synchronized (VERIFIED) {
+            VERIFIED.clear();
+        }
+    }
+
+    private static void remember(String stored, String password) {
+        if (CACHE_SIZE <= 0) return;
+        byte[] fingerprint = fingerprint(password, stored);
+        synchronized (VERIFIED) {
+            VERIFIED.put(stored, new Object[] { fingerprint, System.nanoTime() });
+        }
+    }
+
+    private static byte[] pbkdf2(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    private static byte[] fingerprint(String password, String stored) {
+        try {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            sha.update(stored.getBytes(StandardCharsets.UTF_8));
+            sha.update((byte) 0);
+            return sha.digest(password.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static boolean constantTimeEquals(String a, String b) {
+        return MessageDigest.isEqual(a.getBytes(StandardCharsets.UTF_8), b.getBytes(StandardCharsets.UTF_8));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,409 @@
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+
+/**
+ * PaymentColumns keeps the payment ledger column by column for the admin
+ * reports: amounts as a double[], payment dates as epoch days in an int[], and
+ * student, method and status as int codes into small dictionaries. Each
+ * payment's class IDs are dictionary codes in one shared int[], with
+ * classStart[row]..classStart[row + 1] marking a row's slice.
+ *
+ * Queries resolve their filters to codes once and then loop over primitives, so
+ * a filter-and-sum touches a few bytes per row and allocates nothing per row.
+ *
+ * The store is a RowIndex on the payments table: an appended payment becomes a
+ * new row and a reload rebuilds it. A changed payment's old row is retired
+ * (student code DEAD) and the new version appended, since its class list may
+ * not fit the old slice; a deleted payment's row is retired the same way. Once retired rows outnumber live ones the columns are
+ * compacted in place.
+ */
+final class PaymentColumns {
+    private static final int DEAD = -1;
+    private static final int MIN_DEAD_TO_COMPACT = 64;
+    static final int NO_DATE = Integer.MIN_VALUE;
+
+    private int rows;
+    private int liveRows;
+    private String[] paymentIds = new String[64];
+    private double[] amounts = new double[64];
+    private int[] days = new int[64];
+    private int[] students = new int[64];
+    private int[] methods = new int[64];
+    private int[] statuses = new int[64];
+    private int[] classStart = new int[65];
+    private int[] classCodes = new int[128];
+    private final Map<String, Integer> rowOf = new HashMap<>(); // normalised payment ID -> current row
+
+    private final Dictionary studentIds = new Dictionary();
+    private final Dictionary classIds = new Dictionary();
+    private final Dictionary methodNames = new Dictionary();
+    private final Dictionary statusNames = new Dictionary();
+
+    PaymentColumns() {
+    }
+
+    /**
+     * Filters for a query; unset filters match every payment
+     */
+    static final class Query {
+        private int fromDay = Integer.MIN_VALUE;
+        private int toDay = Integer.MAX_VALUE;
+        private String studentId;
+        private String classId;
+        private String method;
+        private String status;
+
+        /**
+         * Payments dated from..to inclusive; payments without a readable date are left out
+         */
+        Query between(LocalDate from, LocalDate to) {
+            fromDay = (int) from.toEpochDay();
+            toDay = (int) to.toEpochDay();
+            return this;
+        }
+
+        Query in(YearMonth month) {
+            return between(month.atDay(1), month.atEndOfMonth());
+        }
+
+        Query student(String studentId) { this.studentId = studentId; return this; }
+        Query forClass(String classId) { this.classId = classId; return this; }
+        Query method(String method) { this.method = method; return this; }
+        Query status(String status) { this.status = status; return this; }
+
+        private boolean dated() {
+            return fromDay != Integer.MIN_VALUE || toDay != Integer.MAX_VALUE;
+        }
+    }
+
+    static Query query() {
+        return new Query();
+    }
+
+    /**
+     * Number of payments and their total amount
+     */
+    static final class Aggregate {
+        private final int count;
+        private final double total;
+
+        private Aggregate(int count, double total) {
+            this.count = count;
+            this.total = total;
+        }
+
+        int getCount() { return count; }
+        double getTotal() { return total; }
+    }
+
+    synchronized Aggregate aggregate(Query query) {
+        int[] filter = codes(query);
+        if (filter == null) return new Aggregate(0, 0);
+        int count = 0;
+        double total = 0;
+        for (int row = 0; row < rows; row++) {
+            if (matches(row, query, filter)) {
+                count++;
+                total += amounts[row];
+            }
+        }
+        return new Aggregate(count, total);
+    }
+
+    /**
+     * Total amount per payment method
+     */
+    synchronized Map<String, Double> totalsByMethod(Query query) {
+        Map<String, Double> totals = new TreeMap<>();
+        int[] filter = codes(query);
+        if (filter == null) return totals;
+        double[] byCode = new double[methodNames.size()];
+        for (int row = 0; row < rows; row++) {
+            if (matches(row, query, filter)) byCode[methods[row]] += amounts[row];
+        }
+        for (int code = 0; code < byCode.length; code++) {
+            if (byCode[code] != 0) totals.put(methodNames.value(code), byCode[code]);
+        }
+        return totals;
+    }
+
+    /**
+     * Total amount per student, keyed by normalised student ID
+     */
+    synchronized Map<String, Double> totalsByStudent(Query query) {
+        Map<String, Double> totals = new HashMap<>();
+        int[] filter = codes(query);
+        if (filter == null) return totals;
+        double[] byCode = new double[studentIds.size()];
+        boolean[] seen = new boolean[byCode.length];
+        for (int row = 0; row < rows; row++) {
+            if (matches(row, query, filter)) {
+                byCode[students[row]] += amounts[row];
+                seen[students[row]] = true;
+            }
+        }
+        for (int code = 0; code < byCode.length; code++) {
+            if (seen[code]) totals.put(studentIds.value(code), byCode[code]);
+        }
+        return totals;
+    }
+
+    /**
+     * Total amount per calendar month of the payment date, oldest first
+     */
+    synchronized SortedMap<YearMonth, Double> totalsByMonth(Query query) {
+        SortedMap<YearMonth, Double> totals = new TreeMap<>();
+        int[] filter = codes(query);
+        if (filter == null) return totals;
+        // Consecutive rows are usually in the same month, so the lookup is skipped for runs
+        int monthStart = 1;
+        int monthEnd = 0;
+        YearMonth month = null;
+        double sum = 0;
+        for (int row = 0; row < rows; row++) {
+            if (!matches(row, query, filter) || days[row] == NO_DATE) continue;
+            if (days[row] < monthStart || days[row] > monthEnd) {
+                if (month != null) totals.merge(month, sum, Double::sum);
+                LocalDate date = LocalDate.ofEpochDay(days[row]);
+                month = YearMonth.from(date);
+                monthStart = (int) month.atDay(1).toEpochDay();
+                monthEnd = (int) month.atEndOfMonth().toEpochDay();
+                sum = 0;
+            }
+            sum += amounts[row];
+        }
+        if (month != null) totals.merge(month, sum, Double::sum);
+        return totals;
+    }
+
+    /**
+     * IDs of the matching payments in ledger order
+     */
+    synchronized List<String> paymentIds(Query query) {
+        List<String> ids = new ArrayList<>();
+        int[] filter = codes(query);
+        if (filter == null) return ids;
+        for (int row = 0; row < rows; row++) {
+            if (matches(row, query, filter)) ids.add(paymentIds[row]);
+        }
+        return ids;
+    }
+
+    synchronized int size() {
+        return liveRows;
+    }
+
+    DataRepository.RowIndex<Payment> index() {
+        return new DataRepository.RowIndex<Payment>() {
+            @Override
+            public void add(String key, Payment row) {
+                append(key, row);
+            }
+
+            @Override
+            public void update(String key, Payment old, Payment now) {
+                append(key, now);
+            }
+
+            @Override
+            public void remove(String key, Payment row) {
+                retire(key);
+            }
+
+            @Override
+            public void clear() {
+                synchronized (PaymentColumns.this) {
+                    rows = 0;
+                    liveRows = 0;
+                    classStart[0] = 0;
+                    rowOf.clear();
+                    Arrays.fill(paymentIds, null);
+                    studentIds.clear();
+                    classIds.clear();
+                    methodNames.clear();
+                    statusNames.clear();
+                }
+            }
+        };
+    }
+
+    private synchronized void append(String paymentId, Payment payment) {
+        String key = DataRepository.normalize(paymentId);
+        retire(paymentId);
+        if (rows == amounts.length) grow();
+
+        String[] classes = payment.getClassIds() != null ? payment.getClassIds() : new String[0];
+        int start = classStart[rows];
+        if (start + classes.length > classCodes.length) {
+            classCodes = Arrays.copyOf(classCodes, Math.max(classCodes.length * 2, start + classes.length));
+        }
+        int listed = 0;
+        for (String classId : classes) {
+            if (classId == null || classId.trim().isEmpty()) continue;
+            classCodes[start + listed++] = classIds.code(DataRepository.normalize(classId));
+        }
+
+        paymentIds[rows] = payment.getPaymentId();
+        amounts[rows] = payment.getAmount();
+        days[rows] = epochDay(payment.getPaymentDate());
+        students[rows] = studentIds.code(DataRepository.normalize(payment.getStudentId()));
+        methods[rows] = methodNames.code(text(payment.getPaymentMethod()));
+        statuses[rows] = statusNames.code(text(payment.getStatus()).toUpperCase(Locale.ROOT));
+        classStart[rows + 1] = start + listed;
+        rowOf.put(key, rows);
+        rows++;
+        liveRows++;
+    }
+
+    // Marks the payment's current row dead, compacting once dead rows outnumber live ones
+    private synchronized void retire(String paymentId) {
+        Integer previous = rowOf.remove(DataRepository.normalize(paymentId));
+        if (previous == null) return;
+        students[previous] = DEAD;
+        liveRows--;
+        int dead = rows - liveRows;
+        if (dead >= MIN_DEAD_TO_COMPACT && dead > liveRows) compact();
+    }
+
+    // Drops retired rows, keeping ledger order; dictionary codes stay valid
+    private void compact() {
+        int[] moved = new int[rows];
+        int write = 0;
+        int classWrite = 0;
+        int start = classStart[0];
+        for (int row = 0; row < rows; row++) {
+            int end = classStart[row + 1]; // read before the slot is rewritten
+            if (students[row] == DEAD) {
+                moved[row] = -1;
+            } else {
+                System.arraycopy(classCodes, start, classCodes, classWrite, end - start);
+                classWrite += end - start;
+                paymentIds[write] = paymentIds[row];
+                amounts[write] = amounts[row];
+                days[write] = days[row];
+                students[write] = students[row];
+                methods[write] = methods[row];
+                statuses[write] = statuses[row];
+                classStart[write + 1] = classWrite;
+                moved[row] = write++;
+            }
+            start = end;
+        }
+        Arrays.fill(paymentIds, write, rows, null);
+        rowOf.replaceAll((key, row) -> moved[row]);
+        rows = write;
+    }
+
+    private void grow() {
+        int capacity = amounts.length * 2;
+        paymentIds = Arrays.copyOf(paymentIds, capacity);
+        amounts = Arrays.copyOf(amounts, capacity);
+        days = Arrays.copyOf(days, capacity);
+        students = Arrays.copyOf(students, capacity);
+        methods = Arrays.copyOf(methods, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+        classStart = Arrays.copyOf(classStart, capacity + 1);
+    }
+
+    /**
+     * {student, class, method, status} codes for the query, -1 where unfiltered;
+     * null when a filter names a value no payment has
+     */
+    private int[] codes(Query query) {
+        int[] filter = {
+            query.studentId != null ? studentIds.find(DataRepository.normalize(query.studentId)) : -1,
+            query.classId != null ? classIds.find(DataRepository.normalize(query.classId)) : -1,
+            query.method != null ? methodNames.find(text(query.method)) : -1,
+            query.status != null ? statusNames.find(text(query.status).toUpperCase(Locale.ROOT)) : -1
+        };
+        if ((query.studentId != null && filter[0] < 0) || (query.classId != null && filter[1] < 0)
+                || (query.method != null && filter[2] < 0) || (query.status != null && filter[3] < 0)) {
+            return null;
+        }
+        return filter;
+    }
+
+    private boolean matches(int row, Query query, int[] filter) {
+        if (students[row] == DEAD) return false;
+        if (query.dated() && (days[row] < query.fromDay || days[row] > query.toDay || days[row] == NO_DATE)) {
+            return false;
+        }
+        if (filter[0] >= 0 && students[row] != filter[0]) return false;
+        if (filter[2] >= 0 && methods[row] != filter[2]) return false;
+        if (filter[3] >= 0 && statuses[row] != filter[3]) return false;
+        if (filter[1] >= 0) {
+            for (int i = classStart[row]; i < classStart[row + 1]; i++) {
+                if (classCodes[i] == filter[1]) return true;
+            }
+            return false;
+        }
+        return true;
+    }
+
+    // "yyyy-MM-dd..." to epoch days without building a LocalDate per row
+    static int epochDay(String date) {
+        if (date == null) return NO_DATE;
+        date = date.trim();
+        if (date.length() < 10 || date.charAt(4) != '-' || date.charAt(7) != '-') return NO_DATE;
+        int year = digits(date, 0, 4);
+        int month = digits(date, 5, 7);
+        int day = digits(date, 8, 10);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31) return NO_DATE;
+
+        // Days from civil date (proleptic Gregorian), as LocalDate.toEpochDay computes it
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    private static int digits(String text, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static String text(String value) {
+        return value != null ? value.trim() : "";
+    }
+
+    // Distinct values numbered in first-seen order
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int code(String value) {
+            Integer code = codes.get(value);
+            if (code == null) {
+                code = values.size();
+                codes.put(value, code);
+                values.add(value);
+            }
+            return code;
+        }
+
+        int find(String value) {
+            return codes.getOrDefault(value, -1);
+        }
+
+        String value(int code) {
+            return values.get(code);
+        }
+
+        int size() {
+            return values.size();
+        }
+
+        void clear() {
+            codes.clear();
+            values.clear();
+        }
+    }
+}
\ No newline at end of file
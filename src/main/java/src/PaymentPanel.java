@@ -5,8 +5,6 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.HashMap;
 
 /**
  * PaymentPanel - Panel for processing payments and generating receipts
@@ -282,17 +280,10 @@ public class PaymentPanel extends JPanel {
             subjectsListModel.clear();
             String[] classIds = student.getClassIds();
             
-            // Get all classes for lookup
-            List<ClassInfo> allClasses = dataManager.getAllClasses();
-            Map<String, ClassInfo> classMap = new HashMap<>();
-            for (ClassInfo classInfo : allClasses) {
-                classMap.put(classInfo.getClassId(), classInfo);
-            }
-            
             // Add enrolled classes to the list
             for (String classId : classIds) {
                 if (classId != null && !classId.trim().isEmpty()) {
-                    ClassInfo classInfo = classMap.get(classId);
+                    ClassInfo classInfo = dataManager.getClassById(classId);
                     if (classInfo != null) {
                         subjectsListModel.addElement(classInfo);
                     }
@@ -428,22 +419,21 @@ private String formatMonth(String month) {
 }
 
 private boolean hasStudentPaidThisMonth(String studentId, String currentMonth) {
-    try (java.io.BufferedReader br = new java.io.BufferedReader(new java.io.FileReader("payment_history.txt"))) {
-        String line;
-        while ((line = br.readLine()) != null) {
-            String[] parts = line.split(",");
-            if (parts.length >= 6 && parts[0].trim().equals(studentId)) {
-                // Check if payment month matches current month
-                String paymentMonth = parts.length > 5 ? parts[5] : getCurrentMonth();
-                if (currentMonth.equals(paymentMonth)) {
-                    return true;
-                }
+    boolean[] paid = new boolean[1];
+    try {
+        MappedLedgerReader.scan("payment_history.txt", record -> {
+            // Check if payment month matches current month
+            if (record.fieldCount() >= 6 && record.fieldEquals(0, studentId)
+                    && record.fieldEquals(5, currentMonth)) {
+                paid[0] = true;
+                return false; // stop scanning
             }
-        }
+            return true;
+        });
     } catch (java.io.IOException e) {
         System.err.println("Error checking payment history: " + e.getMessage());
     }
-    return false;
+    return paid[0];
 }
 
 private void updatePaymentHistoryWithMonth(String studentId, String studentName, 
@@ -454,7 +444,7 @@ private void updatePaymentHistoryWithMonth(String studentId, String studentName,
         String methodStr = paymentMethod.toLowerCase().replace(" ", "");
         
         // NEW FORMAT: studentId,name,classes,amount,method,month
-        String record = String.join(",",
+        String record = CsvTokenizer.join(
             studentId,
             studentName,
             classIdsStr,
@@ -518,55 +518,17 @@ public class ProfilePanel extends JPanel {
      * UPDATED: Method to update admin in file
      */
     private boolean updateAdminInFile(Admin admin) {
-        try {
-            java.io.File file = new java.io.File("admin.txt");
-            java.util.List<String> lines = new java.util.ArrayList<>();
-            boolean found = false;
-            
-            // Read all lines
-            if (file.exists()) {
-                try (java.io.BufferedReader reader = new java.io.BufferedReader(new java.io.FileReader(file))) {
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        lines.add(line);
-                    }
-                }
-            }
-            
-            // Update the admin's line
-            for (int i = 0; i < lines.size(); i++) {
-                String[] parts = lines.get(i).split(",");
-                if (parts.length >= 1 && parts[0].equals(admin.getUserId())) {
-                    // Format: UserID,Username,Password,Name,Email,Phone,Role
-                    String updatedLine = String.format("%s,%s,%s,%s,%s,%s,%s",
-                        admin.getUserId(), 
-                        admin.getUsername(), 
-                        admin.getPassword(),
-                        admin.getName(), 
-                        admin.getEmail(), 
-                        admin.getPhone(),
-                        admin.getRole());
-                    lines.set(i, updatedLine);
-                    found = true;
-                    break;
-                }
-            }
-            
-            if (found) {
-                // Write back to file
-                try (java.io.PrintWriter writer = new java.io.PrintWriter(new java.io.FileWriter(file))) {
-                    for (String line : lines) {
-                        writer.println(line);
-                    }
-                }
-                return true;
-            }
-            return false;
-            
-        } catch (java.io.IOException e) {
-            e.printStackTrace();
-            return false;
-        }
+        // Update the admin's line (single-record write, so journal mode sees it)
+        // Format: UserID,Username,Password,Name,Email,Phone,Role
+        String updatedLine = CsvTokenizer.join(
+            admin.getUserId(), 
+            admin.getUsername(), 
+            admin.getPassword(),
+            admin.getName(), 
+            admin.getEmail(), 
+            admin.getPhone(),
+            admin.getRole());
+        return DataRepository.getInstance().updateRecord("admin.txt", admin.getUserId(), updatedLine);
     }
     
     private void changePassword() {
@@ -583,7 +545,7 @@ public class ProfilePanel extends JPanel {
         }
         
         // Check current password
-        if (!currentPassword.equals(currentUser.getPassword())) {
+        if (!PasswordHasher.matches(currentPassword, currentUser.getPassword())) {
             JOptionPane.showMessageDialog(this, "Current password is incorrect!", 
                 "Validation Error", JOptionPane.ERROR_MESSAGE);
             return;
@@ -611,7 +573,7 @@ public class ProfilePanel extends JPanel {
         }
         
         // Update password
-        currentUser.setPassword(newPassword);
+        currentUser.setPassword(PasswordHasher.hash(newPassword));
         clearPasswordFields();
         
         JOptionPane.showMessageDialog(this, "Password changed successfully!", 
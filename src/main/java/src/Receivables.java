@@ -0,0 +1,167 @@
+import java.time.YearMonth;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Receivables answers "who owes what" for a billing month, for every student
+ * at once. For each student:
+ *
+ *   due          monthly fees of the enrolled classes
+ *   paid         payments.txt payments dated in the billing month
+ *   credit       the stored balance (Student.getTotalBalance), as in viewPaymentStatus
+ *   outstanding  what is left after paid and credit, never below zero
+ *
+ * The list is one join of the student table against a fee map of the class
+ * table (a class listed twice is charged once, as in Student.calculateTotalFees)
+ * and the per-student totals of PaymentColumns; at
+ * atc.receivables.parallelThreshold students (default 20,000) the join runs as
+ * a parallel stream. It is kept until a student or class changes. A payment
+ * recorded in the meantime arrives through the payments RowIndex and is added
+ * to its student's entry in place, so the counter sees it straight away.
+ */
+final class Receivables {
+    private static final int PARALLEL_THRESHOLD = Integer.getInteger("atc.receivables.parallelThreshold", 20_000);
+
+    /**
+     * One student's position for the billing month
+     */
+    static final class Entry {
+        private final String studentId;
+        private final String name;
+        private final double due;
+        private double paid;
+        private final double credit;
+
+        private Entry(String studentId, String name, double due, double paid, double credit) {
+            this.studentId = studentId;
+            this.name = name;
+            this.due = due;
+            this.paid = paid;
+            this.credit = credit;
+        }
+
+        String getStudentId() { return studentId; }
+        String getName() { return name; }
+        double getDue() { return due; }
+        double getPaid() { return paid; }
+        double getCredit() { return credit; }
+
+        double getOutstanding() {
+            return Math.max(0, due - paid - credit);
+        }
+
+        private Entry copy() {
+            return new Entry(studentId, name, due, paid, credit);
+        }
+    }
+
+    private YearMonth month;
+    private int fromDay;
+    private int toDay;
+    private long studentsVersion = -1;
+    private long classesVersion = -1;
+    private final Map<String, Entry> entries = new LinkedHashMap<>(); // normalised student ID -> entry
+    private long paymentChanges; // bumped by every payment event, to spot ones that race a rebuild
+
+    Receivables() {
+    }
+
+    /**
+     * Copies of the entries, in student table order, if they are current for
+     * these versions; null when they have to be rebuilt
+     */
+    synchronized List<Entry> current(YearMonth month, long studentsVersion, long classesVersion) {
+        if (!month.equals(this.month) || studentsVersion != this.studentsVersion
+                || classesVersion != this.classesVersion) {
+            return null;
+        }
+        List<Entry> copy = new ArrayList<>(entries.size());
+        for (Entry entry : entries.values()) copy.add(entry.copy());
+        return copy;
+    }
+
+    synchronized long paymentChanges() {
+        return paymentChanges;
+    }
+
+    /**
+     * Builds the entries from table snapshots and keeps them, unless a payment
+     * arrived since paymentChanges() was read; the caller may then retry.
+     * @return the joined entries either way, as copies
+     */
+    List<Entry> rebuild(YearMonth month, long studentsVersion, long classesVersion, long paymentChanges,
+                    List<Student> students, List<ClassInfo> classes, Map<String, Double> paidByStudent) {
+        Map<String, Double> fees = new HashMap<>(classes.size() * 2);
+        for (ClassInfo classInfo : classes) {
+            fees.put(DataRepository.normalize(classInfo.getClassId()), classInfo.getFee());
+        }
+        // The join itself runs without the lock; only installing the result takes it
+        List<Entry> joined = (students.size() >= PARALLEL_THRESHOLD ? students.parallelStream() : students.stream())
+            .map(student -> join(student, fees, paidByStudent))
+            .collect(Collectors.toList());
+
+        synchronized (this) {
+            if (paymentChanges != this.paymentChanges) return joined;
+            entries.clear();
+            for (Entry entry : joined) entries.put(DataRepository.normalize(entry.studentId), entry);
+            this.month = month;
+            this.fromDay = PaymentColumns.epochDay(month.atDay(1).toString());
+            this.toDay = PaymentColumns.epochDay(month.atEndOfMonth().toString());
+            this.studentsVersion = studentsVersion;
+            this.classesVersion = classesVersion;
+            List<Entry> copy = new ArrayList<>(joined.size());
+            for (Entry entry : joined) copy.add(entry.copy());
+            return copy;
+        }
+    }
+
+    private static Entry join(Student student, Map<String, Double> fees, Map<String, Double> paidByStudent) {
+        double due = 0;
+        for (String classId : DataRepository.distinct(student.getSubjects())) {
+            due += fees.getOrDefault(classId, 0.0);
+        }
+        String key = DataRepository.normalize(student.getStudentId());
+        return new Entry(student.getStudentId(), student.getName(), due,
+                         paidByStudent.getOrDefault(key, 0.0), student.getTotalBalance());
+    }
+
+    DataRepository.RowIndex<Payment> paymentIndex() {
+        return new DataRepository.RowIndex<Payment>() {
+            @Override
+            public void add(String key, Payment row) {
+                apply(row, 1);
+            }
+
+            @Override
+            public void update(String key, Payment old, Payment now) {
+                synchronized (Receivables.this) {
+                    apply(old, -1);
+                    apply(now, 1);
+                }
+            }
+
+            @Override
+            public void remove(String key, Payment row) {
+                apply(row, -1);
+            }
+
+            @Override
+            public void clear() {
+                synchronized (Receivables.this) {
+                    paymentChanges++;
+                    month = null; // rebuilt with the reloaded ledger on the next read
+                }
+            }
+        };
+    }
+
+    // sign is 1 for a new payment, -1 to take one back out
+    private synchronized void apply(Payment payment, int sign) {
+        paymentChanges++;
+        if (month == null || payment.getStudentId() == null) return;
+        int day = PaymentColumns.epochDay(payment.getPaymentDate());
+        if (day == PaymentColumns.NO_DATE || day < fromDay || day > toDay) return;
+        Entry entry = entries.get(DataRepository.normalize(payment.getStudentId()));
+        if (entry != null) entry.paid += sign * payment.getAmount();
+    }
+}
\ No newline at end of file
@@ -1,16 +1,17 @@
 import java.awt.*;
 import java.awt.event.ActionListener;
-import java.io.*;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.table.DefaultTableModel;
 
 public class ReceptionistDashboard extends JFrame {
     private User currentUser;
+    private final UserSession session;
     private DataManager dataManager;
     private JTabbedPane tabbedPane;
     
@@ -31,6 +32,7 @@ public class ReceptionistDashboard extends JFrame {
     
     public ReceptionistDashboard(User user) {
         this.currentUser = user;
+        this.session = UserSession.of(user, "RECEPTIONIST");
         this.dataManager = new DataManager();
         
         initializeComponents();
@@ -52,6 +54,7 @@ public class ReceptionistDashboard extends JFrame {
     tabbedPane.addTab("👥 Manage Students", createManageStudentsPanel());
     tabbedPane.addTab("🔄 Subject Requests", createSubjectRequestsPanel()); // NEW TAB
     tabbedPane.addTab("💳 Payments", createPaymentsPanel());
+    tabbedPane.addTab("💰 Receivables", createReceivablesPanel());
     tabbedPane.addTab("👤 Profile", createEnhancedProfilePanel());
 }
 
@@ -590,10 +593,9 @@ private JPanel createSubjectRequestsPanel() {
     private int getPendingSubjectRequests() {
     int count = 0;
     try (java.io.BufferedReader br = new java.io.BufferedReader(new java.io.FileReader("Subject_Change_Requests.txt"))) {
-        String line;
-        while ((line = br.readLine()) != null) {
-            String[] parts = line.split(",");
-            if (parts.length >= 5 && "Pending".equalsIgnoreCase(parts[4].trim())) {
+        CsvTokenizer csv = new CsvTokenizer(br);
+        while (csv.next()) {
+            if (csv.fieldCount() >= 5 && csv.fieldEqualsIgnoreCase(4, "Pending")) {
                 count++;
             }
         }
@@ -723,7 +725,7 @@ private JPanel createSubjectRequestsPanel() {
             return;
         }
         
-        if (!currentPassword.equals(currentUser.getPassword())) {
+        if (!PasswordHasher.matches(currentPassword, currentUser.getPassword())) {
             JOptionPane.showMessageDialog(this, 
                 "Current password is incorrect!", 
                 "Authentication Error", JOptionPane.ERROR_MESSAGE);
@@ -752,12 +754,13 @@ private JPanel createSubjectRequestsPanel() {
         }
         
         try {
-            // Update password in file
-            boolean success = updateReceptionistPasswordInFile(currentUser.getUserId(), newPassword);
+            // Update password in file (stored as a PBKDF2 verifier)
+            boolean success = dataManager.changeUserPassword(currentUser.getUserId(), "RECEPTIONIST",
+                                                             currentPassword, newPassword);
             
             if (success) {
-                // Update current user object
-                currentUser.setPassword(newPassword);
+                // Update current user object with the stored verifier
+                currentUser.setPassword(session.getUser().getPassword());
                 
                 // Clear fields
                 currentField.setText("");
@@ -782,113 +785,25 @@ private JPanel createSubjectRequestsPanel() {
     }
     
     private boolean updateReceptionistInFile(String userId, String name, String email, String phone, String address) {
-        try {
-            File file = new File("receptionist.txt");
-            List<String> lines = new ArrayList<>();
-            boolean found = false;
-            
-            // Read all lines
-            if (file.exists()) {
-                try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        lines.add(line);
-                    }
-                }
-            }
-            
-            // Update the receptionist's line
-            for (int i = 0; i < lines.size(); i++) {
-                String[] parts = lines.get(i).split(",");
-                if (parts.length >= 1 && parts[0].equals(userId)) {
-                    // Reconstruct the line with updated information
-                    // Format: userId,username,name,password,email,phone,address
-                    String updatedLine = userId + "," + 
-                                       (parts.length >= 2 ? parts[1] : currentUser.getUsername()) + "," + 
-                                       name + "," + 
-                                       (parts.length >= 4 ? parts[3] : currentUser.getPassword()) + "," + 
-                                       email + "," + phone + "," + address;
-                    lines.set(i, updatedLine);
-                    found = true;
-                    break;
-                }
-            }
-            
-            // If receptionist not found, add new line
-            if (!found) {
-                String newLine = userId + "," + currentUser.getUsername() + "," + name + "," + 
-                               currentUser.getPassword() + "," + email + "," + phone + "," + address;
-                lines.add(newLine);
-            }
-            
-            // Write back to file
-            try (PrintWriter writer = new PrintWriter(new FileWriter(file))) {
-                for (String line : lines) {
-                    writer.println(line);
-                }
-            }
-            
-            return true;
-            
-        } catch (IOException e) {
-            e.printStackTrace();
-            return false;
-        }
+        DataRepository repository = DataRepository.getInstance();
+        
+        // Update the receptionist's line (single-record write, so journal mode sees it)
+        boolean found = repository.editRecord("receptionist.txt", userId, parts ->
+            // Reconstruct the line with updated information
+            // Format: userId,username,name,password,email,phone,address
+            new String[] { userId,
+                           parts.length >= 2 ? parts[1] : currentUser.getUsername(),
+                           name,
+                           parts.length >= 4 ? parts[3] : currentUser.getPassword(),
+                           email, phone, address });
+        if (found) return true;
+        
+        // If receptionist not found, add new line
+        return repository.insertRecord("receptionist.txt", userId,
+                                       CsvTokenizer.join(userId, currentUser.getUsername(), name,
+                                                         currentUser.getPassword(), email, phone, address));
     }
     
-    private boolean updateReceptionistPasswordInFile(String userId, String newPassword) {
-        try {
-            File file = new File("receptionist.txt");
-            List<String> lines = new ArrayList<>();
-            boolean found = false;
-            
-            // Read all lines
-            if (file.exists()) {
-                try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        lines.add(line);
-                    }
-                }
-            }
-            
-            // Update the receptionist's password
-            for (int i = 0; i < lines.size(); i++) {
-                String[] parts = lines.get(i).split(",", 7);
-                if (parts.length >= 1 && parts[0].equals(userId)) {
-                    // Reconstruct the line with updated password
-                    StringBuilder updatedLine = new StringBuilder();
-                    updatedLine.append(parts[0]).append(","); // user ID
-                    updatedLine.append(parts.length >= 2 ? parts[1] : "").append(","); // username
-                    updatedLine.append(parts.length >= 3 ? parts[2] : "").append(","); // name
-                    updatedLine.append(newPassword).append(","); // new password
-                    updatedLine.append(parts.length >= 5 ? parts[4] : "").append(","); // email
-                    updatedLine.append(parts.length >= 6 ? parts[5] : "").append(","); // phone
-                    updatedLine.append(parts.length >= 7 ? parts[6] : ""); // address
-                    
-                    lines.set(i, updatedLine.toString());
-                    found = true;
-                    break;
-                }
-            }
-            
-            // Write back to file
-            if (found) {
-                try (PrintWriter writer = new PrintWriter(new FileWriter(file))) {
-                    for (String line : lines) {
-                        writer.println(line);
-                    }
-                }
-            }
-            
-            return found;
-            
-        } catch (IOException e) {
-            e.printStackTrace();
-            return false;
-        }
-    }
-
     private String getCurrentDate() {
     java.time.LocalDate now = java.time.LocalDate.now();
     java.time.format.DateTimeFormatter formatter = java.time.format.DateTimeFormatter.ofPattern("MMM dd");
@@ -897,18 +812,7 @@ private JPanel createSubjectRequestsPanel() {
 
     
     private String getReceptionistAddress(String userId) {
-        try (BufferedReader reader = new BufferedReader(new FileReader("receptionist.txt"))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length >= 7 && parts[0].equals(userId)) {
-                    return parts[6]; // address is the 7th field
-                }
-            }
-        } catch (IOException e) {
-            // File not found or error reading
-        }
-        return "Address not available";
+        return session.getAddress();
     }
     
     private String getCurrentLoginTime() {
@@ -978,32 +882,37 @@ private JPanel createStatsPanel() {
     panel.setBackground(BACKGROUND_COLOR);
     panel.setBorder(new EmptyBorder(20, 0, 20, 0));
     
-    // Get statistics - Thread safe
-    List<Student> students = getStudentsSafe();
-    List<ClassInfo> classes = dataManager.getAllClasses();
-    List<Tutor> tutors = dataManager.getAllTutors();
+    // Cards show placeholders until the statistics are read off the EDT
+    addStatCards(panel, null);
+    BackgroundLoader.fill(panel, this::loadDashboardStats, counts -> addStatCards(panel, counts));
     
-    // NEW: Get subject change request statistics
-    int pendingRequests = getPendingSubjectRequests();
+    return panel;
+}
     
-    // Calculate additional stats
-    Map<String, Integer> levelCounts = new HashMap<>();
-    for (Student student : students) {
-        levelCounts.put(student.getLevel(), levelCounts.getOrDefault(student.getLevel(), 0) + 1);
+    // Students, classes, tutors and pending requests; null while still loading
+    private void addStatCards(JPanel panel, int[] counts) {
+        String loading = BackgroundLoader.PLACEHOLDER;
+        
+        // Create stat cards - UPDATED: Added pending requests card
+        panel.add(createStatCard("👥", "Total Students", counts != null ? String.valueOf(counts[0]) : loading, PRIMARY_COLOR));
+        panel.add(createStatCard("📚", "Available Classes", counts != null ? String.valueOf(counts[1]) : loading, ACCENT_COLOR));
+        panel.add(createStatCard("👩‍🏫", "Active Tutors", counts != null ? String.valueOf(counts[2]) : loading, new Color(168, 85, 247)));
+        panel.add(createStatCard("🔄", "Pending Requests", counts != null ? String.valueOf(counts[3]) : loading, new Color(245, 158, 11)));
+        panel.add(createStatCard("👤", "Logged in as", currentUser.getName(), new Color(99, 102, 241)));
+        
+        // Create a placeholder card for the 6th position
+        panel.add(createStatCard("⏰", "Today", getCurrentDate(), new Color(59, 130, 246)));
     }
     
-    // Create stat cards - UPDATED: Added pending requests card
-    panel.add(createStatCard("👥", "Total Students", String.valueOf(students.size()), PRIMARY_COLOR));
-    panel.add(createStatCard("📚", "Available Classes", String.valueOf(classes.size()), ACCENT_COLOR));
-    panel.add(createStatCard("👩‍🏫", "Active Tutors", String.valueOf(tutors.size()), new Color(168, 85, 247)));
-    panel.add(createStatCard("🔄", "Pending Requests", String.valueOf(pendingRequests), new Color(245, 158, 11)));
-    panel.add(createStatCard("👤", "Logged in as", currentUser.getName(), new Color(99, 102, 241)));
-    
-    // Create a placeholder card for the 6th position
-    panel.add(createStatCard("⏰", "Today", getCurrentDate(), new Color(59, 130, 246)));
-    
-    return panel;
-}
+    // Runs on a worker thread: reads only, no Swing
+    private int[] loadDashboardStats() {
+        return new int[] {
+            getStudentsSafe().size(),
+            dataManager.getAllClasses().size(),
+            dataManager.getAllTutors().size(),
+            getPendingSubjectRequests() // NEW: subject change request statistics
+        };
+    }
     private JPanel createStatCard(String icon, String title, String value, Color color) {
         JPanel card = new JPanel();
         card.setLayout(new BoxLayout(card, BoxLayout.Y_AXIS));
@@ -1281,8 +1190,7 @@ private JPanel createStatsPanel() {
     
     private void performSearch(String searchTerm) {
         if (!searchTerm.isEmpty()) {
-            List<Student> results = dataManager.searchStudents(searchTerm);
-            updateStudentTable(results);
+            showStudents(() -> dataManager.searchStudents(searchTerm));
         } else {
             loadStudentData();
         }
@@ -1331,6 +1239,95 @@ private JPanel createStatsPanel() {
         return new PaymentPanel(dataManager, this);
     }
     
+    // Who owes what this month, for the counter
+    private JPanel createReceivablesPanel() {
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.setBackground(BACKGROUND_COLOR);
+        panel.setBorder(new EmptyBorder(20, 20, 20, 20));
+        
+        JPanel headerPanel = new JPanel(new BorderLayout());
+        headerPanel.setBackground(BACKGROUND_COLOR);
+        
+        java.time.YearMonth month = java.time.YearMonth.now();
+        JLabel titleLabel = new JLabel("Receivables - " + month.getMonth().getDisplayName(
+            java.time.format.TextStyle.FULL, java.util.Locale.ENGLISH) + " " + month.getYear());
+        titleLabel.setFont(new Font("Segoe UI", Font.BOLD, 24));
+        titleLabel.setForeground(TEXT_COLOR);
+        
+        JPanel optionsPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        optionsPanel.setBackground(BACKGROUND_COLOR);
+        JCheckBox outstandingOnly = new JCheckBox("Outstanding only", true);
+        outstandingOnly.setBackground(BACKGROUND_COLOR);
+        JButton refreshButton = createStyledButton("Refresh", SECONDARY_COLOR);
+        optionsPanel.add(outstandingOnly);
+        optionsPanel.add(refreshButton);
+        
+        headerPanel.add(titleLabel, BorderLayout.WEST);
+        headerPanel.add(optionsPanel, BorderLayout.EAST);
+        
+        String[] columnNames = {"ID", "Name", "Due (RM)", "Paid (RM)", "Credit (RM)", "Outstanding (RM)"};
+        DefaultTableModel model = new DefaultTableModel(columnNames, 0) {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        JTable table = new JTable(model);
+        table.setFont(new Font("Segoe UI", Font.PLAIN, 12));
+        table.setRowHeight(30);
+        table.getTableHeader().setFont(new Font("Segoe UI", Font.BOLD, 12));
+        table.getTableHeader().setBackground(SECONDARY_COLOR);
+        
+        JScrollPane scrollPane = new JScrollPane(table);
+        scrollPane.setBorder(BorderFactory.createLineBorder(new Color(229, 231, 235), 1));
+        
+        JLabel totalsLabel = new JLabel();
+        totalsLabel.setFont(new Font("Segoe UI", Font.BOLD, 14));
+        totalsLabel.setForeground(TEXT_COLOR);
+        totalsLabel.setBorder(new EmptyBorder(10, 0, 0, 0));
+        
+        totalsLabel.setText(BackgroundLoader.PLACEHOLDER);
+        
+        // One join when students or classes changed, read off the EDT; payments since then are already applied
+        Runnable refresh = () -> BackgroundLoader.load(panel, () -> DataRepository.getInstance().getReceivables(month), entries -> {
+            model.setRowCount(0);
+            double totalOutstanding = 0;
+            int owing = 0;
+            for (Receivables.Entry entry : entries) {
+                totalOutstanding += entry.getOutstanding();
+                if (entry.getOutstanding() > 0.005) owing++;
+                else if (outstandingOnly.isSelected()) continue;
+                model.addRow(new Object[] {
+                    entry.getStudentId(), entry.getName(),
+                    String.format("%.2f", entry.getDue()), String.format("%.2f", entry.getPaid()),
+                    String.format("%.2f", entry.getCredit()), String.format("%.2f", entry.getOutstanding())
+                });
+            }
+            totalsLabel.setText(String.format("%d of %d students owe RM%.2f in total",
+                                              owing, entries.size(), totalOutstanding));
+        });
+        refresh.run();
+        refreshButton.addActionListener(e -> refresh.run());
+        outstandingOnly.addActionListener(e -> refresh.run());
+        
+        // Picks up payments taken at other counters while the tab is open
+        Timer timer = new Timer(5000, e -> {
+            if (panel.isShowing()) refresh.run();
+        });
+        timer.start();
+        addWindowListener(new java.awt.event.WindowAdapter() {
+            @Override
+            public void windowClosed(java.awt.event.WindowEvent e) {
+                timer.stop();
+            }
+        });
+        
+        panel.add(headerPanel, BorderLayout.NORTH);
+        panel.add(scrollPane, BorderLayout.CENTER);
+        panel.add(totalsLabel, BorderLayout.SOUTH);
+        return panel;
+    }
+    
     // Helper methods for UI components (from AdminDashboard pattern)
     private JTextField createStyledTextField() {
         JTextField field = new JTextField(30);
@@ -1451,93 +1448,48 @@ private JPanel createStatsPanel() {
     
     // Thread-safe data access methods
     public void loadStudentData() {
-        SwingUtilities.invokeLater(() -> {
-            List<Student> students = getStudentsSafe();
-            updateStudentTable(students);
-        });
+        showStudents(this::getStudentsSafe);
     }
     
-    private List<Student> getStudentsSafe() {
-        synchronized(fileLock) {
-            return dataManager.getAllStudents();
-        }
+    // Reads the students and the class names off the EDT, then fills the table on it
+    private void showStudents(Supplier<List<Student>> students) {
+        BackgroundLoader.load(studentTable, () -> new StudentRows(students.get(), getClassSubjects()),
+                              rows -> updateStudentTable(rows.students, rows.classSubjects));
     }
-
-    private List<Student> readStudentsDirectly() {
-    List<Student> students = new ArrayList<>();
     
-    System.out.println("🔧 DIRECT FIX: Reading students directly from file...");
+    private Map<String, String> getClassSubjects() {
+        Map<String, String> classIdToSubjectMap = new HashMap<>();
+        for (ClassInfo classInfo : dataManager.getAllClasses()) {
+            classIdToSubjectMap.put(classInfo.getClassId(), classInfo.getSubject());
+        }
+        return classIdToSubjectMap;
+    }
     
-    try (BufferedReader reader = new BufferedReader(new FileReader("students.txt"))) {
-        String line;
-        while ((line = reader.readLine()) != null) {
-            if (line.trim().isEmpty()) continue;
-            
-            String[] parts = line.split(",");
-            System.out.println("🔍 Processing line: " + line);
-            
-            // File format: StudentID,IC,Password,Name,Email,Phone,Address,Level,Month,Subjects
-            if (parts.length >= 9) {
-                String studentId = parts[0].trim();
-                String ic = parts[1].trim();
-                String password = parts[2].trim();
-                String name = parts[3].trim();        // <- CORRECT FIELD FOR NAME
-                String email = parts[4].trim();
-                String phone = parts[5].trim();
-                String address = parts[6].trim();
-                String level = parts[7].trim();
-                String enrollmentMonth = parts[8].trim();
-                
-                System.out.println("🔍 Creating student: ID=" + studentId + ", Name=" + name);
-                
-                Student student = new Student(
-                    studentId,      // userId
-                    ic,            // ic
-                    studentId,     // username  
-                    password,      // password
-                    name,          // name <- IMPORTANT: USE CORRECT FIELD
-                    email,         // email
-                    phone,         // phone
-                    address,       // address
-                    level,         // level
-                    enrollmentMonth // enrollmentMonth
-                );
-                
-                // Handle subjects
-                if (parts.length > 9 && !parts[9].trim().isEmpty()) {
-                    student.setSubjectsFromString(parts[9].trim());
-                }
-                
-                students.add(student);
-                
-                System.out.println("✅ Added student: " + name + " (ID: " + studentId + ")");
-            }
+    private static class StudentRows {
+        final List<Student> students;
+        final Map<String, String> classSubjects;
+        
+        StudentRows(List<Student> students, Map<String, String> classSubjects) {
+            this.students = students;
+            this.classSubjects = classSubjects;
         }
-    } catch (IOException e) {
-        System.err.println("❌ Error reading students.txt: " + e.getMessage());
-        return dataManager.getAllStudents(); // Fallback
     }
     
-    System.out.println("✅ Direct read completed: " + students.size() + " students");
-    return students;
-}
+    private List<Student> getStudentsSafe() {
+        synchronized(fileLock) {
+            return dataManager.getAllStudents();
+        }
+    }
     
-    private void updateStudentTable(List<Student> students) {
+    private void updateStudentTable(List<Student> students, Map<String, String> classIdToSubjectMap) {
         // Ensure this runs on EDT
         if (!SwingUtilities.isEventDispatchThread()) {
-            SwingUtilities.invokeLater(() -> updateStudentTable(students));
+            SwingUtilities.invokeLater(() -> updateStudentTable(students, classIdToSubjectMap));
             return;
         }
         
         studentTableModel.setRowCount(0);
         
-        // Get all classes for lookup
-        List<ClassInfo> allClasses = dataManager.getAllClasses();
-        Map<String, String> classIdToSubjectMap = new HashMap<>();
-        for (ClassInfo classInfo : allClasses) {
-            classIdToSubjectMap.put(classInfo.getClassId(), classInfo.getSubject());
-        }
-        
         for (Student student : students) {
             // Convert class IDs to subject names for display
             StringBuilder subjectsDisplay = new StringBuilder();
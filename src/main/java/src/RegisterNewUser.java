@@ -1,5 +1,4 @@
 import java.awt.*;
-import java.io.*;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 
@@ -228,7 +227,7 @@ public class RegisterNewUser extends JDialog {
             boolean success = false;
             String userId = tutorIdField.getText().trim();
             String name = nameField.getText().trim();
-            String password = passwordField.getText().trim();
+            String password = PasswordHasher.hash(passwordField.getText().trim()); // stored as a PBKDF2 verifier
             String email = emailField.getText().trim();
             String phone = phoneField.getText().trim();
             
@@ -267,15 +266,12 @@ public class RegisterNewUser extends JDialog {
     private boolean registerTutor(String tutorId, String name, String password, String email, String phone, String dob) {
         try {
             // Format: TC001,Alice,pass123,alice@gmail.com,06-06-1998,0123552843
-            String newLine = String.format("%s,%s,%s,%s,%s,%s",
+            String newLine = CsvTokenizer.join(
                 tutorId, name, password, email, dob, phone);
             
-            // Append to tutor.txt
-            try (FileWriter fw = new FileWriter("tutor.txt", true)) {
-                fw.write(newLine + "\n");
-                return true;
-            }
-        } catch (IOException e) {
+            // Add to tutor.txt through the repository (journal-aware); fails if the ID is taken
+            return DataRepository.getInstance().insertRecord("tutor.txt", tutorId, newLine);
+        } catch (Exception e) {
             e.printStackTrace();
             return false;
         }
@@ -284,15 +280,12 @@ public class RegisterNewUser extends JDialog {
     private boolean registerReceptionist(String receptionistId, String username, String password, String name, String email, String phone) {
         try {
             // Format: RC001,sarah,sarah123,Sarah Johnson,sarah@atc.edu.my,0123456789
-            String newLine = String.format("%s,%s,%s,%s,%s,%s",
+            String newLine = CsvTokenizer.join(
                 receptionistId, username, password, name, email, phone);
             
-            // Append to receptionist.txt
-            try (FileWriter fw = new FileWriter("receptionist.txt", true)) {
-                fw.write(newLine + "\n");
-                return true;
-            }
-        } catch (IOException e) {
+            // Add to receptionist.txt through the repository (journal-aware); fails if the ID is taken
+            return DataRepository.getInstance().insertRecord("receptionist.txt", receptionistId, newLine);
+        } catch (Exception e) {
             e.printStackTrace();
             return false;
         }
@@ -301,15 +294,12 @@ public class RegisterNewUser extends JDialog {
     private boolean registerAdmin(String adminId, String username, String password, String name, String email, String phone, String role) {
         try {
             // Format: AD001,admin,admin123,Administrator,admin@atc.edu.my,0123456790
-            String newLine = String.format("%s,%s,%s,%s,%s,%s",
+            String newLine = CsvTokenizer.join(
                 adminId, username, password, name, email, phone);
             
-            // Append to admin.txt
-            try (FileWriter fw = new FileWriter("admin.txt", true)) {
-                fw.write(newLine + "\n");
-                return true;
-            }
-        } catch (IOException e) {
+            // Add to admin.txt through the repository (journal-aware); fails if the ID is taken
+            return DataRepository.getInstance().insertRecord("admin.txt", adminId, newLine);
+        } catch (Exception e) {
             e.printStackTrace();
             return false;
         }
@@ -390,89 +380,42 @@ public class RegisterNewUser extends JDialog {
     }
     
     private boolean isUsernameExists(String username) {
-        String filename = userType.equals("RECEPTIONIST") ? "receptionist.txt" : "admin.txt";
-        try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length >= 2 && parts[1].trim().equalsIgnoreCase(username)) {
-                    return true;
-                }
+        DataRepository repository = DataRepository.getInstance();
+        java.util.List<? extends User> users = userType.equals("RECEPTIONIST")
+                ? repository.getReceptionists() : repository.getAdmins();
+        for (User user : users) {
+            if (user.getUsername().trim().equalsIgnoreCase(username)) {
+                return true;
             }
-        } catch (IOException e) {
-            // File doesn't exist, username is available
         }
         return false;
     }
     
     private boolean isIdExists(String id) {
-        String filename;
+        DataRepository repository = DataRepository.getInstance();
         switch (userType) {
             case "TUTOR":
-                filename = "tutor.txt";
-                break;
+                return repository.findTutor(id) != null;
             case "RECEPTIONIST":
-                filename = "receptionist.txt";
-                break;
+                return repository.findReceptionist(id) != null;
             case "ADMIN":
-                filename = "admin.txt";
-                break;
+                return repository.findAdmin(id) != null;
             default:
                 return false;
         }
-        
-        try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length >= 1 && parts[0].trim().equals(id)) {
-                    return true;
-                }
-            }
-        } catch (IOException e) {
-            // File doesn't exist, ID is available
-        }
-        return false;
     }
     
     private String generateNextId() {
-        String prefix;
-        String filename;
-        
         switch (userType) {
             case "TUTOR":
-                prefix = "TC";
-                filename = "tutor.txt";
-                break;
+                return IdSequence.getInstance().next("TC");
             case "RECEPTIONIST":
-                prefix = "RC";
-                filename = "receptionist.txt";
-                break;
+                return IdSequence.getInstance().next("RC");
             case "ADMIN":
-                prefix = "AD";
-                filename = "admin.txt";
-                break;
+                return IdSequence.getInstance().next("AD");
             default:
                 return "ERR001";
         }
-        
-        int maxId = 0;
-        try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length >= 1 && parts[0].startsWith(prefix)) {
-                    try {
-                        int num = Integer.parseInt(parts[0].substring(2));
-                        maxId = Math.max(maxId, num);
-                    } catch (NumberFormatException ignored) {}
-                }
-            }
-        } catch (IOException e) {
-            // File doesn't exist, start from 0
-        }
-        
-        return String.format("%s%03d", prefix, maxId + 1);
     }
     
     private void showValidationError(String message) {
@@ -0,0 +1,109 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * ReportCache keeps recent report results by their parameters, least recently
+ * used first out once it holds atc.reportCache.size entries (default 64).
+ *
+ * Every result is tagged with the versions of payments.txt and class.txt it was
+ * built from. A lookup reads the current versions (two stat calls through
+ * DataRepository); if either moved, every entry is dropped before the lookup,
+ * so a result is served exactly as long as neither file has changed.
+ */
+final class ReportCache<V> {
+    private static final int DEFAULT_SIZE = Integer.getInteger("atc.reportCache.size", 64);
+
+    private final String name;
+    private final int maxEntries;
+    private final Map<String, V> results;
+    private long paymentsVersion = -1;
+    private long classesVersion = -1;
+
+    private long hits;
+    private long misses;
+    private long invalidations;
+
+    ReportCache(String name) {
+        this(name, DEFAULT_SIZE);
+    }
+
+    ReportCache(String name, int maxEntries) {
+        this.name = name;
+        this.maxEntries = maxEntries;
+        this.results = new LinkedHashMap<String, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > ReportCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * The cached result for these parameters, or a newly built one
+     */
+    V get(Supplier<V> build, Object... parameters) {
+        DataRepository repository = DataRepository.getInstance();
+        long payments = repository.getVersion("payments.txt");
+        long classes = repository.getVersion("class.txt");
+        String key = key(parameters);
+
+        synchronized (this) {
+            if (payments != paymentsVersion || classes != classesVersion) {
+                if (!results.isEmpty()) invalidations++;
+                results.clear();
+                paymentsVersion = payments;
+                classesVersion = classes;
+            }
+            V cached = results.get(key);
+            if (cached != null) {
+                hits++;
+                return cached;
+            }
+            misses++;
+        }
+
+        V result = build.get(); // built outside the lock; the repository takes its own
+        synchronized (this) {
+            // Only keep it if no newer version was seen while it was being built
+            if (maxEntries > 0 && result != null && payments == paymentsVersion && classes == classesVersion) {
+                results.put(key, result);
+            }
+        }
+        return result;
+    }
+
+    synchronized void clear() {
+        results.clear();
+    }
+
+    synchronized long getHits() { return hits; }
+    synchronized long getMisses() { return misses; }
+    synchronized int size() { return results.size(); }
+
+    /**
+     * Share of lookups answered from the cache, 0 before the first lookup
+     */
+    synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * e.g. "Income reports: 12 hits, 3 misses (80.0% hit rate), 2 cached, 1 invalidation"
+     */
+    @Override
+    public synchronized String toString() {
+        return String.format("%s: %d hits, %d misses (%.1f%% hit rate), %d cached, %d invalidation%s",
+                             name, hits, misses, getHitRate() * 100, results.size(),
+                             invalidations, invalidations == 1 ? "" : "s");
+    }
+
+    private static String key(Object... parameters) {
+        StringBuilder key = new StringBuilder();
+        for (Object parameter : parameters) {
+            key.append(parameter).append('\u0000');
+        }
+        return key.toString();
+    }
+}
\ No newline at end of file
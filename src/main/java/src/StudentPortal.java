@@ -24,29 +24,28 @@ public class StudentPortal extends JFrame {
     private static final Font FONT_HEADER = new Font("Segoe UI", Font.BOLD, 24);
 
     private final Student student;
+    private final UserSession session;
     private JTabbedPane tabbedPane;
-    private final Map<String, String> tutorMap = new HashMap<>();
     private DataManager dataManager;
 
     public StudentPortal(Student s) {
         super("ATC Tuition Centre - " + s.getName());
         this.student = s;
+        this.session = UserSession.of(s, "STUDENT");
         this.dataManager = new DataManager();
-        loadTutors();
         setSize(1200, 800);
         setLocationRelativeTo(null);
         setDefaultCloseOperation(EXIT_ON_CLOSE);
         buildUI();
     }
 
-    private void loadTutors() {
-        try (BufferedReader br = new BufferedReader(new FileReader("tutor.txt"))) {
-            String l;
-            while ((l = br.readLine()) != null) {
-                String[] p = l.split(",");
-                if (p.length >= 2) tutorMap.put(p[0], p[1]);
-            }
-        } catch (IOException ignored) {}
+    // Tutor ID -> username; may load tutor.txt on first use, so call it off the EDT
+    private Map<String, String> loadTutors() {
+        Map<String, String> tutors = new HashMap<>();
+        for (Tutor tutor : DataRepository.getInstance().getTutors()) {
+            tutors.put(tutor.getUserId(), tutor.getUsername());
+        }
+        return tutors;
     }
 
     private void buildUI() {
@@ -172,34 +171,59 @@ private JPanel createStatsPanel() {
     panel.setBackground(BACKGROUND_COLOR);
     panel.setBorder(new EmptyBorder(20, 0, 20, 0));
     
-    // Get student statistics
-    List<String> enrolledClasses = student.getSubjects();
-    double totalFees = student.calculateTotalFees();
-    double currentBalance = student.getTotalBalance();
-    
-    // NEW: Calculate outstanding based on monthly payment status
-    String currentMonth = getCurrentMonth();
-    boolean paidThisMonth = hasStudentPaidThisMonth(currentMonth);
-    double outstandingAmount = paidThisMonth ? 0.0 : totalFees;
-    
-    // Count pending requests
-    int pendingRequests = getPendingRequests();
+    // Cards show placeholders until the fees and payments are read off the EDT
+    addStatCards(panel, null);
+    BackgroundLoader.fill(panel, this::loadStudentStats, stats -> addStatCards(panel, stats));
     
-    panel.add(createStatCard("🎓", "Student ID", student.getStudentId(), PRIMARY_COLOR));
-    panel.add(createStatCard("📚", "Enrolled Subjects", String.valueOf(enrolledClasses.size()), ACCENT_COLOR));
-    panel.add(createStatCard("💰", "Tuition Fees (Monthly)", String.format("RM %.2f", totalFees), new Color(245, 158, 11)));
-    panel.add(createStatCard("💳", "Current Balance", String.format("RM %.2f", currentBalance), new Color(168, 85, 247)));
+    return panel;
+}
     
-    // NEW: Dynamic outstanding card
-    String outstandingTitle = paidThisMonth ? "Paid This Month" : "Outstanding";
-    String outstandingIcon = paidThisMonth ? "✅" : "⚠️";
-    Color outstandingColor = paidThisMonth ? ACCENT_COLOR : ERROR_COLOR;
-    panel.add(createStatCard(outstandingIcon, outstandingTitle, String.format("RM %.2f", outstandingAmount), outstandingColor));
+    // stats is null while it is still loading
+    private void addStatCards(JPanel panel, StudentStats stats) {
+        String loading = BackgroundLoader.PLACEHOLDER;
+        
+        panel.add(createStatCard("🎓", "Student ID", student.getStudentId(), PRIMARY_COLOR));
+        panel.add(createStatCard("📚", "Enrolled Subjects", stats != null ? String.valueOf(stats.subjectCount) : loading, ACCENT_COLOR));
+        panel.add(createStatCard("💰", "Tuition Fees (Monthly)", stats != null ? String.format("RM %.2f", stats.totalFees) : loading, new Color(245, 158, 11)));
+        panel.add(createStatCard("💳", "Current Balance", stats != null ? String.format("RM %.2f", stats.balance) : loading, new Color(168, 85, 247)));
+        
+        // NEW: Dynamic outstanding card
+        if (stats != null) {
+            double outstandingAmount = stats.paidThisMonth ? 0.0 : stats.totalFees;
+            String outstandingTitle = stats.paidThisMonth ? "Paid This Month" : "Outstanding";
+            String outstandingIcon = stats.paidThisMonth ? "✅" : "⚠️";
+            Color outstandingColor = stats.paidThisMonth ? ACCENT_COLOR : ERROR_COLOR;
+            panel.add(createStatCard(outstandingIcon, outstandingTitle, String.format("RM %.2f", outstandingAmount), outstandingColor));
+        } else {
+            panel.add(createStatCard("⏳", "Outstanding", loading, new Color(107, 114, 128)));
+        }
+        
+        panel.add(createStatCard("📋", "Pending Requests", stats != null ? String.valueOf(stats.pendingRequests) : loading, new Color(99, 102, 241)));
+    }
     
-    panel.add(createStatCard("📋", "Pending Requests", String.valueOf(pendingRequests), new Color(99, 102, 241)));
+    // Runs on a worker thread: reads only, no Swing
+    private StudentStats loadStudentStats() {
+        StudentStats stats = new StudentStats();
+        // The session's user, not the one captured at login, so enrollments and payments made since show up
+        User current = session.getUser();
+        Student latest = current instanceof Student ? (Student) current : student;
+        stats.subjectCount = latest.getSubjects().size();
+        stats.balance = latest.getTotalBalance();
+        stats.totalFees = session.getFeeSummary().getMonthlyFees();
+        // NEW: Calculate outstanding based on monthly payment status
+        stats.paidThisMonth = hasStudentPaidThisMonth(getCurrentMonth());
+        // Count pending requests
+        stats.pendingRequests = getPendingRequests();
+        return stats;
+    }
     
-    return panel;
-}
+    private static class StudentStats {
+        int subjectCount;
+        double balance;
+        double totalFees;
+        boolean paidThisMonth;
+        int pendingRequests;
+    }
     
     private JPanel createStatCard(String icon, String title, String value, Color color) {
         JPanel card = new JPanel();
@@ -1000,22 +1024,27 @@ private JPanel createEnhancedSecurityInfoPanel() {
     }
 
     private boolean hasStudentPaidThisMonth(String currentMonth) {
-    try (java.io.BufferedReader br = new java.io.BufferedReader(new java.io.FileReader("payment_history.txt"))) {
-        String line;
-        while ((line = br.readLine()) != null) {
-            String[] parts = line.split(",");
-            if (parts.length >= 4 && parts[0].trim().equals(student.getStudentId())) {
+    String studentId = student.getStudentId();
+    boolean legacyMatches = currentMonth.equals(getCurrentMonth());
+    boolean[] paid = new boolean[1];
+    try {
+        MappedLedgerReader.scan("payment_history.txt", record -> {
+            if (record.fieldCount() >= 4 && record.fieldEquals(0, studentId)) {
                 // Check payment month (new format has month at index 5)
-                String paymentMonth = parts.length > 5 ? parts[5] : getCurrentMonth();
-                if (currentMonth.equals(paymentMonth)) {
-                    return true;
+                boolean monthMatches = record.fieldCount() > 5
+                    ? record.fieldEquals(5, currentMonth)
+                    : legacyMatches;
+                if (monthMatches) {
+                    paid[0] = true;
+                    return false; // stop scanning
                 }
             }
-        }
+            return true;
+        });
     } catch (java.io.IOException e) {
         System.err.println("Error checking payment history: " + e.getMessage());
     }
-    return false;
+    return paid[0];
 }
     
     private int calculatePasswordStrength(String password) {
@@ -1088,7 +1117,7 @@ private JPanel createEnhancedSecurityInfoPanel() {
             return;
         }
         
-        if (!currentPassword.equals(student.getPassword())) {
+        if (!PasswordHasher.matches(currentPassword, student.getPassword())) {
             JOptionPane.showMessageDialog(this, 
                 "Current password is incorrect!", 
                 "Authentication Error", JOptionPane.ERROR_MESSAGE);
@@ -1127,7 +1156,7 @@ private JPanel createEnhancedSecurityInfoPanel() {
         }
         
         // Update password
-        student.setPassword(newPassword);
+        student.setPassword(PasswordHasher.hash(newPassword));
         updateStudentInFile();
         
         // Clear fields
@@ -1143,50 +1172,17 @@ private JPanel createEnhancedSecurityInfoPanel() {
     }
     
     private void updateStudentInFile() {
-        try {
-            File file = new File("students.txt");
-            List<String> lines = new ArrayList<>();
-            
-            // Read all lines
-            try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    lines.add(line);
-                }
-            }
-            
-            // Update the student's line
-            for (int i = 0; i < lines.size(); i++) {
-                String[] parts = lines.get(i).split(",");
-                if (parts.length >= 1 && parts[0].equals(student.getStudentId())) {
-                    // Reconstruct the line with updated information
-                    String updatedLine = String.join(",",
-                        student.getStudentId(),
-                        student.getIc(),
-                        student.getPassword(),
-                        student.getName(),
-                        student.getEmail(),
-                        student.getPhone(),
-                        student.getAddress(),
-                        student.getLevel(),
-                        student.getEnrollmentMonth(),
-                        student.getSubjectsString()
-                    );
-                    lines.set(i, updatedLine);
-                    break;
-                }
-            }
-            
-            // Write back to file
-            try (PrintWriter writer = new PrintWriter(new FileWriter(file))) {
-                for (String line : lines) {
-                    writer.println(line);
-                }
-            }
-            
-        } catch (IOException e) {
+        // Only the password is changed here; the other columns are kept as stored,
+        // so a subject change approved since login is not written back over
+        boolean saved = DataRepository.getInstance().editRecord("students.txt", student.getStudentId(), parts -> {
+            if (parts.length < 3) return null;
+            parts[2] = student.getPassword();
+            return parts;
+        });
+        
+        if (!saved) {
             JOptionPane.showMessageDialog(this, 
-                "Error saving profile changes: " + e.getMessage(), 
+                "Error saving profile changes: student record not found or not writable", 
                 "Save Error", JOptionPane.ERROR_MESSAGE);
         }
     }
@@ -1204,18 +1200,22 @@ private JPanel createEnhancedSecurityInfoPanel() {
         content.setLayout(new BoxLayout(content, BoxLayout.Y_AXIS));
         content.setBackground(BACKGROUND_COLOR);
         content.add(Box.createVerticalStrut(20));
-
-        List<ClassInfo> list = getEnrolledClasses();
-        if (list.isEmpty()) {
-            JPanel empty = createEmptyPanel("No classes found for your enrolled subjects.\n\nPlease contact the receptionist to enroll in classes.");
-            content.add(empty);
-        } else {
-            for (ClassInfo c : list) {
-                JPanel classCard = createClassCard(c);
-                content.add(classCard);
-                content.add(Box.createVerticalStrut(15));
+        content.add(createLabel(BackgroundLoader.PLACEHOLDER));
+
+        // Classes and tutor names are read off the EDT, then the cards are built
+        BackgroundLoader.fill(content, this::loadSchedule, schedule -> {
+            content.add(Box.createVerticalStrut(20));
+            if (schedule.classes.isEmpty()) {
+                JPanel empty = createEmptyPanel("No classes found for your enrolled subjects.\n\nPlease contact the receptionist to enroll in classes.");
+                content.add(empty);
+            } else {
+                for (ClassInfo c : schedule.classes) {
+                    JPanel classCard = createClassCard(c, schedule.tutors);
+                    content.add(classCard);
+                    content.add(Box.createVerticalStrut(15));
+                }
             }
-        }
+        });
 
         JScrollPane sp = new JScrollPane(content);
         sp.setBorder(null);
@@ -1224,7 +1224,20 @@ private JPanel createEnhancedSecurityInfoPanel() {
         return p;
     }
 
-    private JPanel createClassCard(ClassInfo classInfo) {
+    // Runs on a worker thread: reads only, no Swing
+    private Schedule loadSchedule() {
+        Schedule schedule = new Schedule();
+        schedule.classes = getEnrolledClasses();
+        schedule.tutors = loadTutors();
+        return schedule;
+    }
+    
+    private static class Schedule {
+        List<ClassInfo> classes;
+        Map<String, String> tutors;
+    }
+
+    private JPanel createClassCard(ClassInfo classInfo, Map<String, String> tutors) {
         JPanel card = new JPanel();
         card.setLayout(new BoxLayout(card, BoxLayout.Y_AXIS));
         card.setBackground(Color.WHITE);
@@ -1240,7 +1253,7 @@ private JPanel createEnhancedSecurityInfoPanel() {
         card.add(Box.createVerticalStrut(10));
 
         card.add(createDetailRow("Class ID:", classInfo.getClassId()));
-        card.add(createDetailRow("Tutor:", tutorMap.getOrDefault(classInfo.getTutorId(), "Unknown")));
+        card.add(createDetailRow("Tutor:", tutors.getOrDefault(classInfo.getTutorId(), "Unknown")));
         card.add(createDetailRow("Description:", classInfo.getDescription()));
         card.add(createDetailRow("Schedule:", formatDates(classInfo.getSchedule())));
         card.add(createDetailRow("Fee:", "RM" + String.format("%.2f", classInfo.getFee())));
@@ -1408,7 +1421,7 @@ private JPanel createEnhancedSecurityInfoPanel() {
         listPanel.add(noRequests);
     } else {
         for (String req : requests) {
-            String[] p = req.split(",");
+            String[] p = CsvTokenizer.split(req);
             if (p.length >= 5) {
                 String reqId = p[0];
                 String currentClassId = p[2];
@@ -1502,7 +1515,7 @@ private JPanel createEnhancedSecurityInfoPanel() {
     mainContent.setBorder(new EmptyBorder(20, 0, 0, 0));
 
     // NEW: Enhanced payment status with monthly tracking
-    JTextArea ta = new JTextArea(getEnhancedPaymentStatus());
+    JTextArea ta = new JTextArea(BackgroundLoader.PLACEHOLDER);
     ta.setEditable(false);
     ta.setFont(new Font("Monospaced", Font.PLAIN, 13));
     ta.setBackground(Color.WHITE);
@@ -1516,16 +1529,21 @@ private JPanel createEnhancedSecurityInfoPanel() {
     JPanel bottom = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 10));
     bottom.setBackground(BACKGROUND_COLOR);
     
-    // NEW: Dynamic button text based on payment status
-    String currentMonth = getCurrentMonth();
-    boolean paidThisMonth = hasStudentPaidThisMonth(currentMonth);
-    
-    JButton paymentBtn = createStyledButton(
-        paidThisMonth ? "Additional Payment" : "Make Payment", 
-        paidThisMonth ? SECONDARY_COLOR : ACCENT_COLOR
-    );
-    paymentBtn.addActionListener(e -> handleTopUp());
-    bottom.add(paymentBtn);
+    // Status text and button are filled in once payment_history.txt is read off the EDT
+    BackgroundLoader.load(p, this::loadPaymentStatus, status -> {
+        ta.setText(status.text);
+        ta.setCaretPosition(0);
+        
+        // NEW: Dynamic button text based on payment status
+        JButton paymentBtn = createStyledButton(
+            status.paidThisMonth ? "Additional Payment" : "Make Payment", 
+            status.paidThisMonth ? SECONDARY_COLOR : ACCENT_COLOR
+        );
+        paymentBtn.addActionListener(e -> handleTopUp());
+        bottom.add(paymentBtn);
+        bottom.revalidate();
+        bottom.repaint();
+    });
 
     mainContent.add(scrollPane, BorderLayout.CENTER);
     mainContent.add(bottom, BorderLayout.SOUTH);
@@ -1534,10 +1552,23 @@ private JPanel createEnhancedSecurityInfoPanel() {
     return p;
 }
 
+    // Runs on a worker thread: reads only, no Swing
+    private PaymentStatus loadPaymentStatus() {
+        PaymentStatus status = new PaymentStatus();
+        status.paidThisMonth = hasStudentPaidThisMonth(getCurrentMonth());
+        status.text = getEnhancedPaymentStatus(status.paidThisMonth);
+        return status;
+    }
+    
+    private static class PaymentStatus {
+        boolean paidThisMonth;
+        String text;
+    }
+
     private void handleTopUp() {
     String currentMonth = getCurrentMonth();
     boolean alreadyPaid = hasStudentPaidThisMonth(currentMonth);
-    double monthlyFees = student.calculateTotalFees();
+    double monthlyFees = session.getFeeSummary().getMonthlyFees();
     
     String dialogTitle = alreadyPaid ? "Additional Payment" : "Monthly Payment";
     String dialogMessage = alreadyPaid ? 
@@ -1592,7 +1623,7 @@ private JPanel createEnhancedSecurityInfoPanel() {
         String method = ((String) cmbMethod.getSelectedItem()).toLowerCase().replace(" ", "");
 
         // NEW: Record payment with month tracking
-        String record = String.join(",",
+        String record = CsvTokenizer.join(
                 student.getStudentId(),
                 student.getName(),
                 classes,
@@ -1636,17 +1667,7 @@ private JPanel createEnhancedSecurityInfoPanel() {
 
     // Helper methods
     private List<ClassInfo> getEnrolledClasses() {
-        List<ClassInfo> out = new ArrayList<>();
-        Set<String> enrolledIds = new HashSet<>(student.getSubjects());
-        
-        List<ClassInfo> allClasses = dataManager.getAllClasses();
-        for (ClassInfo classInfo : allClasses) {
-            if (enrolledIds.contains(classInfo.getClassId())) {
-                out.add(classInfo);
-            }
-        }
-        
-        return out;
+        return session.getEnrolledClasses();
     }
     
     private JTextField createStyledTextField() {
@@ -1748,33 +1769,13 @@ private JPanel createEnhancedSecurityInfoPanel() {
 private String getSubjectNameFromId(String classId) {
     if (classId == null || classId.isEmpty()) return "Unknown";
     
-    try (java.io.BufferedReader br = new java.io.BufferedReader(new java.io.FileReader("class.txt"))) {
-        String line;
-        while ((line = br.readLine()) != null) {
-            String[] parts = line.split(",");
-            if (parts.length >= 3 && parts[0].equals(classId)) {
-                return parts[2]; // Return subject name
-            }
-        }
-    } catch (java.io.IOException ignored) {}
-    return classId; // Return class ID if subject name not found
+    // Cached class table: a stat call per lookup instead of a class.txt read
+    ClassInfo classInfo = DataRepository.getInstance().findClass(classId);
+    return classInfo != null ? classInfo.getSubject() : classId; // Return class ID if subject name not found
 }
 
 private String generateNextRequestId() {
-    int max = 0;
-    try (java.io.BufferedReader br = new java.io.BufferedReader(new java.io.FileReader("Subject_Change_Requests.txt"))) {
-        String line;
-        while ((line = br.readLine()) != null) {
-            String[] parts = line.split(",");
-            if (parts.length > 0 && parts[0].startsWith("REQ")) {
-                try {
-                    int num = Integer.parseInt(parts[0].substring(3));
-                    max = Math.max(max, num);
-                } catch (NumberFormatException ignored) {}
-            }
-        }
-    } catch (java.io.IOException ignored) {}
-    return String.format("REQ%03d", max + 1);
+    return IdSequence.getInstance().next("REQ");
 }
 
     private String formatMonth(String month) {
@@ -1805,24 +1806,19 @@ private String generateNextRequestId() {
 private String classIdFromSubjectName(String subjectName) {
     if (subjectName == null || subjectName.isEmpty()) return null;
     
-    try (java.io.BufferedReader br = new java.io.BufferedReader(new java.io.FileReader("class.txt"))) {
-        String line;
-        while ((line = br.readLine()) != null) {
-            String[] parts = line.split(",");
-            if (parts.length >= 3 && parts[2].trim().equalsIgnoreCase(subjectName.trim())) {
-                return parts[0]; // Return class ID
-            }
+    for (ClassInfo classInfo : DataRepository.getInstance().getClasses()) {
+        if (classInfo.getSubject().trim().equalsIgnoreCase(subjectName.trim())) {
+            return classInfo.getClassId(); // Return class ID
         }
-    } catch (java.io.IOException ignored) {}
+    }
     return null;
 }
 
-    private String getEnhancedPaymentStatus() {
+    private String getEnhancedPaymentStatus(boolean paidThisMonth) {
     StringBuilder sb = new StringBuilder("=== MONTHLY PAYMENT STATUS ===\n\n");
     
     String currentMonth = getCurrentMonth();
-    double monthlyFees = student.calculateTotalFees();
-    boolean paidThisMonth = hasStudentPaidThisMonth(currentMonth);
+    double monthlyFees = session.getFeeSummary().getMonthlyFees();
     
     // Current month status
     sb.append("📅 Current Month: ").append(formatMonth(currentMonth)).append("\n");
@@ -1842,10 +1838,10 @@ private String classIdFromSubjectName(String subjectName) {
     
     boolean foundPayments = false;
     try (java.io.BufferedReader br = new java.io.BufferedReader(new java.io.FileReader("payment_history.txt"))) {
-        String line;
-        while ((line = br.readLine()) != null) {
-            String[] parts = line.split(",");
-            if (parts.length >= 4 && parts[0].trim().equals(student.getStudentId())) {
+        CsvTokenizer csv = new CsvTokenizer(br);
+        while (csv.next()) {
+            if (csv.fieldCount() >= 4 && csv.fieldEquals(0, student.getStudentId())) {
+                String[] parts = csv.fields();
                 foundPayments = true;
                 String paymentMonth = parts.length > 5 ? parts[5] : "Unknown";
                 
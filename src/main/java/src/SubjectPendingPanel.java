@@ -49,7 +49,6 @@ public class SubjectPendingPanel extends JPanel {
         initializeComponents();
         setupLayout();
         loadData();
-        refreshTable();
     }
     
     private void initializeComponents() {
@@ -169,7 +168,6 @@ public class SubjectPendingPanel extends JPanel {
         JButton refreshButton = createStyledButton("Refresh", PRIMARY_COLOR);
         refreshButton.addActionListener(e -> {
             loadData();
-            refreshTable();
         });
         searchPanel.add(refreshButton);
         
@@ -264,35 +262,47 @@ public class SubjectPendingPanel extends JPanel {
         return card;
     }
     
+// Reads the requests, names and subjects off the EDT, then swaps them in and refreshes the table
 private void loadData() {
+    statsLabel.setText("Loading requests" + BackgroundLoader.PLACEHOLDER);
+    BackgroundLoader.load(this, this::readData, data -> {
+        studentNames = data.studentNames;
+        classSubjects = data.classSubjects;
+        allRequests = data.requests;
+        refreshTable();
+    });
+}
+
+// Runs on a worker thread: reads only, no Swing
+private PanelData readData() {
     System.out.println("🔍 DEBUG: Loading data for Subject Pending Panel...");
+    PanelData data = new PanelData();
     
-    // Load student names DIRECTLY from file (bypassing DataManager)
-    loadStudentNamesDirectly();
+    // Load student names
+    data.studentNames = loadStudentNames();
     
     // Load class subjects
-    classSubjects.clear();
+    Map<String, String> classSubjects = new HashMap<>();
     List<ClassInfo> classes = dataManager.getAllClasses();
     for (ClassInfo classInfo : classes) {
         classSubjects.put(classInfo.getClassId(), classInfo.getSubject());
     }
+    data.classSubjects = classSubjects;
     System.out.println("✅ Loaded " + classSubjects.size() + " class subjects");
     
     // Load requests from file
-    allRequests.clear();
+    List<SubjectChangeRequest> allRequests = new ArrayList<>();
+    data.requests = allRequests;
     try (BufferedReader br = new BufferedReader(new FileReader("Subject_Change_Requests.txt"))) {
-        String line;
-        while ((line = br.readLine()) != null) {
-            if (line.trim().isEmpty()) continue;
-            
-            String[] parts = line.split(",");
-            if (parts.length >= 5) {
+        CsvTokenizer csv = new CsvTokenizer(br);
+        while (csv.next()) {
+            if (csv.fieldCount() >= 5) {
                 SubjectChangeRequest request = new SubjectChangeRequest(
-                    parts[0].trim(), // Request ID
-                    parts[1].trim(), // Student ID
-                    parts[2].trim(), // Current Class ID
-                    parts[3].trim(), // New Class ID
-                    parts[4].trim()  // Status
+                    csv.field(0), // Request ID
+                    csv.field(1), // Student ID
+                    csv.field(2), // Current Class ID
+                    csv.field(3), // New Class ID
+                    csv.field(4)  // Status
                 );
                 allRequests.add(request);
             }
@@ -301,6 +311,13 @@ private void loadData() {
     } catch (IOException e) {
         System.out.println("ℹ️ INFO: Subject change requests file not found - will be created when needed");
     }
+    return data;
+}
+
+private static class PanelData {
+    Map<String, String> studentNames;
+    Map<String, String> classSubjects;
+    List<SubjectChangeRequest> requests;
 }
 
     
@@ -364,45 +381,13 @@ private void loadData() {
     System.out.println("✅ Table filtered: showing " + displayedCount + " out of " + allRequests.size() + " requests");
 }
 
-private void loadStudentNamesDirectly() {
-    System.out.println("🔧 DIRECT FIX: Loading student names from file...");
-    studentNames.clear();
-    
-    try (BufferedReader br = new BufferedReader(new FileReader("students.txt"))) {
-        String line;
-        while ((line = br.readLine()) != null) {
-            if (line.trim().isEmpty()) continue;
-            
-            String[] parts = line.split(",");
-            System.out.println("🔍 Raw line: " + line);
-            System.out.println("🔍 Split into " + parts.length + " parts");
-            
-            // File format: StudentID,IC,Password,Name,Email,Phone,Address,Level,Month,Subjects
-            if (parts.length >= 4) {
-                String studentId = parts[0].trim();  // STU001
-                String ic = parts[1].trim();         // 0538291933  
-                String password = parts[2].trim();   // password123
-                String name = parts[3].trim();       // Vince <- THIS IS WHAT WE WANT
-                
-                System.out.println("🔍 Parsed: ID=" + studentId + ", Name=" + name + ", Password=" + password);
-                
-                // Store the correct mapping
-                studentNames.put(studentId, name);
-                
-                System.out.println("✅ Stored: " + studentId + " -> " + name);
-            }
-        }
-    } catch (IOException e) {
-        System.err.println("❌ Error reading students.txt: " + e.getMessage());
-    }
-    
-    System.out.println("✅ Loaded " + studentNames.size() + " student names directly");
-    
-    // Print all loaded names for verification
-    System.out.println("📋 All student names loaded:");
-    for (Map.Entry<String, String> entry : studentNames.entrySet()) {
-        System.out.println("  " + entry.getKey() + " -> " + entry.getValue());
+private Map<String, String> loadStudentNames() {
+    // Read through the repository so journal-mode writes are visible here too
+    Map<String, String> studentNames = new HashMap<>();
+    for (Student student : DataRepository.getInstance().getStudents()) {
+        studentNames.put(student.getStudentId(), student.getName());
     }
+    return studentNames;
 }
 
     
@@ -450,7 +435,6 @@ private void loadStudentNamesDirectly() {
                     JOptionPane.INFORMATION_MESSAGE);
                 
                 loadData();
-                refreshTable();
                 parentFrame.refreshData(); // Refresh parent dashboard
             } else {
                 JOptionPane.showMessageDialog(this,
@@ -482,7 +466,6 @@ private void loadStudentNamesDirectly() {
                     JOptionPane.INFORMATION_MESSAGE);
                 
                 loadData();
-                refreshTable();
             } else {
                 JOptionPane.showMessageDialog(this,
                     "❌ Error rejecting request. Please try again.",
@@ -507,10 +490,10 @@ private void loadStudentNamesDirectly() {
             // Update the specific request
             boolean updated = false;
             for (int i = 0; i < lines.size(); i++) {
-                String[] parts = lines.get(i).split(",");
+                String[] parts = CsvTokenizer.split(lines.get(i));
                 if (parts.length >= 5 && parts[0].equals(requestId)) {
                     parts[4] = newStatus;
-                    lines.set(i, String.join(",", parts));
+                    lines.set(i, CsvTokenizer.join(parts));
                     updated = true;
                     break;
                 }
@@ -601,7 +584,6 @@ private void loadStudentNamesDirectly() {
                 JOptionPane.INFORMATION_MESSAGE);
             
             loadData();
-            refreshTable();
             parentFrame.refreshData();
         }
     }
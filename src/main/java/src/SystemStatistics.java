@@ -0,0 +1,278 @@
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SystemStatistics keeps the admin dashboard totals as running counters:
+ * students, tutors and classes, students per number of enrolled classes, and
+ * revenue (the monthly fees of every student's classes). A class listed twice
+ * on a student counts as one enrollment, as in DataRepository.distinct.
+ *
+ * The student, tutor and class counters are RowIndexes on DataRepository's
+ * tables, so every add, update or reload patches them. Revenue is kept as
+ * sum(fee of class x number of enrollments in it): an enrollment change adds
+ * or removes one fee, and a fee change is applied once per enrolled student.
+ *
+ * payment_history.txt and Subject_Change_Requests.txt are written directly by
+ * several screens, so they are watched by size and timestamp instead. New bytes
+ * appended to the payment history are counted on their own; the request file
+ * is small and recounted only when it changes.
+ */
+final class SystemStatistics {
+    private static final String PAYMENT_HISTORY_FILE = "payment_history.txt";
+    private static final String REQUESTS_FILE = "Subject_Change_Requests.txt";
+
+    private int students;
+    private int tutors;
+    private int classes;
+    private double revenue;
+    private final Map<Integer, Integer> studentsBySubjectCount = new TreeMap<>();
+    private final Map<String, Integer> enrollmentsByClass = new HashMap<>(); // normalised class ID -> enrolled students
+    private final Map<String, Double> feesByClass = new HashMap<>();
+
+    // payment_history.txt: {size, mtime} last counted, newline count, whether it ended with a newline
+    private long[] historyStamp;
+    private long historyNewlines;
+    private boolean historyEndsWithNewline = true;
+
+    private long[] requestsStamp;
+    private int pendingRequests;
+
+    SystemStatistics() {
+    }
+
+    /**
+     * Totals at one point in time
+     */
+    static final class Snapshot {
+        private final int totalStudents;
+        private final int totalTutors;
+        private final int totalClasses;
+        private final double totalRevenue;
+        private final int totalPayments;
+        private final int pendingRequests;
+        private final Map<Integer, Integer> studentsBySubjectCount;
+
+        private Snapshot(SystemStatistics s, int totalPayments) {
+            this.totalStudents = s.students;
+            this.totalTutors = s.tutors;
+            this.totalClasses = s.classes;
+            this.totalRevenue = s.revenue;
+            this.totalPayments = totalPayments;
+            this.pendingRequests = s.pendingRequests;
+            this.studentsBySubjectCount = Collections.unmodifiableMap(new TreeMap<>(s.studentsBySubjectCount));
+        }
+
+        int getTotalStudents() { return totalStudents; }
+        int getTotalTutors() { return totalTutors; }
+        int getTotalClasses() { return totalClasses; }
+        double getTotalRevenue() { return totalRevenue; }
+        int getTotalPayments() { return totalPayments; }
+        int getPendingRequests() { return pendingRequests; }
+
+        /**
+         * Number of students enrolled in exactly this many classes
+         */
+        int getStudentsWithSubjects(int subjectCount) {
+            return studentsBySubjectCount.getOrDefault(subjectCount, 0);
+        }
+
+        Map<Integer, Integer> getStudentsBySubjectCount() { return studentsBySubjectCount; }
+    }
+
+    synchronized Snapshot snapshot() {
+        refreshPaymentHistory();
+        refreshRequests();
+        int lines = (int) (historyNewlines + (historyEndsWithNewline ? 0 : 1));
+        return new Snapshot(this, lines);
+    }
+
+    DataRepository.RowIndex<Student> studentIndex() {
+        return new DataRepository.RowIndex<Student>() {
+            @Override
+            public void add(String key, Student row) {
+                addStudent(row, 1);
+            }
+
+            @Override
+            public void update(String key, Student old, Student now) {
+                synchronized (SystemStatistics.this) {
+                    addStudent(old, -1);
+                    addStudent(now, 1);
+                }
+            }
+
+            @Override
+            public void remove(String key, Student row) {
+                addStudent(row, -1);
+            }
+
+            @Override
+            public void clear() {
+                synchronized (SystemStatistics.this) {
+                    students = 0;
+                    studentsBySubjectCount.clear();
+                    enrollmentsByClass.clear();
+                    revenue = 0; // every fee is multiplied by an enrollment count of zero now
+                }
+            }
+        };
+    }
+
+    DataRepository.RowIndex<Tutor> tutorIndex() {
+        return new DataRepository.RowIndex<Tutor>() {
+            @Override
+            public void add(String key, Tutor row) {
+                synchronized (SystemStatistics.this) {
+                    tutors++;
+                }
+            }
+
+            @Override
+            public void update(String key, Tutor old, Tutor now) {
+                // Same tutor, same count
+            }
+
+            @Override
+            public void remove(String key, Tutor row) {
+                synchronized (SystemStatistics.this) {
+                    tutors--;
+                }
+            }
+
+            @Override
+            public void clear() {
+                synchronized (SystemStatistics.this) {
+                    tutors = 0;
+                }
+            }
+        };
+    }
+
+    DataRepository.RowIndex<ClassInfo> classIndex() {
+        return new DataRepository.RowIndex<ClassInfo>() {
+            @Override
+            public void add(String key, ClassInfo row) {
+                synchronized (SystemStatistics.this) {
+                    classes++;
+                    setFee(key, row.getFee());
+                }
+            }
+
+            @Override
+            public void update(String key, ClassInfo old, ClassInfo now) {
+                synchronized (SystemStatistics.this) {
+                    setFee(key, now.getFee());
+                }
+            }
+
+            @Override
+            public void remove(String key, ClassInfo row) {
+                synchronized (SystemStatistics.this) {
+                    classes--;
+                    // Its enrollments stay counted but no longer bring in a fee
+                    String classId = DataRepository.normalize(key);
+                    Double fee = feesByClass.remove(classId);
+                    if (fee != null) revenue -= fee * enrollmentsByClass.getOrDefault(classId, 0);
+                }
+            }
+
+            @Override
+            public void clear() {
+                synchronized (SystemStatistics.this) {
+                    classes = 0;
+                    feesByClass.clear();
+                    revenue = 0; // every enrollment now refers to a class with no fee
+                }
+            }
+        };
+    }
+
+    // sign is 1 to count a student, -1 to take them out again
+    private synchronized void addStudent(Student student, int sign) {
+        Set<String> classIds = DataRepository.distinct(student.getSubjects());
+        students += sign;
+        studentsBySubjectCount.merge(classIds.size(), sign, Integer::sum);
+        studentsBySubjectCount.remove(classIds.size(), 0);
+        for (String key : classIds) {
+            enrollmentsByClass.merge(key, sign, Integer::sum);
+            enrollmentsByClass.remove(key, 0);
+            revenue += sign * feesByClass.getOrDefault(key, 0.0);
+        }
+    }
+
+    private void setFee(String classId, double fee) {
+        String key = DataRepository.normalize(classId);
+        Double previous = feesByClass.put(key, fee);
+        revenue += (fee - (previous != null ? previous : 0.0)) * enrollmentsByClass.getOrDefault(key, 0);
+    }
+
+    // Counts only the bytes appended since the last look; a shrunken file is recounted
+    private void refreshPaymentHistory() {
+        File file = new File(System.getProperty("user.dir"), PAYMENT_HISTORY_FILE);
+        long[] current = stat(file);
+        if (Arrays.equals(current, historyStamp)) return;
+
+        long from = historyStamp != null && current[0] >= historyStamp[0] ? historyStamp[0] : 0;
+        if (from == 0) {
+            historyNewlines = 0;
+            historyEndsWithNewline = true;
+        }
+        if (current[0] > from) {
+            try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+                in.skipNBytes(from);
+                byte[] buffer = new byte[8192];
+                int read;
+                int last = -1;
+                while ((read = in.read(buffer)) > 0) {
+                    for (int i = 0; i < read; i++) {
+                        if (buffer[i] == '\n') historyNewlines++;
+                    }
+                    last = buffer[read - 1];
+                }
+                if (last >= 0) historyEndsWithNewline = last == '\n';
+            } catch (IOException e) {
+                System.err.println("Error reading payment history file: " + e.getMessage());
+                historyStamp = null;
+                return;
+            }
+        }
+        historyStamp = current;
+    }
+
+    private void refreshRequests() {
+        File file = new File(System.getProperty("user.dir"), REQUESTS_FILE);
+        long[] current = stat(file);
+        if (Arrays.equals(current, requestsStamp)) return;
+
+        int pending = 0;
+        if (file.exists()) {
+            try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+                CsvTokenizer csv = new CsvTokenizer(reader);
+                while (csv.next()) {
+                    if (csv.fieldCount() >= 5 && csv.fieldEqualsIgnoreCase(4, "Pending")) {
+                        pending++;
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("Error reading subject change requests file: " + e.getMessage());
+                requestsStamp = null;
+                return;
+            }
+        }
+        pendingRequests = pending;
+        requestsStamp = current;
+    }
+
+    // {size, mtime}; -1 when missing
+    private static long[] stat(File file) {
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+            return new long[] { attrs.size(), attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS) };
+        } catch (IOException e) {
+            return new long[] { -1, -1 };
+        }
+    }
+}
\ No newline at end of file
@@ -12,6 +12,7 @@ import javax.swing.table.DefaultTableModel;
  */
 public class TutorDashboard extends JFrame {
     private User currentUser;
+    private final UserSession session;
     private DataManager dataManager;
     private JTabbedPane tabbedPane;
     
@@ -25,6 +26,7 @@ public class TutorDashboard extends JFrame {
     
     public TutorDashboard(User user) {
         this.currentUser = user;
+        this.session = UserSession.of(user, "TUTOR");
         this.dataManager = new DataManager();
         
         initializeComponents();
@@ -106,23 +108,41 @@ public class TutorDashboard extends JFrame {
         panel.setBackground(BACKGROUND_COLOR);
         panel.setBorder(new EmptyBorder(20, 0, 20, 0));
         
-        // Get tutor statistics
-        int totalClasses = getTutorClassCount();
-        int totalStudents = getTutorStudentCount();
-        String tutorLevel = getTutorLevel();
+        // Cards show placeholders until the tutor statistics are read off the EDT
+        addStatCards(panel, null);
+        BackgroundLoader.fill(panel, this::loadTutorStats, stats -> addStatCards(panel, stats));
         
-        // Calculate additional stats
-        int activeClasses = getActiveClassCount();
+        return panel;
+    }
+    
+    // stats is null while it is still loading
+    private void addStatCards(JPanel panel, TutorStats stats) {
+        String loading = BackgroundLoader.PLACEHOLDER;
         String joinDate = "2024"; // You can make this dynamic if you have the data
         
         panel.add(createStatCard("👨‍🏫", "Tutor ID", currentUser.getUserId(), PRIMARY_COLOR));
-        panel.add(createStatCard("📚", "My Classes", String.valueOf(totalClasses), ACCENT_COLOR));
-        panel.add(createStatCard("👥", "Total Students", String.valueOf(totalStudents), new Color(245, 158, 11)));
-        panel.add(createStatCard("🎯", "Active Classes", String.valueOf(activeClasses), new Color(168, 85, 247)));
-        panel.add(createStatCard("📊", "Teaching Level", tutorLevel, new Color(236, 72, 153)));
+        panel.add(createStatCard("📚", "My Classes", stats != null ? String.valueOf(stats.totalClasses) : loading, ACCENT_COLOR));
+        panel.add(createStatCard("👥", "Total Students", stats != null ? String.valueOf(stats.totalStudents) : loading, new Color(245, 158, 11)));
+        panel.add(createStatCard("🎯", "Active Classes", stats != null ? String.valueOf(stats.activeClasses) : loading, new Color(168, 85, 247)));
+        panel.add(createStatCard("📊", "Teaching Level", stats != null ? stats.tutorLevel : loading, new Color(236, 72, 153)));
         panel.add(createStatCard("📅", "Since", joinDate, new Color(99, 102, 241)));
-        
-        return panel;
+    }
+    
+    // Runs on a worker thread: reads only, no Swing
+    private TutorStats loadTutorStats() {
+        TutorStats stats = new TutorStats();
+        stats.totalClasses = getTutorClassCount();
+        stats.totalStudents = getTutorStudentCount();
+        stats.tutorLevel = getTutorLevel();
+        stats.activeClasses = getActiveClassCount();
+        return stats;
+    }
+    
+    private static class TutorStats {
+        int totalClasses;
+        int totalStudents;
+        int activeClasses;
+        String tutorLevel;
     }
     
     private JPanel createStatCard(String icon, String title, String value, Color color) {
@@ -1002,7 +1022,7 @@ private JPanel createScrollableAccountSettingsPanel() {
             return;
         }
         
-        if (!currentPassword.equals(currentUser.getPassword())) {
+        if (!PasswordHasher.matches(currentPassword, currentUser.getPassword())) {
             JOptionPane.showMessageDialog(this, 
                 "Current password is incorrect!", 
                 "Authentication Error", JOptionPane.ERROR_MESSAGE);
@@ -1041,7 +1061,7 @@ private JPanel createScrollableAccountSettingsPanel() {
         }
         
         // Update password
-        currentUser.setPassword(newPassword);
+        currentUser.setPassword(PasswordHasher.hash(newPassword));
         updateTutorInFile();
         
         // Clear fields
@@ -1057,45 +1077,18 @@ private JPanel createScrollableAccountSettingsPanel() {
     }
     
     private void updateTutorInFile() {
-        try {
-            File file = new File("tutor.txt");
-            List<String> lines = new ArrayList<>();
-            
-            // Read all lines
-            try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    lines.add(line);
-                }
-            }
-            
-            // Update the tutor's line
-            for (int i = 0; i < lines.size(); i++) {
-                String[] parts = lines.get(i).split(",");
-                if (parts.length >= 1 && parts[0].equals(currentUser.getUserId())) {
-                    String updatedLine = String.join(",",
-                        currentUser.getUserId(),
-                        currentUser.getUsername(),
-                        currentUser.getPassword(),
-                        currentUser.getEmail(),
-                        currentUser instanceof Tutor ? ((Tutor) currentUser).getDateOfBirth() : "",
-                        currentUser.getPhone()
-                    );
-                    lines.set(i, updatedLine);
-                    break;
-                }
-            }
-            
-            // Write back to file
-            try (PrintWriter writer = new PrintWriter(new FileWriter(file))) {
-                for (String line : lines) {
-                    writer.println(line);
-                }
-            }
-            
-        } catch (IOException e) {
+        // Update the tutor's line (single-record write, so journal mode sees it)
+        String updatedLine = CsvTokenizer.join(
+            currentUser.getUserId(),
+            currentUser.getUsername(),
+            currentUser.getPassword(),
+            currentUser.getEmail(),
+            currentUser instanceof Tutor ? ((Tutor) currentUser).getDateOfBirth() : "",
+            currentUser.getPhone()
+        );
+        if (!DataRepository.getInstance().updateRecord("tutor.txt", currentUser.getUserId(), updatedLine)) {
             JOptionPane.showMessageDialog(this, 
-                "Error saving profile changes: " + e.getMessage(), 
+                "Error saving profile changes: tutor record not found or not writable", 
                 "Save Error", JOptionPane.ERROR_MESSAGE);
         }
     }
@@ -1130,14 +1123,8 @@ private JPanel createScrollableAccountSettingsPanel() {
                     
                     writer.println("CLASSES:");
                     // Export class details
-                    try (BufferedReader reader = new BufferedReader(new FileReader("class.txt"))) {
-                        String line;
-                        while ((line = reader.readLine()) != null) {
-                            String[] parts = line.split(",");
-                            if (parts.length >= 6 && parts[1].equals(currentUser.getUserId())) {
-                                writer.println("- " + parts[0] + ": " + parts[2] + " (RM" + parts[5] + ")");
-                            }
-                        }
+                    for (String[] parts : getTutorClassRows()) {
+                        writer.println("- " + parts[0] + ": " + parts[2] + " (RM" + parts[5] + ")");
                     }
                 }
                 
@@ -1538,30 +1525,17 @@ private JPanel createScrollableAccountSettingsPanel() {
     private void loadTeachingSchedule(JPanel schedulePanel) {
         schedulePanel.removeAll();
         
-        try (BufferedReader reader = new BufferedReader(new FileReader("class.txt"))) {
-            String line;
-            boolean hasClasses = false;
-            
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length >= 6 && parts[1].equals(currentUser.getUserId())) {
-                    hasClasses = true;
-                    JPanel classScheduleCard = createClassScheduleCard(parts);
-                    schedulePanel.add(classScheduleCard);
-                    schedulePanel.add(Box.createRigidArea(new Dimension(0, 15)));
-                }
-            }
-            
-            if (!hasClasses) {
-                JPanel emptyPanel = createEmptySchedulePanel();
-                schedulePanel.add(emptyPanel);
-            }
-            
-        } catch (IOException e) {
-            JLabel errorLabel = new JLabel("Error loading schedule: " + e.getMessage());
-            errorLabel.setForeground(ERROR_COLOR);
-            errorLabel.setFont(new Font("Segoe UI", Font.PLAIN, 14));
-            schedulePanel.add(errorLabel);
+        boolean hasClasses = false;
+        for (String[] parts : getTutorClassRows()) {
+            hasClasses = true;
+            JPanel classScheduleCard = createClassScheduleCard(parts);
+            schedulePanel.add(classScheduleCard);
+            schedulePanel.add(Box.createRigidArea(new Dimension(0, 15)));
+        }
+        
+        if (!hasClasses) {
+            JPanel emptyPanel = createEmptySchedulePanel();
+            schedulePanel.add(emptyPanel);
         }
         
         schedulePanel.revalidate();
@@ -1682,58 +1656,32 @@ private JPanel createScrollableAccountSettingsPanel() {
     // Helper methods for schedule statistics
     private int getClassesWithScheduleCount() {
         int count = 0;
-        try (BufferedReader reader = new BufferedReader(new FileReader("class.txt"))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length >= 5 && parts[1].equals(currentUser.getUserId())) {
-                    String schedule = parts[4];
-                    if (schedule != null && !schedule.trim().isEmpty() && !schedule.equals("Not scheduled")) {
-                        count++;
-                    }
-                }
+        for (ClassInfo classInfo : getTutorClasses()) {
+            if (isScheduled(classInfo)) {
+                count++;
             }
-        } catch (IOException e) {
-            System.err.println("Error reading class file: " + e.getMessage());
         }
         return count;
     }
     
     private int getTotalScheduledSessions() {
         int totalSessions = 0;
-        try (BufferedReader reader = new BufferedReader(new FileReader("class.txt"))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length >= 5 && parts[1].equals(currentUser.getUserId())) {
-                    String schedule = parts[4];
-                    if (schedule != null && !schedule.trim().isEmpty()) {
-                        String[] sessions = schedule.split(";");
-                        totalSessions += sessions.length;
-                    }
+        for (ClassInfo classInfo : getTutorClasses()) {
+            for (String session : classInfo.getSchedule().split(";")) {
+                if (!session.trim().isEmpty()) {
+                    totalSessions++;
                 }
             }
-        } catch (IOException e) {
-            System.err.println("Error reading class file: " + e.getMessage());
         }
         return totalSessions;
     }
     
     private String getNextScheduledClass() {
         // For simplicity, return the first class found with a schedule
-        try (BufferedReader reader = new BufferedReader(new FileReader("class.txt"))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length >= 5 && parts[1].equals(currentUser.getUserId())) {
-                    String schedule = parts[4];
-                    if (schedule != null && !schedule.trim().isEmpty() && !schedule.equals("Not scheduled")) {
-                        return parts[0]; // Return class ID
-                    }
-                }
+        for (ClassInfo classInfo : getTutorClasses()) {
+            if (isScheduled(classInfo)) {
+                return classInfo.getClassId();
             }
-        } catch (IOException e) {
-            System.err.println("Error reading class file: " + e.getMessage());
         }
         return "None";
     }
@@ -1784,20 +1732,14 @@ private JPanel createScrollableAccountSettingsPanel() {
                     writer.println("Export Date: " + java.time.LocalDateTime.now());
                     writer.println();
                     
-                    try (BufferedReader reader = new BufferedReader(new FileReader("class.txt"))) {
-                        String line;
-                        while ((line = reader.readLine()) != null) {
-                            String[] parts = line.split(",");
-                            if (parts.length >= 6 && parts[1].equals(currentUser.getUserId())) {
-                                writer.println("CLASS: " + parts[2]);
-                                writer.println("ID: " + parts[0]);
-                                writer.println("Students: " + getStudentCountForClass(parts[0]));
-                                writer.println("Fee: RM" + parts[5]);
-                                writer.println("Schedule: " + (parts[4].isEmpty() ? "Not scheduled" : parts[4]));
-                                writer.println("Description: " + parts[3]);
-                                writer.println("-".repeat(40));
-                            }
-                        }
+                    for (String[] parts : getTutorClassRows()) {
+                        writer.println("CLASS: " + parts[2]);
+                        writer.println("ID: " + parts[0]);
+                        writer.println("Students: " + getStudentCountForClass(parts[0]));
+                        writer.println("Fee: RM" + parts[5]);
+                        writer.println("Schedule: " + (parts[4].isEmpty() ? "Not scheduled" : parts[4]));
+                        writer.println("Description: " + parts[3]);
+                        writer.println("-".repeat(40));
                     }
                 }
                 
@@ -1817,79 +1759,53 @@ private JPanel createScrollableAccountSettingsPanel() {
     private void loadTutorClasses(DefaultTableModel tableModel) {
         tableModel.setRowCount(0);
         
-        try (BufferedReader reader = new BufferedReader(new FileReader("class.txt"))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length >= 6 && parts[1].equals(currentUser.getUserId())) {
-                    String classId = parts[0];
-                    String courseName = parts[2];
-                    String description = parts[3];
-                    String schedule = parts[4].replace("; ", ", ");
-                    String fee = parts[5];
-                    
-                    int studentCount = getStudentCountForClass(classId);
-                    
-                    Object[] row = {classId, courseName, description, schedule, fee, studentCount};
-                    tableModel.addRow(row);
-                }
-            }
-        } catch (IOException e) {
-            JOptionPane.showMessageDialog(this, "Error loading classes: " + e.getMessage(), 
-                "Error", JOptionPane.ERROR_MESSAGE);
+        for (String[] parts : getTutorClassRows()) {
+            String classId = parts[0];
+            String courseName = parts[2];
+            String description = parts[3];
+            String schedule = parts[4].replace("; ", ", ");
+            String fee = parts[5];
+            
+            int studentCount = getStudentCountForClass(classId);
+            
+            Object[] row = {classId, courseName, description, schedule, fee, studentCount};
+            tableModel.addRow(row);
         }
     }
     
     private void searchClasses(String searchTerm, DefaultTableModel tableModel) {
         tableModel.setRowCount(0);
         
-        try (BufferedReader reader = new BufferedReader(new FileReader("class.txt"))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length >= 6 && parts[1].equals(currentUser.getUserId())) {
-                    String classId = parts[0];
-                    String courseName = parts[2];
-                    String description = parts[3];
-                    
-                    // Check if search term matches any field
-                    if (searchTerm.isEmpty() || 
-                        classId.toLowerCase().contains(searchTerm.toLowerCase()) ||
-                        courseName.toLowerCase().contains(searchTerm.toLowerCase()) ||
-                        description.toLowerCase().contains(searchTerm.toLowerCase())) {
-                        
-                        String schedule = parts[4].replace("; ", ", ");
-                        String fee = parts[5];
-                        int studentCount = getStudentCountForClass(classId);
-                        
-                        Object[] row = {classId, courseName, description, schedule, fee, studentCount};
-                        tableModel.addRow(row);
-                    }
-                }
+        for (String[] parts : getTutorClassRows()) {
+            String classId = parts[0];
+            String courseName = parts[2];
+            String description = parts[3];
+            
+            // Check if search term matches any field
+            if (searchTerm.isEmpty() || 
+                classId.toLowerCase().contains(searchTerm.toLowerCase()) ||
+                courseName.toLowerCase().contains(searchTerm.toLowerCase()) ||
+                description.toLowerCase().contains(searchTerm.toLowerCase())) {
+                
+                String schedule = parts[4].replace("; ", ", ");
+                String fee = parts[5];
+                int studentCount = getStudentCountForClass(classId);
+                
+                Object[] row = {classId, courseName, description, schedule, fee, studentCount};
+                tableModel.addRow(row);
             }
-        } catch (IOException e) {
-            JOptionPane.showMessageDialog(this, "Error searching classes: " + e.getMessage(), 
-                "Error", JOptionPane.ERROR_MESSAGE);
         }
     }
     
     private void loadClassSelector(JComboBox<String> classSelector) {
         classSelector.removeAllItems();
         
-        try (BufferedReader reader = new BufferedReader(new FileReader("class.txt"))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length >= 3 && parts[1].equals(currentUser.getUserId())) {
-                    classSelector.addItem(parts[0] + " - " + parts[2]);
-                }
-            }
-            
-            if (classSelector.getItemCount() == 0) {
-                classSelector.addItem("No classes found");
-            }
-        } catch (IOException e) {
-            JOptionPane.showMessageDialog(this, "Error loading classes: " + e.getMessage());
+        for (ClassInfo classInfo : getTutorClasses()) {
+            classSelector.addItem(classInfo.getClassId() + " - " + classInfo.getSubject());
+        }
+        
+        if (classSelector.getItemCount() == 0) {
+            classSelector.addItem("No classes found");
         }
     }
     
@@ -1904,37 +1820,16 @@ private JPanel createScrollableAccountSettingsPanel() {
         String selectedClassId = selected.split(" - ")[0];
         int count = 1;
         
-        try (BufferedReader reader = new BufferedReader(new FileReader("students.txt"))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length >= 10) {
-                    String studentId = parts[0];
-                    String name = parts[3];
-                    String email = parts[4];
-                    String phone = parts[5];
-                    String level = parts[7];
-                    String enrollMonth = parts[8];
-                    String[] enrolledClasses = parts[9].split(";");
-                    
-                    for (String classId : enrolledClasses) {
-                        if (classId.trim().equals(selectedClassId)) {
-                            Object[] row = {count, studentId, name, email, phone, level, enrollMonth};
-                            tableModel.addRow(row);
-                            count++;
-                            break;
-                        }
-                    }
-                }
-            }
-            
-            if (count == 1) {
-                Object[] row = {"No students enrolled in this class", "", "", "", "", "", ""};
-                tableModel.addRow(row);
-            }
-            
-        } catch (IOException e) {
-            JOptionPane.showMessageDialog(this, "Error loading students: " + e.getMessage());
+        for (Student student : dataManager.getStudentsInClass(selectedClassId)) {
+            Object[] row = {count, student.getUserId(), student.getName(), student.getEmail(),
+                            student.getPhone(), student.getLevel(), student.getEnrollmentMonth()};
+            tableModel.addRow(row);
+            count++;
+        }
+        
+        if (count == 1) {
+            Object[] row = {"No students enrolled in this class", "", "", "", "", "", ""};
+            tableModel.addRow(row);
         }
     }
     
@@ -1949,16 +1844,10 @@ private JPanel createScrollableAccountSettingsPanel() {
                 try (java.io.PrintWriter writer = new java.io.PrintWriter(file)) {
                     writer.println("Class ID,Course Name,Description,Schedule,Fee,Students");
                     
-                    try (BufferedReader reader = new BufferedReader(new FileReader("class.txt"))) {
-                        String line;
-                        while ((line = reader.readLine()) != null) {
-                            String[] parts = line.split(",");
-                            if (parts.length >= 6 && parts[1].equals(currentUser.getUserId())) {
-                                int studentCount = getStudentCountForClass(parts[0]);
-                                writer.printf("%s,%s,%s,%s,%s,%d%n",
-                                    parts[0], parts[2], parts[3], parts[4], parts[5], studentCount);
-                            }
-                        }
+                    for (String[] parts : getTutorClassRows()) {
+                        int studentCount = getStudentCountForClass(parts[0]);
+                        writer.println(CsvTokenizer.join(parts[0], parts[2], parts[3], parts[4], parts[5],
+                                                         String.valueOf(studentCount)));
                     }
                 }
                 JOptionPane.showMessageDialog(this, "Class data exported successfully to:\n" + file.getAbsolutePath(),
@@ -2038,7 +1927,7 @@ private JPanel createScrollableAccountSettingsPanel() {
             JOptionPane.WARNING_MESSAGE);
         
         if (confirm == JOptionPane.YES_OPTION) {
-            if (deleteClassFromFile(classId)) {
+            if (DataRepository.getInstance().deleteClass(classId)) {
                 JOptionPane.showMessageDialog(this, 
                     "✅ Class deleted successfully!\n\n" +
                     "Class: " + className + " (" + classId + ")", 
@@ -2055,37 +1944,6 @@ private JPanel createScrollableAccountSettingsPanel() {
         }
     }
     
-    private boolean deleteClassFromFile(String classId) {
-        File originalFile = new File("class.txt");
-        File tempFile = new File("class_temp.txt");
-        boolean deleted = false;
-        
-        try (BufferedReader reader = new BufferedReader(new FileReader(originalFile));
-             PrintWriter writer = new PrintWriter(new FileWriter(tempFile))) {
-            
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length > 0 && parts[0].equals(classId)) {
-                    deleted = true;
-                } else {
-                    writer.println(line);
-                }
-            }
-            
-        } catch (IOException e) {
-            e.printStackTrace();
-            return false;
-        }
-        
-        if (deleted && originalFile.delete() && tempFile.renameTo(originalFile)) {
-            return true;
-        }
-        
-        tempFile.delete();
-        return false;
-    }
-    
     private JTextField createStyledTextField() {
         JTextField field = new JTextField(25);
         field.setFont(new Font("Segoe UI", Font.PLAIN, 14));
@@ -2186,156 +2044,54 @@ private JPanel createScrollableAccountSettingsPanel() {
     
     // Helper methods for statistics
     private int getTutorClassCount() {
-        int count = 0;
-        try (BufferedReader reader = new BufferedReader(new FileReader("class.txt"))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length >= 2 && parts[1].equals(currentUser.getUserId())) {
-                    count++;
-                }
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        return count;
+        return getTutorClasses().size();
     }
     
     private int getTutorStudentCount() {
-        Set<String> uniqueStudents = new HashSet<>();
-        String tutorId = currentUser.getUserId();
-        
-        try (BufferedReader reader = new BufferedReader(new FileReader("students.txt"))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length >= 10 && !parts[9].trim().isEmpty()) {
-                    String[] studentClasses = parts[9].split(";");
-                    
-                    // Check if any of the student's classes belong to this tutor
-                    for (String classId : studentClasses) {
-                        if (classId != null && !classId.trim().isEmpty()) {
-                            if (isClassBelongsToTutor(classId.trim(), tutorId)) {
-                                uniqueStudents.add(parts[0]); // Add student ID
-                                break; // Student found, no need to check other classes
-                            }
-                        }
-                    }
-                }
-            }
-        } catch (IOException e) {
-            System.err.println("Error reading students file: " + e.getMessage());
-        }
-        return uniqueStudents.size();
-    }
-    
-    private boolean isClassBelongsToTutor(String classId, String tutorId) {
-        try (BufferedReader reader = new BufferedReader(new FileReader("class.txt"))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length >= 2 && parts[0].equals(classId) && parts[1].equals(tutorId)) {
-                    return true;
-                }
-            }
-        } catch (IOException e) {
-            System.err.println("Error reading class file: " + e.getMessage());
-        }
-        return false;
+        // Distinct students across this tutor's classes, kept by the workload view
+        return DataRepository.getInstance().getTutorWorkload(currentUser.getUserId()).getStudents();
     }
     
     private String getTutorLevel() {
         // Determine tutor level based on classes taught
-        Set<String> levels = new HashSet<>();
-        String tutorId = currentUser.getUserId();
-        
-        try (BufferedReader reader = new BufferedReader(new FileReader("class.txt"))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length >= 3 && parts[1].equals(tutorId)) {
-                    String subject = parts[2].toLowerCase();
-                    if (subject.contains("form 1")) levels.add("Form 1");
-                    else if (subject.contains("form 2")) levels.add("Form 2");
-                    else if (subject.contains("form 3")) levels.add("Form 3");
-                    else if (subject.contains("form 4")) levels.add("Form 4");
-                    else if (subject.contains("form 5")) levels.add("Form 5");
-                }
-            }
-        } catch (IOException e) {
-            System.err.println("Error reading class file: " + e.getMessage());
-        }
-        
-        if (levels.isEmpty()) {
-            return "Not Set";
-        } else if (levels.size() == 1) {
-            return levels.iterator().next();
-        } else {
-            return "Multi-Level";
-        }
+        return session.getTutorLevel();
     }
     
     private int getActiveClassCount() {
-        // For now, return the same as total classes
-        // You can enhance this to check if classes have students enrolled
-        int activeCount = 0;
-        String tutorId = currentUser.getUserId();
-        
-        try (BufferedReader reader = new BufferedReader(new FileReader("class.txt"))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length >= 2 && parts[1].equals(tutorId)) {
-                    // Check if class has any students
-                    String classId = parts[0];
-                    if (getStudentCountForClass(classId) > 0) {
-                        activeCount++;
-                    }
-                }
-            }
-        } catch (IOException e) {
-            System.err.println("Error reading class file: " + e.getMessage());
-        }
-        
-        return activeCount;
+        // Classes with at least one student enrolled
+        return DataRepository.getInstance().getTutorWorkload(currentUser.getUserId()).getActiveClasses();
     }
     
     private List<String> getTutorClassIds() {
         List<String> classIds = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader("class.txt"))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length >= 2 && parts[1].equals(currentUser.getUserId())) {
-                    classIds.add(parts[0]);
-                }
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
+        for (ClassInfo classInfo : getTutorClasses()) {
+            classIds.add(classInfo.getClassId());
         }
         return classIds;
     }
     
-    private int getStudentCountForClass(String classId) {
-        int count = 0;
-        try (BufferedReader reader = new BufferedReader(new FileReader("students.txt"))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length >= 10) {
-                    String[] studentClasses = parts[9].split(";");
-                    for (String studentClass : studentClasses) {
-                        if (studentClass.trim().equals(classId)) {
-                            count++;
-                            break;
-                        }
-                    }
-                }
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
+    // This tutor's classes, answered from the repository's tutor index
+    private List<ClassInfo> getTutorClasses() {
+        return session.getTutorClasses();
+    }
+    
+    // The same classes as class.txt columns, for the table and export code
+    private List<String[]> getTutorClassRows() {
+        List<String[]> rows = new ArrayList<>();
+        for (ClassInfo c : getTutorClasses()) {
+            rows.add(new String[] { c.getClassId(), c.getTutorId(), c.getSubject(), c.getDescription(),
+                                    c.getSchedule(), String.format("%.2f", c.getFee()) });
         }
-        return count;
+        return rows;
+    }
+    
+    private boolean isScheduled(ClassInfo classInfo) {
+        String schedule = classInfo.getSchedule();
+        return !schedule.isEmpty() && !schedule.equals("Not scheduled");
+    }
+    
+    private int getStudentCountForClass(String classId) {
+        return dataManager.getStudentCountInClass(classId);
     }
     
     public void refreshData() {
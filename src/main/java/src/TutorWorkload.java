@@ -0,0 +1,226 @@
+import java.util.*;
+
+/**
+ * TutorWorkload keeps, for every tutor, the numbers the tutor and admin
+ * dashboards show: classes taught, active classes (at least one student),
+ * distinct students across those classes, scheduled sessions (dates in the
+ * class schedules) and the monthly fees those enrollments bring in.
+ *
+ * It is a RowIndex on both the class and the student table. A class change
+ * takes the old class out of its tutor's totals and puts the new one in (which
+ * also handles a class moving to another tutor); an enrollment change adjusts
+ * only the one class and tutor it touches. Students are counted per tutor with
+ * a reference count, so a student in two of a tutor's classes is one student.
+ */
+final class TutorWorkload {
+
+    /**
+     * One tutor's totals at one point in time
+     */
+    static final class Summary {
+        private final String tutorId;
+        private final int classes;
+        private final int activeClasses;
+        private final int students;
+        private final int sessions;
+        private final double revenue;
+
+        private Summary(String tutorId, Load load) {
+            this.tutorId = tutorId;
+            this.classes = load.classes;
+            this.activeClasses = load.activeClasses;
+            this.students = load.students.size();
+            this.sessions = load.sessions;
+            this.revenue = load.revenue;
+        }
+
+        String getTutorId() { return tutorId; }
+        int getClasses() { return classes; }
+        int getActiveClasses() { return activeClasses; }
+        int getStudents() { return students; }
+        int getSessions() { return sessions; }
+        double getRevenue() { return revenue; }
+    }
+
+    private static final class Load {
+        int classes;
+        int activeClasses;
+        int sessions;
+        double revenue;
+        final Map<String, Integer> students = new HashMap<>(); // student ID -> this tutor's classes they attend
+
+        boolean isEmpty() {
+            return classes == 0 && students.isEmpty();
+        }
+    }
+
+    // What the workload needs of a class
+    private static final class ClassRow {
+        final String tutorId;
+        final double fee;
+        final int sessions;
+
+        ClassRow(ClassInfo classInfo) {
+            this.tutorId = classInfo.getTutorId() != null ? DataRepository.normalize(classInfo.getTutorId()) : "";
+            this.fee = classInfo.getFee();
+            this.sessions = sessionsOf(classInfo.getSchedule());
+        }
+    }
+
+    private final Map<String, ClassRow> classes = new HashMap<>(); // normalised class ID -> class
+    private final Map<String, Set<String>> enrolled = new HashMap<>(); // normalised class ID -> student IDs
+    private final Map<String, Load> tutors = new HashMap<>(); // normalised tutor ID -> totals
+
+    TutorWorkload() {
+    }
+
+    /**
+     * A tutor's totals; all zero for a tutor without classes
+     */
+    synchronized Summary get(String tutorId) {
+        Load load = tutorId != null ? tutors.get(DataRepository.normalize(tutorId)) : null;
+        return new Summary(tutorId, load != null ? load : new Load());
+    }
+
+    /**
+     * Every tutor with at least one class, by tutor ID
+     */
+    synchronized List<Summary> all() {
+        List<Summary> summaries = new ArrayList<>();
+        for (Map.Entry<String, Load> entry : new TreeMap<>(tutors).entrySet()) {
+            if (entry.getValue().classes > 0) summaries.add(new Summary(entry.getKey(), entry.getValue()));
+        }
+        return summaries;
+    }
+
+    DataRepository.RowIndex<ClassInfo> classIndex() {
+        return new DataRepository.RowIndex<ClassInfo>() {
+            @Override
+            public void add(String key, ClassInfo row) {
+                replaceClass(key, row);
+            }
+
+            @Override
+            public void update(String key, ClassInfo old, ClassInfo now) {
+                replaceClass(key, now);
+            }
+
+            @Override
+            public void remove(String key, ClassInfo row) {
+                removeClass(key);
+            }
+
+            @Override
+            public void clear() {
+                synchronized (TutorWorkload.this) {
+                    classes.clear();
+                    tutors.clear(); // the enrollments stay and count again as their classes come back
+                }
+            }
+        };
+    }
+
+    DataRepository.RowIndex<Student> studentIndex() {
+        return new DataRepository.RowIndex<Student>() {
+            @Override
+            public void add(String key, Student row) {
+                enroll(row, 1);
+            }
+
+            @Override
+            public void update(String key, Student old, Student now) {
+                synchronized (TutorWorkload.this) {
+                    enroll(old, -1);
+                    enroll(now, 1);
+                }
+            }
+
+            @Override
+            public void remove(String key, Student row) {
+                enroll(row, -1);
+            }
+
+            @Override
+            public void clear() {
+                synchronized (TutorWorkload.this) {
+                    enrolled.clear();
+                    for (Load load : tutors.values()) {
+                        load.activeClasses = 0;
+                        load.revenue = 0;
+                        load.students.clear();
+                    }
+                }
+            }
+        };
+    }
+
+    // Takes out whatever was counted under this class ID, then counts the new row
+    private synchronized void replaceClass(String key, ClassInfo row) {
+        String classId = DataRepository.normalize(key);
+        ClassRow previous = classes.get(classId);
+        if (previous != null) addClass(classId, previous, -1);
+        addClass(classId, new ClassRow(row), 1);
+    }
+
+    // The class's enrollments stay and count again if a class with this ID comes back
+    private synchronized void removeClass(String key) {
+        String classId = DataRepository.normalize(key);
+        ClassRow previous = classes.get(classId);
+        if (previous != null) addClass(classId, previous, -1);
+    }
+
+    // sign is 1 to count a class, -1 to take it out again
+    private void addClass(String classId, ClassRow row, int sign) {
+        if (sign > 0) {
+            classes.put(classId, row);
+        } else {
+            classes.remove(classId);
+        }
+        Load load = tutors.computeIfAbsent(row.tutorId, k -> new Load());
+        Set<String> students = enrolled.getOrDefault(classId, Collections.emptySet());
+        load.classes += sign;
+        load.sessions += sign * row.sessions;
+        load.revenue += sign * row.fee * students.size();
+        if (!students.isEmpty()) load.activeClasses += sign;
+        for (String studentId : students) {
+            countStudent(load, studentId, sign);
+        }
+        if (load.isEmpty()) tutors.remove(row.tutorId);
+    }
+
+    private synchronized void enroll(Student student, int sign) {
+        String studentId = DataRepository.normalize(student.getStudentId());
+        for (String id : new LinkedHashSet<>(student.getSubjects())) {
+            String classId = DataRepository.normalize(id);
+            Set<String> students = enrolled.computeIfAbsent(classId, k -> new HashSet<>());
+            boolean changed = sign > 0 ? students.add(studentId) : students.remove(studentId);
+            if (!changed) continue;
+
+            ClassRow row = classes.get(classId);
+            if (row != null) {
+                Load load = tutors.computeIfAbsent(row.tutorId, k -> new Load());
+                load.revenue += sign * row.fee;
+                if (sign > 0 ? students.size() == 1 : students.isEmpty()) load.activeClasses += sign;
+                countStudent(load, studentId, sign);
+            }
+            if (students.isEmpty()) enrolled.remove(classId);
+        }
+    }
+
+    private static void countStudent(Load load, String studentId, int sign) {
+        load.students.merge(studentId, sign, Integer::sum);
+        load.students.remove(studentId, 0);
+    }
+
+    // Dates in a schedule such as "2025-07-01; 2025-07-02"; "Not scheduled" has none
+    private static int sessionsOf(String schedule) {
+        if (schedule == null || schedule.trim().isEmpty() || schedule.trim().equalsIgnoreCase("Not scheduled")) {
+            return 0;
+        }
+        int sessions = 0;
+        for (String date : schedule.split(";")) {
+            if (!date.trim().isEmpty()) sessions++;
+        }
+        return sessions;
+    }
+}
\ No newline at end of file
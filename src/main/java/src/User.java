@@ -52,33 +52,38 @@ public class User {
     public void setLockedOut(boolean lockedOut) { this.lockedOut = lockedOut; }
     
     /**
-     * Static method to save users to file
+     * Static method to save users to file. Each user's record is updated (or
+     * added) through the repository, so journal mode and the cache see it.
      */
     public static void saveUsersToFile(List<?> users, String filename) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filename))) {
-            for (Object u : users) {
-                if (u instanceof Student) {
-                    writer.write(((Student) u).toFileString() + "\n");
-                } else if (u instanceof Tutor) {
-                    Tutor t = (Tutor) u;
-                    writer.write(String.join(",", t.getUserId(), t.getUsername(), t.getPassword(),
-                            t.getName(), t.getEmail(), t.getPhone(), t.getDateOfBirth()) + "\n");
-                } else if (u instanceof Receptionist) {
-                    Receptionist r = (Receptionist) u;
-                    writer.write(String.join(",", r.getUserId(), r.getUsername(), r.getPassword(),
-                            r.getName(), r.getEmail(), r.getPhone()) + "\n");
-                } else if (u instanceof Admin) {
-                    Admin a = (Admin) u;
-                    writer.write(String.join(",", a.getUserId(), a.getUsername(), a.getPassword(),
-                            a.getName(), a.getEmail(), a.getPhone()) + "\n");
-                } else if (u instanceof User) {
-                    User user = (User) u;
-                    writer.write(String.join(",", user.getUserId(), user.getUsername(), user.getPassword(),
-                            user.getName(), user.getEmail(), user.getPhone()) + "\n");
-                }
+        DataRepository repository = DataRepository.getInstance();
+        for (Object u : users) {
+            String line;
+            if (u instanceof Student) {
+                line = ((Student) u).toFileString();
+            } else if (u instanceof Tutor) {
+                Tutor t = (Tutor) u;
+                line = CsvTokenizer.join(t.getUserId(), t.getUsername(), t.getPassword(),
+                        t.getName(), t.getEmail(), t.getPhone(), t.getDateOfBirth());
+            } else if (u instanceof Receptionist) {
+                Receptionist r = (Receptionist) u;
+                line = CsvTokenizer.join(r.getUserId(), r.getUsername(), r.getPassword(),
+                        r.getName(), r.getEmail(), r.getPhone());
+            } else if (u instanceof Admin) {
+                Admin a = (Admin) u;
+                line = CsvTokenizer.join(a.getUserId(), a.getUsername(), a.getPassword(),
+                        a.getName(), a.getEmail(), a.getPhone());
+            } else if (u instanceof User) {
+                User user = (User) u;
+                line = CsvTokenizer.join(user.getUserId(), user.getUsername(), user.getPassword(),
+                        user.getName(), user.getEmail(), user.getPhone());
+            } else {
+                continue;
+            }
+            String id = ((User) u).getUserId();
+            if (!repository.updateRecord(filename, id, line) && !repository.insertRecord(filename, id, line)) {
+                System.err.println("Could not save user " + id + " to " + filename);
             }
-        } catch (IOException ex) {
-            ex.printStackTrace();
         }
     }
     
@@ -175,7 +180,7 @@ class Student extends User {
      */
     public String toFileString() {
         String subs = classIds != null ? String.join(";", classIds) : "";
-        return String.join(",", userId, ic, password, name,
+        return CsvTokenizer.join(userId, ic, password, name,
                 email, phone, address, level, enrollmentMonth, subs);
     }
     
@@ -211,40 +216,35 @@ class Student extends User {
     }
     
     private String getSubjectNameFromClassId(String classId) {
-        try (BufferedReader br = new BufferedReader(new FileReader("class.txt"))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length >= 3 && parts[0].equals(classId)) {
-                    return parts[2];
-                }
-            }
-        } catch (IOException ignored) {}
-        return classId;
+        ClassInfo classInfo = DataRepository.getInstance().findClass(classId);
+        return classInfo != null ? classInfo.getSubject() : classId;
     }
     
     /**
      * Static method to load students from file
      */
     public static List<Student> loadStudentsFromFile(String filename) {
+        // The live student file goes through the repository (journal included)
+        if ("students.txt".equals(new File(filename).getName())) {
+            return DataRepository.getInstance().getStudents();
+        }
         List<Student> list = new ArrayList<>();
         try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] p = line.split(",");
-                if (p.length < 10) continue;
-                String id = p[0].trim();
-                String ic = p[1].trim();
-                String pwd = p[2].trim();
-                String name = p[3].trim();
-                String email = p[4].trim();
-                String contact = p[5].trim();
-                String address = p[6].trim();
-                String level = p[7].trim();
-                String month = p[8].trim();
-                List<String> subs = p[9].trim().isEmpty()
+            CsvTokenizer csv = new CsvTokenizer(br);
+            while (csv.next()) {
+                if (csv.fieldCount() < 10) continue;
+                String id = csv.field(0);
+                String ic = csv.field(1);
+                String pwd = csv.field(2);
+                String name = csv.field(3);
+                String email = csv.field(4);
+                String contact = csv.field(5);
+                String address = csv.field(6);
+                String level = csv.field(7);
+                String month = csv.field(8);
+                List<String> subs = csv.isEmpty(9)
                         ? new ArrayList<>()
-                        : Arrays.asList(p[9].split(";"));
+                        : Arrays.asList(csv.field(9).split(";"));
                 list.add(new Student(id, ic, id, pwd, name, email,
                         contact, address, level, month, subs, 0.0));
             }
@@ -274,17 +274,16 @@ class Student extends User {
         
         boolean foundInFile = false;
         try (BufferedReader br = new BufferedReader(new FileReader("payment_history.txt"))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] p = line.split(",");
-                if (p.length >= 4 && p[0].trim().equals(userId)) {
+            CsvTokenizer csv = new CsvTokenizer(br);
+            while (csv.next()) {
+                if (csv.fieldCount() >= 4 && csv.fieldEquals(0, userId)) {
                     foundInFile = true;
                     sb.append("Recorded Payment\n")
-                            .append("Student ID : ").append(p[0]).append("\n")
-                            .append("Name       : ").append(p[1]).append("\n")
-                            .append("Classes    : ").append(p[2]).append("\n")
-                            .append("Amount     : RM").append(p[3]).append("\n")
-                            .append("Method     : ").append(p.length > 4 ? p[4] : "-").append("\n")
+                            .append("Student ID : ").append(csv.field(0)).append("\n")
+                            .append("Name       : ").append(csv.field(1)).append("\n")
+                            .append("Classes    : ").append(csv.field(2)).append("\n")
+                            .append("Amount     : RM").append(csv.field(3)).append("\n")
+                            .append("Method     : ").append(csv.fieldCount() > 4 ? csv.field(4) : "-").append("\n")
                             .append("----------------------------\n");
                 }
             }
@@ -309,18 +308,14 @@ class Student extends User {
     
     public double calculateTotalFees() {
         double total = 0.0;
-        Set<String> enrolledSet = new HashSet<>(getSubjects());
-        try (BufferedReader br = new BufferedReader(new FileReader("class.txt"))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length >= 6 && enrolledSet.contains(parts[0])) {
-                    try { 
-                        total += Double.parseDouble(parts[5]); 
-                    } catch (NumberFormatException ignored) {}
-                }
+        // Fees from the cached class table; Receivables does the same join for every student
+        DataRepository repository = DataRepository.getInstance();
+        for (String classId : DataRepository.distinct(getSubjects())) {
+            ClassInfo classInfo = repository.findClass(classId);
+            if (classInfo != null) {
+                total += classInfo.getFee();
             }
-        } catch (IOException ignored) {}
+        }
         return total;
     }
     
@@ -349,45 +344,25 @@ class Student extends User {
     }
     
     private String nextRequestId() {
-        int max = 0;
-        try (BufferedReader br = new BufferedReader(new FileReader("Subject_Change_Requests.txt"))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] p = line.split(",");
-                if (p.length > 0 && p[0].startsWith("REQ")) {
-                    max = Math.max(max, Integer.parseInt(p[0].substring(3)));
-                }
-            }
-        } catch (IOException | NumberFormatException ignored) {}
-        return String.format("REQ%03d", max + 1);
+        return IdSequence.getInstance().next("REQ");
     }
     
     public List<String> getAllSubjectsForForm() {
         List<String> out = new ArrayList<>();
-        try (BufferedReader br = new BufferedReader(new FileReader("class.txt"))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] parts = line.split(",");
-                if (parts.length >= 3) {
-                    String classLevel = parts[2].toLowerCase();
-                    if (classLevel.contains(level.toLowerCase())) {
-                        out.add(parts[2]);
-                    }
-                }
+        for (ClassInfo classInfo : DataRepository.getInstance().getClasses()) {
+            String subject = classInfo.getSubject();
+            if (subject.toLowerCase().contains(level.toLowerCase())) {
+                out.add(subject);
             }
-        } catch (IOException ignored) {}
+        }
         return out;
     }
     
+    // Single-record write through the repository, so journal mode and the cache see it
     private void saveSingleStudent() {
-        List<Student> all = loadStudentsFromFile("students.txt");
-        for (int i = 0; i < all.size(); i++) {
-            if (all.get(i).getStudentId().equals(userId)) {
-                all.set(i, this);
-                break;
-            }
+        if (!DataRepository.getInstance().updateRecord("students.txt", userId, toFileString())) {
+            System.err.println("Could not save student " + userId);
         }
-        User.saveUsersToFile(all, "students.txt");
     }
     
     // Class management methods
@@ -515,6 +490,26 @@ class ClassInfo {
     public String getSchedule() { return schedule; }
     public double getFee() { return fee; }
     
+    /**
+     * "Form N" taken from the class name, or null if the name has none
+     */
+    public String getLevel() {
+        java.util.regex.Matcher level = LEVEL.matcher(subject != null ? subject : "");
+        return level.find() ? "Form " + level.group(1) : null;
+    }
+    
+    /**
+     * The class name without its level, e.g. "Mathematics" for "Mathematics Form 1"
+     */
+    public String getSubjectName() {
+        String name = subject != null ? subject : "";
+        java.util.regex.Matcher level = LEVEL.matcher(name);
+        return level.find() ? (name.substring(0, level.start()) + name.substring(level.end())).trim() : name.trim();
+    }
+    
+    private static final java.util.regex.Pattern LEVEL =
+        java.util.regex.Pattern.compile("Form\\s*(\\d+)", java.util.regex.Pattern.CASE_INSENSITIVE);
+    
     // Setters
     public void setClassId(String classId) { this.classId = classId; }
     public void setTutorId(String tutorId) { this.tutorId = tutorId; }
@@ -21,8 +21,8 @@ public class UserHandler {
         }
     }
     
-    private final Map<String, Integer> loginAttempts = new HashMap<>();
-    private final Set<String> lockedAccounts = new HashSet<>();
+    // Shared by every login window; locks expire and survive restarts
+    private final LoginThrottle throttle = LoginThrottle.getInstance();
     
     /**
      * Authenticates user login credentials (supports all user types)
@@ -32,168 +32,80 @@ public class UserHandler {
      */
     public LoginResult authenticate(String username, String password) {
         // Check if account is locked
-        if (lockedAccounts.contains(username)) {
-            return new LoginResult(false, null, null, "Account locked. Contact administrator.");
-        }
-        
-        // Check current attempts
-        int attempts = loginAttempts.getOrDefault(username, 0);
-        if (attempts >= 3) {
-            lockedAccounts.add(username);
-            return new LoginResult(false, null, null, "Maximum login attempts exceeded. Account locked.");
+        if (throttle.isLocked(username)) {
+            return new LoginResult(false, null, null,
+                "Account locked. Try again in " + lockMinutes(username) + " minute(s) or contact administrator.");
         }
         
         System.out.println("DEBUG: Authenticating user: " + username);
         
-        // Try to authenticate in each user type
-        User user = null;
-        String userType = null;
-        
         // Determine user type from UserID prefix (case-insensitive) or try all
         String upperUsername = username.toUpperCase();
-        
+        String expectedType = null;
         if (upperUsername.startsWith("AD")) {
-            // Check Admin first
-            user = findUserInFile(getFilePath(ADMINS_FILE), username, password, "ADMIN");
-            if (user != null) {
-                userType = "ADMIN";
-                System.out.println("DEBUG: Admin login successful");
-            }
+            expectedType = "ADMIN";
         } else if (upperUsername.startsWith("RC")) {
-            // Check Receptionist
-            user = findUserInFile(getFilePath(RECEPTIONISTS_FILE), username, password, "RECEPTIONIST");
-            if (user != null) {
-                userType = "RECEPTIONIST";
-                System.out.println("DEBUG: Receptionist login successful");
-            }
+            expectedType = "RECEPTIONIST";
         } else if (upperUsername.startsWith("TC")) {
-            // Check Tutor
-            user = findUserInFile(getFilePath(TUTORS_FILE), username, password, "TUTOR");
-            if (user != null) {
-                userType = "TUTOR";
-                System.out.println("DEBUG: Tutor login successful");
-            }
+            expectedType = "TUTOR";
         } else if (upperUsername.startsWith("STU")) {
-            // Check Student
-            user = findUserInFile(getFilePath(STUDENTS_FILE), username, password, "STUDENT");
-            if (user != null) {
-                userType = "STUDENT";
-                System.out.println("DEBUG: Student login successful");
-            }
+            expectedType = "STUDENT";
         } else {
-            // If no prefix matches, try all files (fallback for legacy usernames)
+            // No prefix: accept a match in any role file (fallback for legacy usernames)
             System.out.println("DEBUG: No prefix match, trying all user types...");
-            
-            // Try Admin
-            user = findUserInFile(getFilePath(ADMINS_FILE), username, password, "ADMIN");
-            if (user != null) {
-                userType = "ADMIN";
-            }
-            
-            // Try Receptionist
-            if (user == null) {
-                user = findUserInFile(getFilePath(RECEPTIONISTS_FILE), username, password, "RECEPTIONIST");
-                if (user != null) {
-                    userType = "RECEPTIONIST";
-                }
-            }
-            
-            // Try Tutor
-            if (user == null) {
-                user = findUserInFile(getFilePath(TUTORS_FILE), username, password, "TUTOR");
-                if (user != null) {
-                    userType = "TUTOR";
-                }
-            }
-            
-            // Try Student
-            if (user == null) {
-                user = findUserInFile(getFilePath(STUDENTS_FILE), username, password, "STUDENT");
-                if (user != null) {
-                    userType = "STUDENT";
+        }
+        
+        // One probe of the in-memory credential index instead of rescanning role files
+        User user = null;
+        String userType = null;
+        for (CredentialIndex.Entry entry : CredentialIndex.getInstance().lookup(username)) {
+            if ((expectedType == null || expectedType.equals(entry.role)) && entry.verify(password)) {
+                String[] record = entry.record.clone();
+                if (PasswordHasher.needsRehash(entry.verifier)) {
+                    migratePassword(entry.file, record, password);
                 }
+                user = createUserFromData(record, entry.role);
+                userType = entry.role;
+                System.out.println("DEBUG: Login successful for UserID " + username +
+                                 " (matched with " + entry.record[0] + ")");
+                break;
             }
         }
         
         if (user != null && userType != null) {
             // Reset attempts on successful login
-            loginAttempts.remove(username);
+            throttle.recordSuccess(username);
             System.out.println("DEBUG: Authentication successful - UserType: " + userType + ", UserID: " + user.getUserId());
             return new LoginResult(true, userType, user, "Login successful");
         } else {
             // Increment attempts on failed login
-            loginAttempts.put(username, attempts + 1);
-            int remainingAttempts = 3 - (attempts + 1);
+            int remainingAttempts = throttle.recordFailure(username);
             System.out.println("DEBUG: Authentication failed for: " + username);
             return new LoginResult(false, null, null, 
                 remainingAttempts > 0 
                     ? "Invalid credentials. " + remainingAttempts + " attempts remaining."
-                    : "Invalid credentials. Account will be locked.");
+                    : "Invalid credentials. Account locked for " + lockMinutes(username) + " minute(s).");
         }
     }
     
-    /**
-     * Finds user in specific file with username and password
-     * @param filepath The full file path to search in
- * @param username The UserID to find (changed from username to UserID)
- * @param password The password to verify
- * @param userType The type of user being searched for
- * @return User object if found, null otherwise
- */
-private User findUserInFile(String filepath, String username, String password, String userType) {
-    File file = new File(filepath);
-    if (!file.exists()) {
-        System.err.println("File not found: " + filepath);
-        return null;
+    // Whole minutes left on a lock, rounded up
+    private int lockMinutes(String username) {
+        return (int) Math.max(1, (throttle.lockRemainingMillis(username) + 59_999) / 60_000);
     }
     
-    try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-        String line;
-        while ((line = reader.readLine()) != null) {
-            if (line.trim().isEmpty()) continue; // Skip empty lines
-            
-            String[] parts = line.split(",");
-            if (parts.length >= 3) {
-                String fileUserId = parts[0].trim();
-                String filePassword;
-                
-                // Get password from correct position based on file format
-                switch (userType) {
-                    case "STUDENT":
-                        // Students: UserID,IC/Passport,Password,Name,Email,Phone,Address,Form/Level,Intake,Classes
-                        filePassword = parts.length > 2 ? parts[2].trim() : "";
-                        break;
-                    case "TUTOR":
-                        // Tutors: UserID,Name,Password,Email,Birthdate,Phone
-                        filePassword = parts.length > 2 ? parts[2].trim() : "";
-                        break;
-                    case "RECEPTIONIST":
-                        // Receptionists: UserID,Username,Password,FullName,Email,Phone
-                        filePassword = parts.length > 2 ? parts[2].trim() : "";
-                        break;
-                    case "ADMIN":
-                        // Admins: UserID,Username,Password,Role,Email,Phone
-                        filePassword = parts.length > 2 ? parts[2].trim() : "";
-                        break;
-                    default:
-                        filePassword = parts.length > 2 ? parts[2].trim() : "";
-                }
-                
-                // MAIN CHANGE: Use UserID (first column) for ALL user types instead of username
-                boolean loginMatch = fileUserId.equalsIgnoreCase(username) && filePassword.equals(password);
-                
-                if (loginMatch) {
-                    System.out.println("DEBUG: Login successful for UserID " + username + 
-                                     " (matched with " + fileUserId + ")");
-                    return createUserFromData(parts, userType);
-                }
-            }
+    /**
+     * Replaces a plain-text (or outdated) password with a fresh PBKDF2 verifier
+     * after a successful login. A failed write only means the row is migrated on
+     * a later login.
+     */
+    private void migratePassword(String filename, String[] record, String password) {
+        record[2] = PasswordHasher.hash(password);
+        if (DataRepository.getInstance().updateRecord(filename, record[0], CsvTokenizer.join(record))) {
+            CredentialIndex.getInstance().invalidate();
+        } else {
+            System.err.println("Could not upgrade stored password for " + record[0]);
         }
-    } catch (IOException e) {
-        System.err.println("Error reading file: " + filepath + " - " + e.getMessage());
     }
-    return null;
-}
     
     /**
      * Creates User object from file data
@@ -260,25 +172,15 @@ private User findUserInFile(String filepath, String username, String password, S
      * @param username The username to reset attempts for
      */
     public void resetLoginAttempts(String username) {
-        loginAttempts.remove(username);
-        lockedAccounts.remove(username);
+        throttle.unlock(username);
     }
 
+    /**
+     * Appends a successful login to the rotating login history
+     */
     public void recordLoginTime(String userId, String userType) {
-    try {
-        String timestamp = java.time.LocalDateTime.now().format(
-            java.time.format.DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
-        );
-        
-        try (java.io.FileWriter fw = new java.io.FileWriter("login_history.txt", true)) {
-            fw.write(userId + "," + userType + "," + timestamp + "\n");
-        }
-    } catch (java.io.IOException e) {
-        System.err.println("Error recording login time: " + e.getMessage());
+        LoginHistory.getInstance().record(userId, userType);
     }
-}
-
-    
     
     /**
      * Gets remaining login attempts for a user
@@ -286,7 +188,7 @@ private User findUserInFile(String filepath, String username, String password, S
      * @return Number of remaining attempts
      */
     public int getRemainingAttempts(String username) {
-        return Math.max(0, 3 - loginAttempts.getOrDefault(username, 0));
+        return throttle.remainingAttempts(username);
     }
     
     /**
@@ -295,7 +197,7 @@ private User findUserInFile(String filepath, String username, String password, S
      * @return true if account is locked
      */
     public boolean isAccountLocked(String username) {
-        return lockedAccounts.contains(username);
+        return throttle.isLocked(username);
     }
     
     /**
@@ -319,12 +221,12 @@ private User findUserInFile(String filepath, String username, String password, S
                 
                 List<String> filtered = new ArrayList<>();
                 boolean found = false;
+                CsvTokenizer csv = new CsvTokenizer();
                 for (String line : lines) {
-                    String[] p = line.split(",");
-                    if (p.length >= 5 &&
-                        p[0].trim().equalsIgnoreCase(requestId) &&
-                        p[1].trim().equals(studentId) &&
-                        p[4].trim().equalsIgnoreCase("Pending")) {
+                    if (csv.reset(line) >= 5 &&
+                        csv.fieldEqualsIgnoreCase(0, requestId) &&
+                        csv.fieldEquals(1, studentId) &&
+                        csv.fieldEqualsIgnoreCase(4, "Pending")) {
                         found = true; // Skip this line (delete it)
                     } else {
                         filtered.add(line);
@@ -349,13 +251,12 @@ private User findUserInFile(String filepath, String username, String password, S
         public static List<String> getPendingRequestsForStudent(String studentId) {
             List<String> out = new ArrayList<>();
             try (BufferedReader br = new BufferedReader(new FileReader(FILE))) {
-                String line;
-                while ((line = br.readLine()) != null) {
-                    String[] p = line.split(",");
-                    if (p.length >= 5 &&
-                            p[1].trim().equals(studentId) &&
-                            p[4].trim().equalsIgnoreCase("Pending")) {
-                        out.add(line);
+                CsvTokenizer csv = new CsvTokenizer(br);
+                while (csv.next()) {
+                    if (csv.fieldCount() >= 5 &&
+                            csv.fieldEquals(1, studentId) &&
+                            csv.fieldEqualsIgnoreCase(4, "Pending")) {
+                        out.add(csv.line());
                     }
                 }
             } catch (IOException ignored) {}
@@ -396,10 +297,10 @@ private User findUserInFile(String filepath, String username, String password, S
                 
                 boolean found = false;
                 for (int i = 0; i < lines.size(); i++) {
-                    String[] p = lines.get(i).split(",");
-                    if (p.length >= 5 && p[0].trim().equals(requestId)) {
+                    String[] p = CsvTokenizer.split(lines.get(i));
+                    if (p.length >= 5 && p[0].equals(requestId)) {
                         p[4] = newStatus;
-                        lines.set(i, String.join(",", p));
+                        lines.set(i, CsvTokenizer.join(p));
                         found = true;
                         break;
                     }
@@ -453,39 +354,20 @@ private User findUserInFile(String filepath, String username, String password, S
                     return false;
             }
             
-            File file = new File(getFilePath(filename));
-            if (!file.exists()) return false;
-            
-            List<String> lines = new ArrayList<>();
-            try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    lines.add(line);
-                }
-            }
-            
-            boolean found = false;
-            for (int i = 0; i < lines.size(); i++) {
-                String[] parts = lines.get(i).split(",");
-                if (parts.length >= 3 && parts[0].trim().equals(userId)) {
-                    parts[2] = newPassword; // Update password
-                    lines.set(i, String.join(",", parts));
-                    found = true;
-                    break;
-                }
-            }
+            // Single-record edit through the repository, so journal mode sees it
+            boolean found = DataRepository.getInstance().editRecord(filename, userId, parts -> {
+                if (parts.length < 3) return null;
+                parts[2] = PasswordHasher.hash(newPassword); // Update password
+                return parts;
+            });
             
             if (found) {
-                try (PrintWriter writer = new PrintWriter(new FileWriter(file))) {
-                    for (String line : lines) {
-                        writer.println(line);
-                    }
-                }
+                CredentialIndex.getInstance().invalidate();
                 return true;
             }
             return false;
             
-        } catch (IOException ex) {
+        } catch (Exception ex) {
             ex.printStackTrace();
             return false;
         }
@@ -495,17 +377,16 @@ private User findUserInFile(String filepath, String username, String password, S
      * Account management utilities
      */
     public boolean unlockAccount(String username) {
-        lockedAccounts.remove(username);
-        loginAttempts.remove(username);
+        throttle.unlock(username);
         return true;
     }
     
     public Set<String> getLockedAccounts() {
-        return new HashSet<>(lockedAccounts);
+        return throttle.lockedUsers();
     }
     
     public Map<String, Integer> getLoginAttempts() {
-        return new HashMap<>(loginAttempts);
+        return throttle.failureCounts();
     }
 }
 
@@ -531,20 +412,9 @@ class LoginResult {
     public User getUser() { return user; }
     public String getMessage() { return message; }
     public String getLastLoginTime(String userId) {
-    String lastLogin = "First time login";
-    try (java.io.BufferedReader br = new java.io.BufferedReader(new java.io.FileReader("login_history.txt"))) {
-        String line;
-        while ((line = br.readLine()) != null) {
-            String[] parts = line.split(",");
-            if (parts.length >= 3 && parts[0].equals(userId)) {
-                lastLogin = parts[2]; // Keep updating to get the latest
-            }
-        }
-    } catch (java.io.IOException e) {
-        // File doesn't exist or error reading - return default
+        String lastLogin = LoginHistory.getInstance().lastLogin(userId);
+        return lastLogin != null ? lastLogin : "First time login";
     }
-    return lastLogin;
-}
     
     @Override
     public String toString() {
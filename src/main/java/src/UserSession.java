@@ -0,0 +1,246 @@
+import java.util.*;
+
+/**
+ * UserSession holds the logged-in user for the dashboards: the User, its role
+ * and data derived from it (address, enrolled classes and fees for students,
+ * taught classes and level for tutors). Each value is worked out once and
+ * reused until its source changes.
+ *
+ * Before answering, the session compares the DataRepository versions of the
+ * user's role file and of the class table with the ones it saw last; both are
+ * stat calls, so opening a profile tab does not reread any file. When the role
+ * file moved, the user is looked up again in the cached table and the derived
+ * values are kept unless their own row changed.
+ */
+final class UserSession {
+    private static UserSession current;
+
+    private final String userId;
+    private final String role;
+
+    private User user;
+    private String userRow; // fields of the user the derived values were built from
+    private long userVersion = -1;
+    private long classesVersion = -1;
+    private String receptionistAddress; // read on demand, dropped when the role file changes
+
+    // Derived values, null until first asked for
+    private List<ClassInfo> enrolledClasses;
+    private FeeSummary feeSummary;
+    private List<ClassInfo> tutorClasses;
+    private String tutorLevel;
+
+    private UserSession(User user, String role) {
+        this.userId = user.getUserId();
+        this.role = role;
+        this.user = user;
+    }
+
+    /**
+     * Starts the session for a user who just logged in
+     */
+    static synchronized UserSession start(User user, String role) {
+        current = new UserSession(user, role);
+        current.refresh();
+        return current;
+    }
+
+    /**
+     * The current session if it belongs to this user, otherwise a new one
+     */
+    static synchronized UserSession of(User user, String role) {
+        if (current != null && current.role.equals(role) && current.userId.equalsIgnoreCase(user.getUserId())) {
+            return current;
+        }
+        return start(user, role);
+    }
+
+    static synchronized UserSession current() {
+        return current;
+    }
+
+    static synchronized void end() {
+        current = null;
+    }
+
+    /**
+     * Monthly fees of a student's enrolled classes next to the stored balance
+     */
+    static final class FeeSummary {
+        private final int classCount;
+        private final double monthlyFees;
+        private final double balance;
+
+        private FeeSummary(int classCount, double monthlyFees, double balance) {
+            this.classCount = classCount;
+            this.monthlyFees = monthlyFees;
+            this.balance = balance;
+        }
+
+        int getClassCount() { return classCount; }
+        double getMonthlyFees() { return monthlyFees; }
+        double getBalance() { return balance; }
+    }
+
+    String getUserId() { return userId; }
+    String getRole() { return role; }
+
+    synchronized User getUser() {
+        refresh();
+        return user;
+    }
+
+    synchronized String getAddress() {
+        refresh();
+        switch (role) {
+            case "STUDENT":
+                return user instanceof Student ? ((Student) user).getAddress() : "Address not available";
+            case "RECEPTIONIST":
+                // receptionist.txt keeps the address in an optional seventh column Receptionist does not carry
+                if (receptionistAddress == null) {
+                    String[] fields = DataRepository.getInstance().readFields("receptionist.txt", userId);
+                    receptionistAddress = fields != null && fields.length >= 7 ? fields[6] : "Address not available";
+                }
+                return receptionistAddress;
+            case "ADMIN":
+                return "ATC Tuition Centre Administrative Office"; // admin.txt has no address column
+            default:
+                return "Address not available";
+        }
+    }
+
+    /**
+     * Classes the student is enrolled in, in enrollment order, each once
+     */
+    synchronized List<ClassInfo> getEnrolledClasses() {
+        refresh();
+        if (enrolledClasses == null) {
+            enrolledClasses = new ArrayList<>();
+            if (user instanceof Student) {
+                DataRepository repository = DataRepository.getInstance();
+                for (String classId : DataRepository.distinct(((Student) user).getSubjects())) {
+                    ClassInfo classInfo = repository.findClass(classId);
+                    if (classInfo != null) enrolledClasses.add(classInfo);
+                }
+            }
+        }
+        return new ArrayList<>(enrolledClasses);
+    }
+
+    synchronized FeeSummary getFeeSummary() {
+        refresh();
+        if (feeSummary == null) {
+            double fees = 0;
+            List<ClassInfo> classes = getEnrolledClasses();
+            for (ClassInfo classInfo : classes) {
+                fees += classInfo.getFee();
+            }
+            double balance = user instanceof Student ? ((Student) user).getTotalBalance() : 0;
+            feeSummary = new FeeSummary(classes.size(), fees, balance);
+        }
+        return feeSummary;
+    }
+
+    synchronized List<ClassInfo> getTutorClasses() {
+        refresh();
+        if (tutorClasses == null) {
+            tutorClasses = DataRepository.getInstance().getClassesByTutor(userId);
+        }
+        return new ArrayList<>(tutorClasses);
+    }
+
+    /**
+     * Form level of the classes a tutor teaches, or "Multi-Level" / "Not Set"
+     */
+    synchronized String getTutorLevel() {
+        refresh();
+        if (tutorLevel == null) {
+            Set<String> levels = new HashSet<>();
+            for (ClassInfo classInfo : getTutorClasses()) {
+                String subject = classInfo.getSubject().toLowerCase();
+                for (int form = 1; form <= 5; form++) {
+                    if (subject.contains("form " + form)) {
+                        levels.add("Form " + form);
+                        break;
+                    }
+                }
+            }
+            tutorLevel = levels.isEmpty() ? "Not Set"
+                : levels.size() == 1 ? levels.iterator().next() : "Multi-Level";
+        }
+        return tutorLevel;
+    }
+
+    /**
+     * Drops every derived value, e.g. after a change the session cannot observe
+     */
+    synchronized void invalidate() {
+        userVersion = -1;
+        userRow = null;
+        classesVersion = -1;
+        clearDerived();
+    }
+
+    // Rereads the user when the role file changed, derived values only when their own row or a class did
+    private void refresh() {
+        DataRepository repository = DataRepository.getInstance();
+        long version = repository.getVersion(roleFile());
+        if (version != userVersion) {
+            userVersion = version;
+            receptionistAddress = null;
+            User reloaded = loadUser();
+            if (reloaded != null) {
+                user = reloaded;
+                String row = rowOf(reloaded);
+                if (!row.equals(userRow)) {
+                    userRow = row;
+                    clearDerived();
+                }
+            }
+        }
+
+        long classes = repository.getVersion("class.txt");
+        if (classes != classesVersion) {
+            classesVersion = classes;
+            clearDerived();
+        }
+    }
+
+    private String roleFile() {
+        switch (role) {
+            case "STUDENT": return "students.txt";
+            case "TUTOR": return "tutor.txt";
+            case "RECEPTIONIST": return "receptionist.txt";
+            case "ADMIN": return "admin.txt";
+            default: return "";
+        }
+    }
+
+    // The parsed fields of a user, to tell whether their own row changed
+    private static String rowOf(User user) {
+        if (user instanceof Student) return ((Student) user).toFileString();
+        String extra = user instanceof Tutor ? ((Tutor) user).getDateOfBirth()
+            : user instanceof Receptionist ? ((Receptionist) user).getDepartment()
+            : user instanceof Admin ? ((Admin) user).getRole() : "";
+        return CsvTokenizer.join(user.getUserId(), user.getUsername(), user.getPassword(), user.getName(),
+                                 user.getEmail(), user.getPhone(), extra);
+    }
+
+    private User loadUser() {
+        DataRepository repository = DataRepository.getInstance();
+        switch (role) {
+            case "STUDENT": return repository.findStudent(userId);
+            case "TUTOR": return repository.findTutor(userId);
+            case "RECEPTIONIST": return repository.findReceptionist(userId);
+            case "ADMIN": return repository.findAdmin(userId);
+            default: return null;
+        }
+    }
+
+    private void clearDerived() {
+        enrolledClasses = null;
+        feeSummary = null;
+        tutorClasses = null;
+        tutorLevel = null;
+    }
+}
\ No newline at end of file